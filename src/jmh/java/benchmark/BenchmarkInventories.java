@@ -0,0 +1,56 @@
+package benchmark;
+
+import generator.InventoryGenerator;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Тестові файли для бенчмарків
+ * Файл з потрібною кількістю каменів генерується один раз у target/benchmark-data і потім перевикористовується
+ * Генерує InventoryGenerator з фіксованим seed, тому вміст файлу однаковий між запусками
+ */
+public final class BenchmarkInventories {
+    private static final Path DATA_DIR = Paths.get("target", "benchmark-data");
+    private static final long SEED = 42;
+
+    private BenchmarkInventories() {
+    }
+
+    /**
+     * @return шлях до файлу з gemCount каменями (створюється при першому виклику)
+     */
+    public static synchronized Path inventory(int gemCount) throws IOException {
+        Files.createDirectories(DATA_DIR);
+        Path file = DATA_DIR.resolve("inventory-" + gemCount + "-seed" + SEED + ".xml");
+        if (Files.exists(file)) {
+            return file;
+        }
+
+        Path tmp = DATA_DIR.resolve(file.getFileName() + ".tmp");
+        try {
+            new InventoryGenerator(SEED).generate(tmp, gemCount);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to generate inventory " + file, e);
+        }
+        Files.move(tmp, file);
+        return file;
+    }
+
+    /**
+     * Парсери логують кожен виклик parse - в бенчмарку це тільки шум
+     */
+    public static void quietLogging() {
+        Configurator.setRootLevel(Level.WARN);
+        Configurator.setLevel("parser", Level.WARN);
+        Configurator.setLevel("validator", Level.WARN);
+        Configurator.setLevel("transformer", Level.WARN);
+        Configurator.setLevel("snapshot", Level.WARN);
+        Configurator.setLevel("generator", Level.WARN);
+    }
+}
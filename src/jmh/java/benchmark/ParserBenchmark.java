@@ -0,0 +1,60 @@
+package benchmark;
+
+import model.Gem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.GemParser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Порівняння всіх парсерів на файлах різного розміру
+ * Міряємо і пропускну здатність (операцій за секунду), і середній час одного парсингу
+ *
+ * Список парсерів в @Param - тільки значення за замовчуванням для запуску через org.openjdk.jmh.Main;
+ * ParserBenchmarkRunner сам знаходить всі реалізації GemParser в пакеті parser і додає профілювальник gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParserBenchmark {
+
+    /**
+     * Ім'я класу парсера: просте ім'я для класів з пакету parser або повне ім'я для інших
+     */
+    @Param({"SaxGemParser", "DomGemParser", "StaxGemParser"})
+    public String parser;
+
+    @Param({"1000", "100000", "1000000"})
+    public int gemCount;
+
+    private String xmlFile;
+    private GemParser gemParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        xmlFile = BenchmarkInventories.inventory(gemCount).toString();
+        String className = parser.contains(".") ? parser : "parser." + parser;
+        gemParser = (GemParser) Class.forName(className).getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public List<Gem> parse() throws Exception {
+        return gemParser.parse(xmlFile);
+    }
+}
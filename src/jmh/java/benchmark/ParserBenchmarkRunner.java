@@ -0,0 +1,145 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import parser.GemParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * Запуск ParserBenchmark для всіх парсерів з пакету parser
+ * Парсер потрапляє в бенчмарк автоматично, якщо це публічний неабстрактний клас,
+ * що реалізує GemParser і має публічний конструктор без параметрів
+ *
+ * Запуск: java -cp target/benchmarks.jar benchmark.ParserBenchmarkRunner [опції JMH]
+ * Опції JMH (наприклад -p gemCount=1000 або -p parser=StaxGemParser) мають пріоритет над знайденими значеннями
+ * -h, -l, -lp, -lprof і -lrf працюють як у org.openjdk.jmh.Main - тільки виводять довідку чи список, без запуску
+ */
+public final class ParserBenchmarkRunner {
+    private static final String PARSER_PACKAGE = "parser";
+    // Старі реалізації з src/jmh - база для окремих бенчмарків, а не парсери програми
+    private static final Set<String> BASELINES = Collections.singleton("LegacyDomGemParser");
+
+    private ParserBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldListProfilers()) {
+            commandLine.listProfilers();
+            return;
+        }
+        if (commandLine.shouldListResultFormats()) {
+            commandLine.listResultFormats();
+            return;
+        }
+
+        // Додаємо свої опції до аргументів, а не в OptionsBuilder: listWithParams бере бенчмарки
+        // і параметри тільки з CommandLineOptions
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        // Точна назва класу - просто "ParserBenchmark" як регулярний вираз зачепив би і DomParserBenchmark
+        jmhArgs.add("^" + Pattern.quote(ParserBenchmark.class.getName()) + "\\.");
+        if (!commandLine.getParameter("parser").hasValue()) {
+            List<String> parsers = findParsers();
+            System.out.println("Discovered parsers: " + parsers);
+            jmhArgs.add("-p");
+            jmhArgs.add("parser=" + String.join(",", parsers));
+        }
+        CommandLineOptions effective = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+
+        Runner runner = new Runner(new OptionsBuilder()
+            .parent(effective)
+            .addProfiler(GCProfiler.class)
+            .build());
+        if (effective.shouldList()) {
+            runner.list();
+        } else if (effective.shouldListWithParams()) {
+            runner.listWithParams(effective);
+        } else {
+            runner.run();
+        }
+    }
+
+    /**
+     * Шукаємо класи парсерів на classpath - і в папці з класами, і всередині jar
+     */
+    static List<String> findParsers() throws IOException, URISyntaxException {
+        List<String> classNames = new ArrayList<>();
+        Enumeration<URL> resources = ParserBenchmarkRunner.class.getClassLoader().getResources(PARSER_PACKAGE);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if ("jar".equals(url.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) url.openConnection();
+                try (JarFile jar = new JarFile(connection.getJarFileURL().toURI().getPath())) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(PARSER_PACKAGE + "/") && name.indexOf('/', PARSER_PACKAGE.length() + 1) < 0) {
+                            addClassName(classNames, name.substring(PARSER_PACKAGE.length() + 1));
+                        }
+                    }
+                }
+            } else if ("file".equals(url.getProtocol())) {
+                String[] files = new File(url.toURI()).list();
+                if (files != null) {
+                    for (String file : files) {
+                        addClassName(classNames, file);
+                    }
+                }
+            }
+        }
+
+        List<String> parsers = new ArrayList<>();
+        for (String className : classNames) {
+            if (!BASELINES.contains(className) && isBenchmarkable(PARSER_PACKAGE + "." + className)) {
+                parsers.add(className);
+            }
+        }
+        Collections.sort(parsers);
+        return parsers;
+    }
+
+    private static void addClassName(List<String> classNames, String fileName) {
+        // Вкладені класи ($) не цікавлять - парсер завжди клас верхнього рівня
+        if (fileName.endsWith(".class") && !fileName.contains("$")) {
+            String className = fileName.substring(0, fileName.length() - ".class".length());
+            if (!classNames.contains(className)) {
+                classNames.add(className);
+            }
+        }
+    }
+
+    private static boolean isBenchmarkable(String className) {
+        try {
+            Class<?> type = Class.forName(className, false, ParserBenchmarkRunner.class.getClassLoader());
+            if (!GemParser.class.isAssignableFrom(type) || type.isInterface()
+                    || Modifier.isAbstract(type.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+            type.getConstructor();
+            return true;
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            return false;
+        }
+    }
+}
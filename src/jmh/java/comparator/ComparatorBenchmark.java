@@ -0,0 +1,100 @@
+package comparator;
+
+import benchmark.BenchmarkInventories;
+import model.Gem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.StaxGemParser;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сортування 1 000 000 каменів кожним компаратором: GemComparator (baseline) проти FastGemComparator (fast)
+ * і проти GemSorter з попередньо порахованими ключами і паралельним сортуванням (sorter)
+ * Кожен виклик сортує свіжу копію в початковому порядку, копіювання займає малу частку часу
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ComparatorBenchmark {
+
+    @Param({"name", "value", "origin", "preciousnessAndValue"})
+    public String comparator;
+
+    @Param({"baseline", "fast", "sorter"})
+    public String impl;
+
+    @Param({"1000000"})
+    public int gemCount;
+
+    private Gem[] gems;
+    private List<Gem> gemList;
+    private Comparator<Gem> gemComparator;
+    private GemSorter.SortKey sortKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        List<Gem> parsed = new StaxGemParser().parse(BenchmarkInventories.inventory(gemCount).toString());
+        gems = parsed.toArray(new Gem[0]);
+        gemList = Arrays.asList(gems);
+        gemComparator = "fast".equals(impl) ? fast(comparator) : baseline(comparator);
+        sortKey = sortKey(comparator);
+    }
+
+    @Benchmark
+    public Object sort() {
+        if ("sorter".equals(impl)) {
+            return GemSorter.sorted(gemList, sortKey);
+        }
+        Gem[] copy = gems.clone();
+        Arrays.sort(copy, gemComparator);
+        return copy;
+    }
+
+    private static Comparator<Gem> baseline(String name) {
+        switch (name) {
+            case "name": return GemComparator.byName();
+            case "value": return GemComparator.byValue();
+            case "origin": return GemComparator.byOrigin();
+            case "preciousnessAndValue": return GemComparator.byPreciousnessAndValue();
+            default: throw new IllegalArgumentException("Unknown comparator: " + name);
+        }
+    }
+
+    private static GemSorter.SortKey sortKey(String name) {
+        switch (name) {
+            case "name": return GemSorter.SortKey.NAME;
+            case "value": return GemSorter.SortKey.VALUE;
+            case "origin": return GemSorter.SortKey.ORIGIN;
+            case "preciousnessAndValue": return GemSorter.SortKey.PRECIOUSNESS_AND_VALUE;
+            default: throw new IllegalArgumentException("Unknown comparator: " + name);
+        }
+    }
+
+    private static Comparator<Gem> fast(String name) {
+        switch (name) {
+            case "name": return FastGemComparator.byName();
+            case "value": return FastGemComparator.byValue();
+            case "origin": return FastGemComparator.byOrigin();
+            case "preciousnessAndValue": return FastGemComparator.byPreciousnessAndValue();
+            default: throw new IllegalArgumentException("Unknown comparator: " + name);
+        }
+    }
+}
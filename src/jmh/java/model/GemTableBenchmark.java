@@ -0,0 +1,111 @@
+package model;
+
+import benchmark.BenchmarkInventories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.StaxGemParser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Типові аналітичні запити по 1 000 000 каменів: список об'єктів Gem (list) проти колонкової GemTable (table)
+ * - sumValue - загальна вартість
+ * - countPreciousWithColor - скільки дорогоцінних каменів мають зелений колір
+ * - sumValueByOrigin - вартість по кожному походженню
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GemTableBenchmark {
+
+    @Param({"list", "table"})
+    public String impl;
+
+    @Param({"1000000"})
+    public int gemCount;
+
+    private List<Gem> gems;
+    private GemTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        String file = BenchmarkInventories.inventory(gemCount).toString();
+        if ("table".equals(impl)) {
+            GemTable.Builder builder = new GemTable.Builder(gemCount);
+            new StaxGemParser().parse(file, builder);
+            table = builder.build();
+        } else {
+            gems = new StaxGemParser().parse(file);
+        }
+    }
+
+    @Benchmark
+    public long sumValue() {
+        if (table != null) {
+            return table.sumValueThousandths();
+        }
+        long sum = 0;
+        for (Gem gem : gems) {
+            if (gem.hasValue()) {
+                sum += gem.getValueThousandths();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int countPreciousWithColor() {
+        if (table != null) {
+            int mask = Color.GREEN.mask();
+            return table.filter(row -> table.getPreciousness(row) == Preciousness.PRECIOUS
+                                       && (table.getColorMask(row) & mask) != 0).length;
+        }
+        int count = 0;
+        for (Gem gem : gems) {
+            if (gem.getPreciousness() == Preciousness.PRECIOUS && hasColor(gem, Color.GREEN)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object sumValueByOrigin() {
+        if (table != null) {
+            return table.sumValueThousandthsByOrigin();
+        }
+        Map<String, Long> sums = new HashMap<>();
+        for (Gem gem : gems) {
+            if (gem.getOrigin() != null && gem.hasValue()) {
+                sums.merge(gem.getOrigin(), gem.getValueThousandths(), Long::sum);
+            }
+        }
+        return sums;
+    }
+
+    private static boolean hasColor(Gem gem, Color color) {
+        for (VisualParameters params : gem.getVisualParameters()) {
+            if (params.hasColor(color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
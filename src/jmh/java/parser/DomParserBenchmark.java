@@ -0,0 +1,74 @@
+package parser;
+
+import benchmark.BenchmarkInventories;
+import model.Gem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DOM парсер до і після переходу на обхід дочірніх вузлів за один прохід
+ * legacy - стара реалізація з getElementsByTagNameNS на кожне поле,
+ * deferred/expanded - нова реалізація з відкладеним розгортанням вузлів і без нього,
+ * parallel - перетворення в об'єкти Gem паралельно в ForkJoinPool.commonPool()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomParserBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int gemCount;
+
+    private String xmlFile;
+    private GemParser legacyParser;
+    private GemParser deferredParser;
+    private GemParser expandedParser;
+    private GemParser parallelParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        xmlFile = BenchmarkInventories.inventory(gemCount).toString();
+        legacyParser = new LegacyDomGemParser();
+        deferredParser = new DomGemParser(true);
+        expandedParser = new DomGemParser(false);
+        parallelParser = new DomGemParser(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public List<Gem> legacy() throws Exception {
+        return legacyParser.parse(xmlFile);
+    }
+
+    @Benchmark
+    public List<Gem> deferred() throws Exception {
+        return deferredParser.parse(xmlFile);
+    }
+
+    @Benchmark
+    public List<Gem> expanded() throws Exception {
+        return expandedParser.parse(xmlFile);
+    }
+
+    @Benchmark
+    public List<Gem> parallel() throws Exception {
+        return parallelParser.parse(xmlFile);
+    }
+}
@@ -0,0 +1,92 @@
+package parser;
+
+import benchmark.BenchmarkInventories;
+import model.Gem;
+import model.Preciousness;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вибірка частини каменів: повний парсинг з фільтрацією готових каменів (*Full)
+ * проти фільтра, переданого в парсер (*Pushdown)
+ * preciousness пропускає приблизно половину каменів, origin - одне походження з 9, id - один камінь
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"preciousness", "origin", "id"})
+    public String filter;
+
+    @Param({"100000"})
+    public int gemCount;
+
+    private String xmlFile;
+    private GemFilter gemFilter;
+    private SaxGemParser saxParser;
+    private StaxGemParser staxParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        xmlFile = BenchmarkInventories.inventory(gemCount).toString();
+        saxParser = new SaxGemParser();
+        staxParser = new StaxGemParser();
+        switch (filter) {
+            case "preciousness":
+                gemFilter = GemFilter.preciousness(Preciousness.PRECIOUS);
+                break;
+            case "origin":
+                gemFilter = GemFilter.origin("Colombia");
+                break;
+            case "id":
+                gemFilter = GemFilter.id(staxParser.parse(xmlFile).get(gemCount / 2).getId());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter: " + filter);
+        }
+    }
+
+    @Benchmark
+    public void saxFull(Blackhole blackhole) throws Exception {
+        saxParser.parse(xmlFile, gem -> accept(gem, blackhole));
+    }
+
+    @Benchmark
+    public void saxPushdown(Blackhole blackhole) throws Exception {
+        saxParser.parse(xmlFile, gemFilter, blackhole::consume);
+    }
+
+    @Benchmark
+    public void staxFull(Blackhole blackhole) throws Exception {
+        staxParser.parse(xmlFile, gem -> accept(gem, blackhole));
+    }
+
+    @Benchmark
+    public void staxPushdown(Blackhole blackhole) throws Exception {
+        staxParser.parse(xmlFile, gemFilter, blackhole::consume);
+    }
+
+    private void accept(Gem gem, Blackhole blackhole) {
+        if (gemFilter.test(gem)) {
+            blackhole.consume(gem);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package parser;
+
+import benchmark.BenchmarkInventories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Порівняння звичайного читання файлу (STREAM) з відображенням в пам'ять (MAPPED)
+ * rawRead міряє тільки вартість I/O, saxParse/staxParse - повний парсинг з відповідним режимом
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputModeBenchmark {
+
+    @Param({"STREAM", "MAPPED"})
+    public InputMode inputMode;
+
+    @Param({"100000"})
+    public int gemCount;
+
+    private String xmlFile;
+    private SaxGemParser saxParser;
+    private StaxGemParser staxParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        xmlFile = BenchmarkInventories.inventory(gemCount).toString();
+        saxParser = new SaxGemParser(inputMode);
+        staxParser = new StaxGemParser(inputMode);
+    }
+
+    @Benchmark
+    public long rawRead() throws Exception {
+        // Читаємо буфером того ж розміру, яким читає XML парсер
+        byte[] buffer = new byte[8192];
+        long checksum = 0;
+        try (InputStream in = inputMode.open(xmlFile)) {
+            int n;
+            while ((n = in.read(buffer, 0, buffer.length)) != -1) {
+                checksum += n + buffer[0];
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public void saxParse(Blackhole blackhole) throws Exception {
+        saxParser.parse(xmlFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public void staxParse(Blackhole blackhole) throws Exception {
+        staxParser.parse(xmlFile, blackhole::consume);
+    }
+}
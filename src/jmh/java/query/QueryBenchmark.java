@@ -0,0 +1,89 @@
+package query;
+
+import benchmark.BenchmarkInventories;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запит "дорогоцінні сині камені з прозорістю понад 80% і 8-12 гранями" по 1 000 000 каменів:
+ * повний прохід по списку Gem (scan) проти бітмап-індексів GemIndex (index)
+ * Повертаємо кількість, щоб не міряти створення результатів
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QueryBenchmark {
+    private static final long MIN_TRANSPARENCY = 8000;
+
+    @Param({"scan", "index"})
+    public String impl;
+
+    @Param({"1000000"})
+    public int gemCount;
+
+    private List<Gem> gems;
+    private GemIndex index;
+    private GemQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        gems = new StaxGemParser().parse(BenchmarkInventories.inventory(gemCount).toString());
+        if ("index".equals(impl)) {
+            index = GemIndex.of(gems);
+            gems = null;
+        }
+        query = GemQuery.preciousness(Preciousness.PRECIOUS)
+            .and(GemQuery.color(Color.BLUE))
+            .and(GemQuery.transparencyAbove(new BigDecimal("80")))
+            .and(GemQuery.facetsBetween(8, 12));
+    }
+
+    @Benchmark
+    public int query() {
+        if (index != null) {
+            return index.count(query);
+        }
+        int count = 0;
+        for (Gem gem : gems) {
+            if (gem.getPreciousness() == Preciousness.PRECIOUS && matchesVisual(gem)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean matchesVisual(Gem gem) {
+        boolean blue = false;
+        boolean transparent = false;
+        boolean facets = false;
+        for (VisualParameters params : gem.getVisualParameters()) {
+            blue |= params.hasColor(Color.BLUE);
+            transparent |= params.hasTransparency() && params.getTransparencyBasisPoints() > MIN_TRANSPARENCY;
+            facets |= params.hasFacets() && params.getFacetsAsInt() >= 8 && params.getFacetsAsInt() <= 12;
+        }
+        return blue && transparent && facets;
+    }
+}
@@ -0,0 +1,72 @@
+package snapshot;
+
+import benchmark.BenchmarkInventories;
+import model.Gem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.StaxGemParser;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Завантаження знімка проти парсингу того ж XML
+ * snapshotLoad - тільки читання знімка, snapshotParser - разом з підрахунком відбитка XML файлу
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"100000"})
+    public int gemCount;
+
+    private String xmlFile;
+    private Path snapshotFile;
+    private SourceStamp stamp;
+    private StaxGemParser staxParser;
+    private SnapshotGemParser snapshotParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkInventories.quietLogging();
+        xmlFile = BenchmarkInventories.inventory(gemCount).toString();
+        staxParser = new StaxGemParser();
+        Path snapshotDir = Paths.get("target", "benchmark-data", "snapshots");
+        snapshotParser = new SnapshotGemParser(staxParser, snapshotDir);
+        // Перший виклик парсить XML і записує знімок
+        snapshotParser.parse(xmlFile);
+        snapshotFile = snapshotParser.snapshotFile(Paths.get(xmlFile));
+        stamp = SourceStamp.of(Paths.get(xmlFile));
+    }
+
+    @Benchmark
+    public List<Gem> staxParse() throws Exception {
+        return staxParser.parse(xmlFile);
+    }
+
+    @Benchmark
+    public List<Gem> snapshotLoad() throws Exception {
+        return GemSnapshot.read(snapshotFile, stamp);
+    }
+
+    @Benchmark
+    public List<Gem> snapshotParser() throws Exception {
+        return snapshotParser.parse(xmlFile);
+    }
+}
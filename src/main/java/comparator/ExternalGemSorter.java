@@ -0,0 +1,340 @@
+package comparator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import generator.GemXmlWriter;
+import model.Gem;
+import model.VisualParameters;
+import parser.StreamingGemParser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Зовнішнє сортування злиттям для інвентарів, які не влазять у пам'ять
+ *
+ * 1. Камені потоково читаються парсером і набираються в порцію, поки її орієнтовний розмір
+ *    не досягне бюджету пам'яті
+ * 2. Кожна повна порція сортується і записується в тимчасовий файл (серію) у бінарному форматі GemRunFile;
+ *    з пулом порції сортуються і пишуться паралельно, поки парсер набирає наступну
+ * 3. Серії зливаються k-way злиттям через купу - в пам'яті тільки по одному каменю з кожної серії
+ *    Якщо серій більше MAX_FAN_IN, спочатку зливаємо групи сусідніх серій в довші серії
+ *
+ * Сортування стабільне: серії йдуть в порядку документа, і серед рівних каменів злиття бере камінь
+ * з раннішої серії - результат такий самий, як у Collections.sort з тим самим компаратором
+ * Якщо все влізло в одну порцію, тимчасові файли не створюються взагалі
+ */
+public class ExternalGemSorter {
+    private static final Logger logger = LogManager.getLogger(ExternalGemSorter.class);
+
+    // Скільки серій зливаємо за один раз - кожна тримає відкритий файл і буфер
+    static final int MAX_FAN_IN = 64;
+
+    private final Comparator<Gem> comparator;
+    private final ForkJoinPool pool;
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    public ExternalGemSorter(Comparator<Gem> comparator) {
+        this(comparator, null);
+    }
+
+    /**
+     * @param comparator порядок сортування, наприклад GemComparator.byValue()
+     * @param pool пул для паралельного сортування і запису серій; null - все в потоці виклику
+     */
+    public ExternalGemSorter(Comparator<Gem> comparator, ForkJoinPool pool) {
+        this.comparator = comparator;
+        this.pool = pool;
+    }
+
+    /**
+     * Скільки пам'яті (в байтах, орієнтовно) можуть займати камені, що очікують сортування
+     * З пулом бюджет ділиться між порціями, які сортуються одночасно
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Папка для тимчасових файлів серій (за замовчуванням java.io.tmpdir)
+     */
+    public void setTempDirectory(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Сортуємо камені з XML файлу і віддаємо їх у consumer у відсортованому порядку
+     * @return кількість каменів
+     */
+    public long sort(StreamingGemParser parser, String xmlFilePath, Consumer<Gem> consumer) throws Exception {
+        List<Path> runs = new ArrayList<>();
+        try {
+            RunBuilder builder = new RunBuilder(runs);
+            try {
+                parser.parse(xmlFilePath, builder);
+                builder.finish(consumer);
+                builder.awaitAll(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                // Якщо щось впало, все одно чекаємо запущені серії - інакше вони писали б у файли, які ми видаляємо
+                builder.awaitAll(false);
+            }
+            if (runs.isEmpty()) {
+                return builder.count;
+            }
+            logger.info("Merging {} sorted runs of {} gems", runs.size(), builder.count);
+            merge(runs, consumer);
+            return builder.count;
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Сортуємо камені з XML файлу в новий XML файл
+     * @return кількість каменів
+     */
+    public long sort(StreamingGemParser parser, String xmlFilePath, Path outputFile) throws Exception {
+        try (GemXmlWriter writer = new GemXmlWriter(
+                new BufferedOutputStream(Files.newOutputStream(outputFile), 1 << 16))) {
+            return sort(parser, xmlFilePath, gem -> {
+                try {
+                    writer.write(gem);
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException("Failed to write gem to " + outputFile, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Орієнтовний розмір каменя в пам'яті: заголовки об'єктів, посилання, рядки і числа
+     * (BigDecimal рахуємо тільки там, де число не вмістилось у фіксовану кому)
+     * Точність тут не потрібна - тільки щоб порція не виходила далеко за бюджет
+     */
+    static long estimateSize(Gem gem) {
+        long size = 48 + stringSize(gem.getId()) + stringSize(gem.getName()) + stringSize(gem.getOrigin())
+            + (gem.hasValue() && !gem.isValueFixedPoint() ? 40 : 0);
+        List<VisualParameters> visual = gem.getVisualParameters();
+        if (visual != null) {
+            size += 40 + 8L * visual.size();
+            for (VisualParameters params : visual) {
+                // Кольори упаковані в поля самого об'єкта, окремий список буває тільки для дуже довгих
+                size += 64 + (params.hasTransparency() && !params.isTransparencyFixedPoint() ? 40 : 0);
+            }
+        }
+        return size;
+    }
+
+    private static long stringSize(String s) {
+        return s == null ? 0 : 40 + s.length();
+    }
+
+    /**
+     * Зливаємо серії проходами по MAX_FAN_IN сусідніх серій, поки їх не залишиться не більше MAX_FAN_IN,
+     * і останнє злиття віддаємо в consumer
+     * Групи складаються з сусідніх серій і зберігають їх порядок, тому стабільність не порушується
+     */
+    private void merge(List<Path> runs, Consumer<Gem> consumer) throws IOException {
+        List<Path> pending = new ArrayList<>(runs);
+        while (pending.size() > MAX_FAN_IN) {
+            List<Path> next = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += MAX_FAN_IN) {
+                List<Path> group = pending.subList(from, Math.min(from + MAX_FAN_IN, pending.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+                Path merged = newRunFile();
+                runs.add(merged);
+                try (GemRunFile.Writer writer = new GemRunFile.Writer(merged)) {
+                    mergeRuns(group, gem -> {
+                        try {
+                            writer.write(gem);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (Path run : group) {
+                    Files.deleteIfExists(run);
+                }
+                next.add(merged);
+            }
+            pending = next;
+        }
+        mergeRuns(pending, consumer);
+    }
+
+    private void mergeRuns(List<Path> runs, Consumer<Gem> consumer) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>(runs.size(), (a, b) -> {
+            int result = comparator.compare(a.current, b.current);
+            return result != 0 ? result : Integer.compare(a.runIndex, b.runIndex);
+        });
+        List<GemRunFile.Reader> readers = new ArrayList<>(runs.size());
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                GemRunFile.Reader reader = new GemRunFile.Reader(runs.get(i));
+                readers.add(reader);
+                Gem first = reader.read();
+                if (first != null) {
+                    heap.add(new RunCursor(reader, i, first));
+                }
+            }
+            while (!heap.isEmpty()) {
+                RunCursor cursor = heap.poll();
+                consumer.accept(cursor.current);
+                cursor.current = cursor.reader.read();
+                if (cursor.current != null) {
+                    heap.add(cursor);
+                }
+            }
+        } finally {
+            for (GemRunFile.Reader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private Path newRunFile() throws IOException {
+        Files.createDirectories(tempDirectory);
+        return Files.createTempFile(tempDirectory, "gems-run-", ".bin");
+    }
+
+    private static void writeRun(Path file, List<Gem> gems) {
+        try (GemRunFile.Writer writer = new GemRunFile.Writer(file)) {
+            for (Gem gem : gems) {
+                writer.write(gem);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Споживач для парсера: набирає порції і відправляє повні на сортування і запис
+     */
+    private final class RunBuilder implements Consumer<Gem> {
+        private final List<Path> runs;
+        private final long chunkBudget;
+        private final int maxInFlight;
+        private final Deque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+        private List<Gem> chunk = new ArrayList<>();
+        private long chunkSize;
+        private long count;
+
+        private RunBuilder(List<Path> runs) {
+            this.runs = runs;
+            // Одна порція набирається, решта сортуються - разом вони не перевищують бюджет
+            this.maxInFlight = pool == null ? 0 : Math.max(1, pool.getParallelism());
+            this.chunkBudget = Math.max(1, memoryBudget / (maxInFlight + 1));
+        }
+
+        @Override
+        public void accept(Gem gem) {
+            chunk.add(gem);
+            count++;
+            chunkSize += estimateSize(gem);
+            if (chunkSize >= chunkBudget) {
+                spill();
+            }
+        }
+
+        /**
+         * Кінець файлу: якщо серій ще немає, сортуємо все в пам'яті і віддаємо одразу
+         */
+        private void finish(Consumer<Gem> consumer) {
+            if (runs.isEmpty() && inFlight.isEmpty()) {
+                chunk.sort(comparator);
+                chunk.forEach(consumer);
+                chunk = new ArrayList<>();
+                return;
+            }
+            if (!chunk.isEmpty()) {
+                spill();
+            }
+        }
+
+        private void spill() {
+            List<Gem> full = chunk;
+            chunk = new ArrayList<>(full.size());
+            chunkSize = 0;
+            Path file;
+            try {
+                file = newRunFile();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Файл серії реєструємо одразу, щоб порядок серій був порядком документа
+            runs.add(file);
+            logger.debug("Spilling run {} of {} gems to {}", runs.size(), full.size(), file);
+            if (pool == null) {
+                full.sort(comparator);
+                writeRun(file, full);
+                return;
+            }
+            while (inFlight.size() >= maxInFlight) {
+                inFlight.pollFirst().join();
+            }
+            inFlight.addLast(pool.submit(() -> {
+                full.sort(comparator);
+                writeRun(file, full);
+            }));
+        }
+
+        /**
+         * Чекаємо всі запущені серії
+         * @param rethrow прокинути перший виняток далі, або тільки дочекатися (коли вже падаємо з іншої причини)
+         */
+        private void awaitAll(boolean rethrow) {
+            RuntimeException failure = null;
+            while (!inFlight.isEmpty()) {
+                try {
+                    inFlight.pollFirst().join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null && rethrow) {
+                throw failure;
+            }
+        }
+    }
+
+    private static final class RunCursor {
+        private final GemRunFile.Reader reader;
+        private final int runIndex;
+        private Gem current;
+
+        private RunCursor(GemRunFile.Reader reader, int runIndex, Gem current) {
+            this.reader = reader;
+            this.runIndex = runIndex;
+            this.current = current;
+        }
+    }
+}
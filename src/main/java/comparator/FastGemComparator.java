@@ -0,0 +1,144 @@
+package comparator;
+
+import model.Gem;
+import model.Preciousness;
+
+import java.util.Comparator;
+
+/**
+ * Швидші версії компараторів з GemComparator - порядок сортування той самий
+ * - назва і походження: замість String.CASE_INSENSITIVE_ORDER порівнюємо посимвольно з швидким шляхом
+ *   для ASCII (без викликів Character.toUpperCase/toLowerCase), для решти символів - те саме згортання регістру
+ * - дорогоцінність: порівнюємо порядкові номери enum, а не рядки "precious"/"semi-precious"
+ * - вартість: порівнюємо тисячні карата як long, без BigDecimal
+ * - всі компаратори допускають null (null йде першим), тоді як GemComparator на null кидає NullPointerException
+ *
+ * Для сортування великих списків за назвою чи походженням ще вигідніше один раз порахувати ключ
+ * foldCase для кожного каменя і порівнювати вже ключі
+ */
+public final class FastGemComparator {
+    private static final Comparator<Gem> BY_NAME = (a, b) -> compareIgnoreCase(a.getName(), b.getName());
+    private static final Comparator<Gem> BY_ORIGIN = (a, b) -> compareIgnoreCase(a.getOrigin(), b.getOrigin());
+    private static final Comparator<Gem> BY_VALUE = (a, b) -> compareValues(a, b);
+    private static final Comparator<Gem> BY_PRECIOUSNESS_AND_VALUE = (a, b) -> {
+        int result = Integer.compare(ordinal(a.getPreciousness()), ordinal(b.getPreciousness()));
+        return result != 0 ? result : compareValues(a, b);
+    };
+
+    private FastGemComparator() {
+    }
+
+    public static Comparator<Gem> byName() {
+        return BY_NAME;
+    }
+
+    public static Comparator<Gem> byValue() {
+        return BY_VALUE;
+    }
+
+    public static Comparator<Gem> byOrigin() {
+        return BY_ORIGIN;
+    }
+
+    /**
+     * Порядок констант Preciousness (PRECIOUS, SEMI_PRECIOUS) збігається з алфавітним порядком
+     * їх значень ("precious" < "semi-precious"), тому порівняння номерів дає той самий результат
+     */
+    public static Comparator<Gem> byPreciousnessAndValue() {
+        return BY_PRECIOUSNESS_AND_VALUE;
+    }
+
+    /**
+     * Порівняння рядків без урахування регістру - той самий результат що й String.CASE_INSENSITIVE_ORDER
+     */
+    public static int compareIgnoreCase(String a, String b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        // У великих інвентарях назви і походження часто повторюються, а equals порівнює рядки
+        // одразу блоками байтів, тому однакові рядки відсіюємо до посимвольного циклу
+        if (a.equals(b)) {
+            return 0;
+        }
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char c1 = a.charAt(i);
+            char c2 = b.charAt(i);
+            if (c1 == c2) {
+                continue;
+            }
+            int f1;
+            int f2;
+            if ((c1 | c2) < 0x80) {
+                // Обидва символи ASCII - досить звести великі літери до малих
+                f1 = c1 >= 'A' && c1 <= 'Z' ? c1 + ('a' - 'A') : c1;
+                f2 = c2 >= 'A' && c2 <= 'Z' ? c2 + ('a' - 'A') : c2;
+            } else {
+                f1 = foldCase(c1);
+                f2 = foldCase(c2);
+            }
+            if (f1 != f2) {
+                return f1 - f2;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Ключ для порівняння без урахування регістру:
+     * foldCase(a).compareTo(foldCase(b)) має той самий знак, що й String.CASE_INSENSITIVE_ORDER.compare(a, b)
+     * Якщо рядок вже "згорнутий" (наприклад малі ASCII літери), повертається він сам без копіювання
+     */
+    public static String foldCase(String s) {
+        if (s == null) {
+            return null;
+        }
+        int length = s.length();
+        int i = 0;
+        while (i < length && foldCase(s.charAt(i)) == s.charAt(i)) {
+            i++;
+        }
+        if (i == length) {
+            return s;
+        }
+        char[] folded = new char[length];
+        s.getChars(0, i, folded, 0);
+        for (; i < length; i++) {
+            folded[i] = foldCase(s.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Саме так згортає регістр String.CASE_INSENSITIVE_ORDER: спочатку у верхній, потім у нижній
+     * (для деяких символів, наприклад грузинських, одного toLowerCase недостатньо)
+     */
+    static char foldCase(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Вартість без створення BigDecimal: для чисел з фіксованою комою Gem порівнює тисячні як long
+     */
+    private static int compareValues(Gem a, Gem b) {
+        boolean hasA = a.hasValue();
+        boolean hasB = b.hasValue();
+        if (!hasA || !hasB) {
+            return hasA == hasB ? 0 : hasA ? 1 : -1;
+        }
+        return a.compareValueTo(b);
+    }
+
+    private static int ordinal(Preciousness preciousness) {
+        return preciousness == null ? -1 : preciousness.ordinal();
+    }
+}
@@ -11,7 +11,8 @@ public class GemComparator {
     }
     
     public static Comparator<Gem> byValue() {
-        return Comparator.comparing(Gem::getValue);
+        // Те саме що Comparator.comparing(Gem::getValue), але без створення BigDecimal на кожне порівняння
+        return Gem::compareValueTo;
     }
     
     public static Comparator<Gem> byOrigin() {
@@ -21,7 +22,7 @@ public class GemComparator {
     public static Comparator<Gem> byPreciousnessAndValue() {
         return Comparator
             .comparing((Gem g) -> g.getPreciousness().getValue())
-            .thenComparing(Gem::getValue);
+            .thenComparing(Gem::compareValueTo);
     }
 }
 
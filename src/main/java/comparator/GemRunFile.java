@@ -0,0 +1,194 @@
+package comparator;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Тимчасовий файл з відсортованою серією каменів для ExternalGemSorter
+ * На відміну від GemSnapshot, камені пишуться і читаються строго послідовно по одному,
+ * тому при злитті в пам'яті одночасно є тільки поточний камінь кожної серії
+ *
+ * Формат запису каменя: рядки (довжина в байтах UTF-8, -1 для null), порядкові номери enum
+ * (файл читається тим самим процесом, тому таблиці імен не потрібні), числа - scale + unscaled
+ * у long або байти BigInteger для дуже довгих
+ */
+final class GemRunFile {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int NULL_LENGTH = -1;
+    private static final byte NULL_ENUM = -1;
+
+    private static final byte DECIMAL_NULL = 0;
+    private static final byte DECIMAL_COMPACT = 1;
+    private static final byte DECIMAL_BIG = 2;
+
+    private static final Preciousness[] PRECIOUSNESS = Preciousness.values();
+    private static final Color[] COLORS = Color.values();
+
+    private GemRunFile() {
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        Writer(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        }
+
+        void write(Gem gem) throws IOException {
+            writeString(gem.getId());
+            writeString(gem.getName());
+            writeString(gem.getOrigin());
+            out.writeByte(gem.getPreciousness() == null ? NULL_ENUM : gem.getPreciousness().ordinal());
+            writeDecimal(gem.getValue());
+            List<VisualParameters> visual = gem.getVisualParameters();
+            out.writeInt(visual == null ? NULL_LENGTH : visual.size());
+            if (visual == null) {
+                return;
+            }
+            for (VisualParameters params : visual) {
+                writeDecimal(params.getTransparency());
+                out.writeBoolean(params.getFacets() != null);
+                out.writeInt(params.getFacets() == null ? 0 : params.getFacets());
+                List<Color> colors = params.getColors();
+                out.writeInt(colors == null ? NULL_LENGTH : colors.size());
+                if (colors != null) {
+                    for (Color color : colors) {
+                        out.writeByte(color == null ? NULL_ENUM : color.ordinal());
+                    }
+                }
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(NULL_LENGTH);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeDecimal(BigDecimal value) throws IOException {
+            if (value == null) {
+                out.writeByte(DECIMAL_NULL);
+            } else if (value.unscaledValue().bitLength() < 64) {
+                out.writeByte(DECIMAL_COMPACT);
+                out.writeInt(value.scale());
+                out.writeLong(value.unscaledValue().longValue());
+            } else {
+                byte[] bytes = value.unscaledValue().toByteArray();
+                out.writeByte(DECIMAL_BIG);
+                out.writeInt(value.scale());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+
+        Reader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        }
+
+        /**
+         * Наступний камінь або null в кінці файлу
+         */
+        Gem read() throws IOException {
+            String id;
+            try {
+                id = readString(in.readInt());
+            } catch (EOFException e) {
+                return null;
+            }
+            Gem gem = new Gem();
+            gem.setId(id);
+            gem.setName(readString(in.readInt()));
+            gem.setOrigin(readString(in.readInt()));
+            gem.setPreciousness(constant(PRECIOUSNESS, in.readByte()));
+            gem.setValue(readDecimal());
+            int visualSize = in.readInt();
+            if (visualSize == NULL_LENGTH) {
+                gem.setVisualParameters(null);
+                return gem;
+            }
+            List<VisualParameters> visual = new ArrayList<>(visualSize);
+            for (int v = 0; v < visualSize; v++) {
+                VisualParameters params = new VisualParameters();
+                params.setTransparency(readDecimal());
+                boolean hasFacets = in.readBoolean();
+                int facets = in.readInt();
+                params.setFacets(hasFacets ? facets : null);
+                int colorCount = in.readInt();
+                if (colorCount == NULL_LENGTH) {
+                    params.setColors(null);
+                } else {
+                    List<Color> colors = new ArrayList<>(colorCount);
+                    for (int c = 0; c < colorCount; c++) {
+                        colors.add(constant(COLORS, in.readByte()));
+                    }
+                    params.setColors(colors);
+                }
+                visual.add(params);
+            }
+            gem.setVisualParameters(visual);
+            return gem;
+        }
+
+        private String readString(int length) throws IOException {
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private BigDecimal readDecimal() throws IOException {
+            byte kind = in.readByte();
+            if (kind == DECIMAL_NULL) {
+                return null;
+            }
+            int scale = in.readInt();
+            if (kind == DECIMAL_COMPACT) {
+                return BigDecimal.valueOf(in.readLong(), scale);
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new BigDecimal(new BigInteger(bytes), scale);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static <E> E constant(E[] table, byte ordinal) {
+        return ordinal == NULL_ENUM ? null : table[ordinal];
+    }
+}
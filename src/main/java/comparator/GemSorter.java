@@ -0,0 +1,257 @@
+package comparator;
+
+import model.Gem;
+import model.Preciousness;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Сортування великих списків каменів з попередньо порахованими ключами
+ * Замість того щоб на кожному порівнянні знову діставати поле і згортати регістр,
+ * один раз рахуємо для кожного каменя числовий ключ і пакуємо його разом з індексом в один long:
+ * старші біти - ключ, молодші - початковий індекс каменя. Такий масив сортуємо Arrays.parallelSort,
+ * а однакові ключі автоматично лишаються в початковому порядку - сортування стабільне, як Collections.sort
+ *
+ * Ключі:
+ * - назва і походження: номер рядка серед відсортованих різних значень foldCase (їх зазвичай небагато)
+ * - вартість: число з фіксованою комою (всі значення зводяться до найбільшої кількості знаків після коми)
+ * - дорогоцінність: номер константи enum у старших бітах перед вартістю
+ *
+ * Порядок той самий, що дають компаратори FastGemComparator (і GemComparator, якщо полів null немає)
+ * Якщо ключ не влазить у long (дуже довгі чи дуже точні числа), сортуємо звичайним стабільним
+ * Arrays.parallelSort з компаратором
+ */
+public final class GemSorter {
+    /**
+     * За чим сортувати - відповідає методам GemComparator
+     */
+    public enum SortKey {
+        NAME(FastGemComparator.byName()),
+        VALUE(FastGemComparator.byValue()),
+        ORIGIN(FastGemComparator.byOrigin()),
+        PRECIOUSNESS_AND_VALUE(FastGemComparator.byPreciousnessAndValue());
+
+        private final Comparator<Gem> comparator;
+
+        SortKey(Comparator<Gem> comparator) {
+            this.comparator = comparator;
+        }
+
+        /**
+         * Компаратор з тим самим порядком
+         */
+        public Comparator<Gem> comparator() {
+            return comparator;
+        }
+    }
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    // Місце для номера дорогоцінності з урахуванням null
+    private static final int PRECIOUSNESS_BITS = 32 - Integer.numberOfLeadingZeros(Preciousness.values().length);
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private GemSorter() {
+    }
+
+    /**
+     * Сортуємо список на місці, як Collections.sort
+     */
+    public static void sort(List<Gem> gems, SortKey key) {
+        Gem[] sorted = sortedArray(gems, key);
+        ListIterator<Gem> iterator = gems.listIterator();
+        for (Gem gem : sorted) {
+            iterator.next();
+            iterator.set(gem);
+        }
+    }
+
+    /**
+     * Новий відсортований список, початковий не змінюється
+     */
+    public static List<Gem> sorted(List<Gem> gems, SortKey key) {
+        return new ArrayList<>(Arrays.asList(sortedArray(gems, key)));
+    }
+
+    private static Gem[] sortedArray(List<Gem> gems, SortKey key) {
+        Gem[] array = gems.toArray(new Gem[0]);
+        if (array.length < 2) {
+            return array;
+        }
+        long[] packed = pack(array, key);
+        if (packed == null) {
+            // Arrays.parallelSort для об'єктів - сортування злиттям, тобто теж стабільне
+            Arrays.parallelSort(array, key.comparator());
+            return array;
+        }
+        Arrays.parallelSort(packed);
+
+        int indexBits = indexBits(array.length);
+        long indexMask = (1L << indexBits) - 1;
+        Gem[] sorted = new Gem[array.length];
+        for (int i = 0; i < packed.length; i++) {
+            sorted[i] = array[(int) (packed[i] & indexMask)];
+        }
+        return sorted;
+    }
+
+    /**
+     * Ключі разом з індексами, або null якщо ключі не влазять
+     */
+    private static long[] pack(Gem[] gems, SortKey key) {
+        switch (key) {
+            case NAME:
+                return packStrings(gems, true);
+            case ORIGIN:
+                return packStrings(gems, false);
+            case VALUE:
+                return packValues(gems, false);
+            case PRECIOUSNESS_AND_VALUE:
+                return packValues(gems, true);
+            default:
+                throw new IllegalArgumentException("Unknown sort key: " + key);
+        }
+    }
+
+    /**
+     * Рядки замінюємо номерами: збираємо різні згорнуті значення, сортуємо тільки їх,
+     * і кожен камінь отримує номер свого значення (null - номер 0, тобто першим)
+     */
+    private static long[] packStrings(Gem[] gems, boolean byName) {
+        String[] folded = new String[gems.length];
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < gems.length; i++) {
+            String value = byName ? gems[i].getName() : gems[i].getOrigin();
+            if (value != null) {
+                folded[i] = FastGemComparator.foldCase(value);
+                ranks.put(folded[i], 0);
+            }
+        }
+        String[] distinct = ranks.keySet().toArray(new String[0]);
+        // Для згорнутих рядків звичайний compareTo дає той самий порядок, що й CASE_INSENSITIVE_ORDER
+        Arrays.sort(distinct);
+        for (int rank = 0; rank < distinct.length; rank++) {
+            ranks.put(distinct[rank], rank + 1);
+        }
+
+        int indexBits = indexBits(gems.length);
+        long[] packed = new long[gems.length];
+        for (int i = 0; i < gems.length; i++) {
+            long rank = folded[i] == null ? 0 : ranks.get(folded[i]);
+            packed[i] = rank << indexBits | i;
+        }
+        return packed;
+    }
+
+    /**
+     * Вартість зводимо до цілого числа з однаковою для всіх кількістю знаків після коми,
+     * відраховуємо від найменшого значення і резервуємо 0 для null
+     * Для PRECIOUSNESS_AND_VALUE над вартістю ще біти дорогоцінності (0 для null, далі номер константи + 1)
+     */
+    private static long[] packValues(Gem[] gems, boolean withPreciousness) {
+        long[] fixed = fixedPointValues(gems);
+        if (fixed == null) {
+            fixed = decimalValues(gems);
+            if (fixed == null) {
+                return null;
+            }
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < gems.length; i++) {
+            if (gems[i].hasValue()) {
+                min = Math.min(min, fixed[i]);
+                max = Math.max(max, fixed[i]);
+            }
+        }
+
+        int indexBits = indexBits(gems.length);
+        int preciousnessBits = withPreciousness ? PRECIOUSNESS_BITS : 0;
+        // Діапазон значень + 1 для null; якщо значень немає взагалі, всі ключі 0
+        long range = min > max ? 0 : max - min + 1;
+        if (range < 0 || 64 - Long.numberOfLeadingZeros(range) > 63 - indexBits - preciousnessBits) {
+            return null;
+        }
+        int valueBits = 64 - Long.numberOfLeadingZeros(range);
+
+        long[] packed = new long[gems.length];
+        for (int i = 0; i < gems.length; i++) {
+            long key = gems[i].hasValue() ? fixed[i] - min + 1 : 0;
+            if (withPreciousness) {
+                key |= (long) preciousnessRank(gems[i].getPreciousness()) << valueBits;
+            }
+            packed[i] = key << indexBits | i;
+        }
+        return packed;
+    }
+
+    /**
+     * Звичайний випадок: всі вартості вже зберігаються в тисячних - беремо їх як є
+     */
+    private static long[] fixedPointValues(Gem[] gems) {
+        long[] fixed = new long[gems.length];
+        for (int i = 0; i < gems.length; i++) {
+            if (gems[i].isValueFixedPoint()) {
+                fixed[i] = gems[i].getValueThousandths();
+            } else if (gems[i].hasValue()) {
+                return null;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Є вартості з більшою точністю: зводимо всі до найбільшої кількості знаків після коми
+     */
+    private static long[] decimalValues(Gem[] gems) {
+        int scale = 0;
+        for (Gem gem : gems) {
+            BigDecimal value = gem.getValue();
+            if (value != null) {
+                scale = Math.max(scale, value.scale());
+            }
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return null;
+        }
+
+        long[] fixed = new long[gems.length];
+        for (int i = 0; i < gems.length; i++) {
+            BigDecimal value = gems[i].getValue();
+            if (value == null) {
+                continue;
+            }
+            if (value.scale() < 0 || value.unscaledValue().bitLength() > 62) {
+                return null;
+            }
+            long unscaled = value.unscaledValue().longValue();
+            long multiplier = POWERS_OF_TEN[scale - value.scale()];
+            // Переповнення при множенні - таке число не влазить у ключ
+            if (Math.abs(unscaled) > Long.MAX_VALUE / multiplier) {
+                return null;
+            }
+            fixed[i] = unscaled * multiplier;
+        }
+        return fixed;
+    }
+
+    private static int preciousnessRank(Preciousness preciousness) {
+        return preciousness == null ? 0 : preciousness.ordinal() + 1;
+    }
+
+    private static int indexBits(int size) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+}
@@ -0,0 +1,99 @@
+package comparator;
+
+import model.Gem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Вибір K "найбільших" каменів за будь-яким компаратором без повного сортування
+ * Камені можна віддавати прямо з потокового парсера: collector тримає тільки K найкращих у купі,
+ * тому пам'ять O(K), а час O(n log K) навіть для файлу, який не влазить у пам'ять
+ *
+ * Результат такий самий, як якщо стабільно відсортувати всі камені за comparator.reversed()
+ * і взяти перші K - серед рівних каменів перевагу мають ті, що прийшли раніше
+ * Клас не потокобезпечний, як і звичайний ArrayList в ролі споживача
+ *
+ * Наприклад 100 найдорожчих каменів:
+ * <pre>
+ * TopKCollector top = new TopKCollector(100, GemComparator.byValue());
+ * new StaxGemParser().parse("gems.xml", top);
+ * List&lt;Gem&gt; gems = top.getTop();
+ * </pre>
+ */
+public class TopKCollector implements Consumer<Gem> {
+    // Купа росте по мірі надходження каменів, тому великий K (навіть "всі") не резервує пам'ять наперед
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int k;
+    private final Comparator<Gem> comparator;
+    // Мінімальна купа: на вершині найгірший з відібраних каменів, його і витісняємо
+    private final PriorityQueue<Entry> heap;
+    private long sequence;
+
+    /**
+     * @param k скільки каменів тримати
+     * @param comparator порядок, за яким більший камінь вважається кращим
+     */
+    public TopKCollector(int k, Comparator<Gem> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("K must not be negative: " + k);
+        }
+        this.k = k;
+        this.comparator = comparator;
+        // Серед рівних гіршим вважається той, що прийшов пізніше
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, INITIAL_CAPACITY)), (a, b) -> {
+            int result = comparator.compare(a.gem, b.gem);
+            return result != 0 ? result : Long.compare(b.sequence, a.sequence);
+        });
+    }
+
+    @Override
+    public void accept(Gem gem) {
+        long current = sequence++;
+        if (heap.size() < k) {
+            heap.add(new Entry(gem, current));
+        } else if (k > 0 && comparator.compare(gem, heap.peek().gem) > 0) {
+            // Новий камінь прийшов останнім, тому при рівності він гірший і купу не змінює
+            heap.poll();
+            heap.add(new Entry(gem, current));
+        }
+    }
+
+    /**
+     * Відібрані камені, від найкращого до найгіршого
+     */
+    public List<Gem> getTop() {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort(heap.comparator().reversed());
+        List<Gem> top = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            top.add(entry.gem);
+        }
+        return top;
+    }
+
+    /**
+     * Скільки каменів пройшло через collector
+     */
+    public long getSeenCount() {
+        return sequence;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    private static final class Entry {
+        private final Gem gem;
+        private final long sequence;
+
+        private Entry(Gem gem, long sequence) {
+            this.gem = gem;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package generator;
+
+import model.Color;
+import model.Gem;
+import model.VisualParameters;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Запис каменів у XML формату gems.xsd через XMLStreamWriter
+ * Камені пишуться по одному, тому документ будь-якого розміру ніколи не тримається в пам'яті цілком
+ * Відступи такі самі як в src/main/resources/xml/gems.xml
+ *
+ * Порядок роботи: конструктор пише пролог і відкриваючий тег кореня, write(gem) - кожен камінь,
+ * close() - закриваючий тег кореня
+ */
+public class GemXmlWriter implements Closeable {
+    private static final String NAMESPACE = "http://www.diamondfund.ua/gems";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final OutputStream output;
+    private final XMLStreamWriter writer;
+    private int gemCount;
+    private boolean closed;
+
+    public GemXmlWriter(OutputStream output) throws XMLStreamException {
+        this.output = output;
+        this.writer = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters("\n");
+        writer.writeStartElement("", "Gem", NAMESPACE);
+        writer.writeDefaultNamespace(NAMESPACE);
+    }
+
+    /**
+     * Записуємо список каменів у файл одним викликом
+     */
+    public static void write(Path file, List<Gem> gems) throws IOException, XMLStreamException {
+        try (GemXmlWriter writer = new GemXmlWriter(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (Gem gem : gems) {
+                writer.write(gem);
+            }
+        }
+    }
+
+    /**
+     * Записуємо один камінь
+     * Поля зі значенням null пропускаються (такий файл вже не пройде валідацію, але прочитати його можна)
+     */
+    public void write(Gem gem) throws XMLStreamException {
+        indent(1);
+        writer.writeStartElement(NAMESPACE, "gem");
+        if (gem.getId() != null) {
+            writer.writeAttribute("id", gem.getId());
+        }
+        writeElement(2, "name", gem.getName());
+        writeElement(2, "preciousness", gem.getPreciousness() == null ? null : gem.getPreciousness().getValue());
+        writeElement(2, "origin", gem.getOrigin());
+        if (gem.getVisualParameters() != null) {
+            for (VisualParameters params : gem.getVisualParameters()) {
+                writeVisualParameters(params);
+            }
+        }
+        writeElement(2, "value", decimal(gem.getValue()));
+        indent(1);
+        writer.writeEndElement();
+        gemCount++;
+    }
+
+    public int getGemCount() {
+        return gemCount;
+    }
+
+    /**
+     * Закриваємо корінь і документ; вихідний потік теж закривається
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to finish XML document", e);
+        } finally {
+            output.close();
+        }
+    }
+
+    private void writeVisualParameters(VisualParameters params) throws XMLStreamException {
+        indent(2);
+        writer.writeStartElement(NAMESPACE, "visualParameters");
+        if (params.getColors() != null) {
+            for (Color color : params.getColors()) {
+                writeElement(3, "color", color == null ? null : color.getValue());
+            }
+        }
+        writeElement(3, "transparency", decimal(params.getTransparency()));
+        writeElement(3, "facets", params.getFacets() == null ? null : params.getFacets().toString());
+        indent(2);
+        writer.writeEndElement();
+    }
+
+    private void writeElement(int level, String name, String text) throws XMLStreamException {
+        if (text == null) {
+            return;
+        }
+        indent(level);
+        writer.writeStartElement(NAMESPACE, name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    /**
+     * xs:decimal не допускає експоненту, тому toPlainString а не toString
+     */
+    private static String decimal(BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+
+    private void indent(int level) throws XMLStreamException {
+        switch (level) {
+            case 1:
+                writer.writeCharacters("\n    ");
+                break;
+            case 2:
+                writer.writeCharacters("\n        ");
+                break;
+            default:
+                writer.writeCharacters("\n            ");
+                break;
+        }
+    }
+}
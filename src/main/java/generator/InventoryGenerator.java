@@ -0,0 +1,263 @@
+package generator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор синтетичних інвентарів каменів для навантажувальних тестів і бенчмарків
+ * Для однакового seed і однакових налаштувань файл завжди однаковий байт в байт
+ * Файл валідний за gems.xsd і пишеться потоково через GemXmlWriter, тому може бути будь-якого розміру
+ *
+ * Всі налаштування мають значення за замовчуванням; діапазони включають обидві межі
+ */
+public class InventoryGenerator {
+    private static final Logger logger = LogManager.getLogger(InventoryGenerator.class);
+
+    private static final String[] DEFAULT_NAMES = {
+        "Diamond", "Ruby", "Emerald", "Sapphire", "Amethyst", "Topaz", "Garnet", "Opal", "Pearl", "Aquamarine"
+    };
+    private static final String[] DEFAULT_ORIGINS = {
+        "South Africa", "Myanmar", "Colombia", "Sri Lanka", "Brazil", "Russia", "India", "Australia", "Madagascar"
+    };
+
+    /**
+     * Як розподілені значення в межах діапазону
+     */
+    public enum Distribution {
+        UNIFORM,     // всі значення однаково ймовірні
+        LOG_UNIFORM  // багато малих значень і мало великих - схоже на реальні ціни каменів
+    }
+
+    private final long seed;
+    private double preciousShare = 0.5;
+    private int minVisualParameters = 1;
+    private int maxVisualParameters = 1;
+    private int minColors = 1;
+    private int maxColors = 2;
+    private List<Color> colors = Arrays.asList(Color.values());
+    private BigDecimal minTransparency = BigDecimal.ZERO;
+    private BigDecimal maxTransparency = BigDecimal.valueOf(100);
+    private int minFacets = 4;
+    private int maxFacets = 15;
+    private BigDecimal minValue = new BigDecimal("0.1");
+    private BigDecimal maxValue = new BigDecimal("100.0");
+    private Distribution valueDistribution = Distribution.UNIFORM;
+    private List<String> names = Arrays.asList(DEFAULT_NAMES);
+    private List<String> origins = Arrays.asList(DEFAULT_ORIGINS);
+
+    public InventoryGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Генерація з командного рядка: InventoryGenerator <файл> <кількість каменів> [seed]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: generator.InventoryGenerator <output.xml> <gemCount> [seed]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        new InventoryGenerator(seed).generate(Paths.get(args[0]), Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Частка дорогоцінних каменів (решта - напівдорогоцінні)
+     */
+    public void setPreciousShare(double preciousShare) {
+        if (preciousShare < 0 || preciousShare > 1) {
+            throw new IllegalArgumentException("Precious share must be within [0, 1]: " + preciousShare);
+        }
+        this.preciousShare = preciousShare;
+    }
+
+    /**
+     * Скільки елементів visualParameters у кожного каменя (схема вимагає хоча б один)
+     */
+    public void setVisualParametersRange(int min, int max) {
+        checkRange("visualParameters count", min, max, 1, Integer.MAX_VALUE);
+        this.minVisualParameters = min;
+        this.maxVisualParameters = max;
+    }
+
+    /**
+     * Скільки кольорів в одних visualParameters (схема вимагає хоча б один)
+     */
+    public void setColorRange(int min, int max) {
+        checkRange("color count", min, max, 1, Integer.MAX_VALUE);
+        this.minColors = min;
+        this.maxColors = max;
+    }
+
+    /**
+     * З яких кольорів вибирати (кольори в одних visualParameters можуть повторюватись)
+     */
+    public void setColors(Color... colors) {
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("At least one color is required");
+        }
+        this.colors = Arrays.asList(colors.clone());
+    }
+
+    /**
+     * Діапазон прозорості; кількість знаків після коми береться з більшої точності меж
+     */
+    public void setTransparencyRange(BigDecimal min, BigDecimal max) {
+        if (min.signum() < 0 || max.compareTo(BigDecimal.valueOf(100)) > 0 || min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("Transparency range must be within [0, 100]: " + min + ".." + max);
+        }
+        this.minTransparency = min;
+        this.maxTransparency = max;
+    }
+
+    public void setFacetsRange(int min, int max) {
+        checkRange("facets", min, max, 4, 15);
+        this.minFacets = min;
+        this.maxFacets = max;
+    }
+
+    /**
+     * Діапазон вартості; схема вимагає вартість більшу за нуль
+     */
+    public void setValueRange(BigDecimal min, BigDecimal max, Distribution distribution) {
+        if (min.signum() <= 0 || min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("Value range must be positive and ordered: " + min + ".." + max);
+        }
+        this.minValue = min;
+        this.maxValue = max;
+        this.valueDistribution = distribution;
+    }
+
+    public void setNames(String... names) {
+        if (names.length == 0) {
+            throw new IllegalArgumentException("At least one name is required");
+        }
+        this.names = Arrays.asList(names.clone());
+    }
+
+    public void setOrigins(String... origins) {
+        if (origins.length == 0) {
+            throw new IllegalArgumentException("At least one origin is required");
+        }
+        this.origins = Arrays.asList(origins.clone());
+    }
+
+    /**
+     * Записуємо інвентар у файл
+     */
+    public void generate(Path file, int gemCount) throws IOException, XMLStreamException {
+        logger.info("Generating {} gems (seed {}) into {}", gemCount, seed, file);
+        generate(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), gemCount);
+        logger.info("Inventory generated: {} ({} bytes)", file, Files.size(file));
+    }
+
+    /**
+     * Записуємо інвентар у потік (потік закривається в кінці)
+     */
+    public void generate(OutputStream output, int gemCount) throws IOException, XMLStreamException {
+        if (gemCount < 0) {
+            throw new IllegalArgumentException("Gem count must not be negative: " + gemCount);
+        }
+        // Random, а не ThreadLocalRandom чи SplittableRandom - його послідовність для seed зафіксована специфікацією
+        Random random = new Random(seed);
+        try (GemXmlWriter writer = new GemXmlWriter(output)) {
+            for (int i = 0; i < gemCount; i++) {
+                writer.write(nextGem(random, i));
+            }
+        }
+    }
+
+    private Gem nextGem(Random random, int index) {
+        Gem gem = new Gem();
+        // Ширина номера фіксована, щоб id сортувались так само як номери
+        gem.setId(id(index + 1));
+        gem.setName(names.get(random.nextInt(names.size())));
+        gem.setPreciousness(random.nextDouble() < preciousShare ? Preciousness.PRECIOUS : Preciousness.SEMI_PRECIOUS);
+        gem.setOrigin(origins.get(random.nextInt(origins.size())));
+
+        int visualCount = between(random, minVisualParameters, maxVisualParameters);
+        List<VisualParameters> visualParameters = new ArrayList<>(visualCount);
+        for (int v = 0; v < visualCount; v++) {
+            int colorCount = between(random, minColors, maxColors);
+            List<Color> gemColors = new ArrayList<>(colorCount);
+            for (int c = 0; c < colorCount; c++) {
+                gemColors.add(colors.get(random.nextInt(colors.size())));
+            }
+            visualParameters.add(new VisualParameters(gemColors, uniform(random, minTransparency, maxTransparency),
+                                                      between(random, minFacets, maxFacets)));
+        }
+        gem.setVisualParameters(visualParameters);
+
+        gem.setValue(valueDistribution == Distribution.LOG_UNIFORM
+            ? logUniform(random, minValue, maxValue)
+            : uniform(random, minValue, maxValue));
+        return gem;
+    }
+
+    private static String id(int number) {
+        String digits = Integer.toString(number);
+        StringBuilder id = new StringBuilder(3 + Math.max(8, digits.length())).append("gem");
+        for (int i = digits.length(); i < 8; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    /**
+     * Рівномірне ціле min..max включно; ширину діапазону рахуємо в long,
+     * бо max - min + 1 для широких меж не влазить в int
+     */
+    static int between(Random random, int min, int max) {
+        long bound = (long) max - min + 1;
+        if (bound <= Integer.MAX_VALUE) {
+            return min + random.nextInt((int) bound);
+        }
+        return (int) (min + Math.floorMod(random.nextLong(), bound));
+    }
+
+    /**
+     * Рівномірне значення з кроком в одну одиницю останнього знаку (наприклад 0.1 для меж 0.1..100.0)
+     */
+    private static BigDecimal uniform(Random random, BigDecimal min, BigDecimal max) {
+        int scale = Math.max(min.scale(), max.scale());
+        long low = min.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        long high = max.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        long unscaled = low + (long) (random.nextDouble() * (high - low + 1));
+        return BigDecimal.valueOf(Math.min(unscaled, high), scale);
+    }
+
+    private static BigDecimal logUniform(Random random, BigDecimal min, BigDecimal max) {
+        int scale = Math.max(min.scale(), max.scale());
+        double logMin = Math.log(min.doubleValue());
+        double logMax = Math.log(max.doubleValue());
+        BigDecimal value = BigDecimal.valueOf(Math.exp(logMin + random.nextDouble() * (logMax - logMin)))
+            .setScale(scale, RoundingMode.HALF_UP);
+        // Округлення може трохи вийти за межі діапазону
+        return value.max(min).min(max);
+    }
+
+    private static void checkRange(String what, int min, int max, int lowest, int highest) {
+        if (min < lowest || max > highest || min > max) {
+            throw new IllegalArgumentException("Invalid " + what + " range " + min + ".." + max
+                                               + ", allowed " + lowest + ".." + highest);
+        }
+    }
+}
@@ -2,16 +2,19 @@ package main;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import comparator.GemComparator;
+import comparator.GemSorter;
+import comparator.GemSorter.SortKey;
 import model.Gem;
 import parser.DomGemParser;
 import parser.GemParser;
 import parser.SaxGemParser;
 import parser.StaxGemParser;
+import snapshot.SnapshotGemParser;
 import transformer.XslTransformer;
 import validator.XmlValidator;
+import org.xml.sax.SAXException;
 
-import java.util.Collections;
+import javax.xml.validation.Schema;
 import java.util.List;
 import java.util.Scanner;
 
@@ -101,33 +104,26 @@ public class Main {
         try {
             // Спочатку завжди валідуємо XML перед роботою з ним
             // Це важливо, бо якщо файл невалідний - немає сенсу його парсити
-            System.out.println("1. Валідація XML файлу...");
+            // Валідація йде разом з SAX парсингом в одному проході, тому файл читається один раз
+            System.out.println("1. Валідація XML файлу та парсинг через SAX парсер...");
             sleep(800);
-            XmlValidator validator = new XmlValidator();
-            boolean isValid = validator.validate(XML_FILE, XSD_FILE);
-            
-            if (!isValid) {
-                System.out.println("Помилка: XML файл не пройшов валідацію!");
+            try {
+                parseWithValidatingSax();
+            } catch (SAXException e) {
+                System.out.println("Помилка: XML файл не пройшов валідацію! " + e.getMessage());
+                logger.error("XML validation failed: {}", e.getMessage());
                 return;
             }
             System.out.println("✓ XML файл валідний\n");
-            sleep(1200); // пауза після валідації
-            
-            // Парсимо одним парсером за раз і показуємо результати
-            // Так можна порівняти чи всі парсери дають однаковий результат
-            System.out.println("2. Парсинг через SAX парсер...");
-            sleep(800);
-            parseWithSax();
-            System.out.println();
             sleep(2000); // пауза після виводу результатів SAX
             
-            System.out.println("3. Парсинг через DOM парсер...");
+            System.out.println("2. Парсинг через DOM парсер...");
             sleep(800);
             parseWithDom();
             System.out.println();
             sleep(2000); // пауза після виводу результатів DOM
             
-            System.out.println("4. Парсинг через StAX парсер...");
+            System.out.println("3. Парсинг через StAX парсер...");
             sleep(800);
             parseWithStax();
             System.out.println();
@@ -135,7 +131,7 @@ public class Main {
             
             // XSL трансформація - перетворює XML в інший формат
             // У нашому випадку групує камені за типом дорогоцінності
-            System.out.println("5. XSL трансформація...");
+            System.out.println("4. XSL трансформація...");
             sleep(800);
             transformXml();
             System.out.println("✓ Трансформація завершена. Результат у файлі: " + OUTPUT_XML);
@@ -273,6 +269,19 @@ public class Main {
         displayAndSortGems(gems, "SAX");
     }
     
+    /**
+     * Валідація і парсинг через SAX парсер за один прохід
+     * Схема підключена прямо до SAX парсера, тому окремо читати файл валідатором не потрібно
+     * @throws SAXException якщо файл не відповідає XSD схемі
+     */
+    private static void parseWithValidatingSax() throws Exception {
+        System.out.println("\n--- SAX Парсер (з валідацією) ---");
+        Schema schema = new XmlValidator().compileSchema(XSD_FILE);
+        GemParser parser = new SaxGemParser(schema);
+        List<Gem> gems = parser.parse(XML_FILE);
+        displayAndSortGems(gems, "SAX");
+    }
+    
     /**
      * Парсинг через DOM парсер
      * DOM - створює дерево об'єктів в пам'яті
@@ -339,7 +348,9 @@ public class Main {
         
         try {
             // Спочатку парсимо файл (використовуємо SAX, можна будь-який)
-            GemParser parser = new SaxGemParser();
+            // Сортування може запускатись багато разів поспіль, тому беремо камені зі знімка,
+            // якщо XML не змінився з попереднього разу
+            GemParser parser = new SnapshotGemParser(new SaxGemParser());
             List<Gem> gems = parser.parse(XML_FILE);
             
             System.out.println("Оберіть критерій сортування:");
@@ -354,19 +365,19 @@ public class Main {
             
             switch (sortChoice) {
                 case 1:
-                    Collections.sort(gems, GemComparator.byName());
+                    GemSorter.sort(gems, SortKey.NAME);
                     System.out.println("\nКамені відсортовані за назвою:");
                     break;
                 case 2:
-                    Collections.sort(gems, GemComparator.byValue());
+                    GemSorter.sort(gems, SortKey.VALUE);
                     System.out.println("\nКамені відсортовані за вартістю:");
                     break;
                 case 3:
-                    Collections.sort(gems, GemComparator.byOrigin());
+                    GemSorter.sort(gems, SortKey.ORIGIN);
                     System.out.println("\nКамені відсортовані за походженням:");
                     break;
                 case 4:
-                    Collections.sort(gems, GemComparator.byPreciousnessAndValue());
+                    GemSorter.sort(gems, SortKey.PRECIOUSNESS_AND_VALUE);
                     System.out.println("\nКамені відсортовані за дорогоцінністю та вартістю:");
                     break;
                 default:
@@ -403,7 +414,7 @@ public class Main {
         sleep(500);
         
         // Сортуємо за назвою - це стандартний спосіб
-        Collections.sort(gems, GemComparator.byName());
+        GemSorter.sort(gems, SortKey.NAME);
         System.out.println("\nСортування за назвою:");
         sleep(300);
         for (Gem gem : gems) {
@@ -413,7 +424,7 @@ public class Main {
         sleep(800);
         
         // Сортуємо за вартістю - показуємо скільки карат
-        Collections.sort(gems, GemComparator.byValue());
+        GemSorter.sort(gems, SortKey.VALUE);
         System.out.println("\nСортування за вартістю (карати):");
         sleep(300);
         for (Gem gem : gems) {
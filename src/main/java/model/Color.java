@@ -12,22 +12,84 @@ public enum Color {
     BLACK("black");
 
     private final String value;
+    private final int mask;
 
     Color(String value) {
         this.value = value;
+        this.mask = 1 << ordinal();
     }
 
     public String getValue() {
         return value;
     }
 
+    /**
+     * Біт кольору в масці VisualParameters.getColorMask(): перевірка кольору - одне AND
+     */
+    public int mask() {
+        return mask;
+    }
+
     public static Color fromString(String value) {
-        for (Color c : Color.values()) {
-            if (c.value.equals(value)) {
-                return c;
+        Color color = value == null ? null : lookup(value, 0, value.length());
+        if (color == null) {
+            throw new IllegalArgumentException("Unknown color: " + value);
+        }
+        return color;
+    }
+
+    /**
+     * Колір з тексту елемента, як fromString(text.toString().trim()), але без створення рядка
+     * @throws IllegalArgumentException якщо такого кольору немає
+     */
+    public static Color parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        Color color = lookup(text, start, end);
+        if (color == null) {
+            throw new IllegalArgumentException("Unknown color: " + text.subSequence(start, end));
+        }
+        return color;
+    }
+
+    /**
+     * Вибір кандидата за довжиною і першою літерою, потім одне посимвольне порівняння
+     * Замість перебору values(), який ще й клонує масив констант на кожен виклик
+     */
+    private static Color lookup(CharSequence text, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+        char first = text.charAt(start);
+        Color candidate;
+        switch (end - start) {
+            case 3:
+                candidate = RED;
+                break;
+            case 4:
+                candidate = first == 'b' ? BLUE : PINK;
+                break;
+            case 5:
+                candidate = first == 'g' ? GREEN : first == 'w' ? WHITE : BLACK;
+                break;
+            case 6:
+                candidate = first == 'y' ? YELLOW : first == 'p' ? PURPLE : ORANGE;
+                break;
+            default:
+                return null;
+        }
+        String value = candidate.value;
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return null;
             }
         }
-        throw new IllegalArgumentException("Unknown color: " + value);
+        return candidate;
     }
 }
-
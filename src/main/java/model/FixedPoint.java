@@ -0,0 +1,116 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Допоміжні методи для чисел з фіксованою комою в моделі
+ *
+ * Число зберігається як long у найменших одиницях поля (тисячні карата, базисні пункти прозорості)
+ * плюс кількість знаків після коми, з якою його задали - щоб getValue() повертав BigDecimal з тим самим
+ * scale, що й раніше (1.50 залишається 1.50, а не 1.500)
+ * Якщо число так не представити (більше знаків після коми або задовге), поле тримає звичайний BigDecimal
+ */
+final class FixedPoint {
+    // Значення scale в полі: поля немає (null) або число зберігається як BigDecimal
+    static final byte NULL = -1;
+    static final byte EXACT = Byte.MAX_VALUE;
+
+    // Результат parse, коли текст не вдалося розібрати швидким шляхом
+    static final long UNPARSED = Long.MIN_VALUE;
+
+    // Більше цифр може не влізти в long після множення на 10^fixedScale
+    private static final int MAX_DIGITS = 15;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Число в одиницях поля або UNPARSED, якщо так його точно не представити
+     */
+    static long toFixed(long unscaled, int scale, int fixedScale) {
+        // Long.MIN_VALUE зайнятий під UNPARSED
+        if (scale < 0 || scale > fixedScale || unscaled == Long.MIN_VALUE) {
+            return UNPARSED;
+        }
+        long multiplier = POWERS_OF_TEN[fixedScale - scale];
+        if (Math.abs(unscaled) > Long.MAX_VALUE / multiplier) {
+            return UNPARSED;
+        }
+        return unscaled * multiplier;
+    }
+
+    static BigDecimal toBigDecimal(long fixed, byte scale, int fixedScale) {
+        return BigDecimal.valueOf(fixed / POWERS_OF_TEN[fixedScale - scale], scale);
+    }
+
+    /**
+     * Розбираємо текст у форматі [+-]цифри[.цифри] без створення об'єктів
+     * Пробіли на початку і в кінці пропускаються, як після trim()
+     * Щоб повернути і число, і scale одним long, scale (0..3) пакується в два молодші біти:
+     * число - result >> 2, scale - result & 3
+     * @return упаковане значення або UNPARSED - тоді текст треба розібрати через new BigDecimal
+     */
+    static long parse(CharSequence text, int fixedScale) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return UNPARSED;
+        }
+
+        boolean negative = false;
+        char first = text.charAt(start);
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            start++;
+        }
+        long result = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return UNPARSED;
+                }
+                result = result * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // Експонента, зайві символи тощо - нехай розбирає BigDecimal
+                return UNPARSED;
+            }
+        }
+        if (digits == 0 || scale > fixedScale) {
+            return UNPARSED;
+        }
+        long fixed = (negative ? -result : result) * POWERS_OF_TEN[fixedScale - scale];
+        return fixed << 2 | scale;
+    }
+
+    static long parsedValue(long packed) {
+        return packed >> 2;
+    }
+
+    static byte parsedScale(long packed) {
+        return (byte) (packed & 3);
+    }
+
+    /**
+     * Повільний шлях: розбір через BigDecimal, з тими самими помилками NumberFormatException
+     */
+    static BigDecimal parseExact(CharSequence text) {
+        return new BigDecimal(text.toString().trim());
+    }
+}
@@ -6,12 +6,19 @@ import java.util.List;
 import java.util.Objects;
 
 public class Gem {
+    // Скільки знаків після коми вміщають тисячні карата
+    public static final int VALUE_SCALE = 3;
+
     private String id;
     private String name;
     private Preciousness preciousness;
     private String origin;
     private List<VisualParameters> visualParameters;
-    private BigDecimal value;
+    // Вартість в тисячних карата; valueScale - скільки знаків після коми було задано,
+    // FixedPoint.NULL - вартості немає, FixedPoint.EXACT - вартість лежить в exactValue
+    private long value;
+    private byte valueScale = FixedPoint.NULL;
+    private BigDecimal exactValue;
 
     public Gem() {
         this.visualParameters = new ArrayList<>();
@@ -24,7 +31,7 @@ public class Gem {
         this.preciousness = preciousness;
         this.origin = origin;
         this.visualParameters = visualParameters != null ? visualParameters : new ArrayList<>();
-        this.value = value;
+        setValue(value);
     }
 
     public String getId() {
@@ -67,12 +74,124 @@ public class Gem {
         this.visualParameters = visualParameters;
     }
 
+    /**
+     * Вартість як BigDecimal з тим самим scale, з яким її задали
+     * Для чисел з фіксованою комою кожен виклик створює новий BigDecimal - в гарячому коді
+     * краще getValueThousandths() або compareValueTo()
+     */
     public BigDecimal getValue() {
-        return value;
+        if (valueScale == FixedPoint.NULL) {
+            return null;
+        }
+        if (valueScale == FixedPoint.EXACT) {
+            return exactValue;
+        }
+        return FixedPoint.toBigDecimal(value, valueScale, VALUE_SCALE);
     }
 
     public void setValue(BigDecimal value) {
-        this.value = value;
+        if (value == null) {
+            clearValue();
+        } else if (value.unscaledValue().bitLength() >= Long.SIZE
+                || !setFixedValue(value.unscaledValue().longValue(), value.scale())) {
+            setExactValue(value);
+        }
+    }
+
+    /**
+     * Вартість unscaled * 10^-scale без створення BigDecimal (наприклад 1250 і 3 - це 1.250 карата)
+     */
+    public void setValue(long unscaled, int scale) {
+        if (!setFixedValue(unscaled, scale)) {
+            setExactValue(BigDecimal.valueOf(unscaled, scale));
+        }
+    }
+
+    /**
+     * Вартість з тексту, як new BigDecimal(text.trim()), але для звичайних чисел без створення об'єктів
+     * @throws NumberFormatException якщо текст не є числом
+     */
+    public void parseValue(CharSequence text) {
+        long packed = FixedPoint.parse(text, VALUE_SCALE);
+        if (packed == FixedPoint.UNPARSED) {
+            setExactValue(FixedPoint.parseExact(text));
+        } else {
+            value = FixedPoint.parsedValue(packed);
+            valueScale = FixedPoint.parsedScale(packed);
+            exactValue = null;
+        }
+    }
+
+    public boolean hasValue() {
+        return valueScale != FixedPoint.NULL;
+    }
+
+    /**
+     * Чи зберігається вартість точно в тисячних (не більше трьох знаків після коми)
+     */
+    public boolean isValueFixedPoint() {
+        return valueScale != FixedPoint.NULL && valueScale != FixedPoint.EXACT;
+    }
+
+    /**
+     * Вартість в тисячних карата
+     * @throws IllegalStateException якщо вартості немає або вона не представляється в тисячних
+     */
+    public long getValueThousandths() {
+        if (!isValueFixedPoint()) {
+            throw new IllegalStateException("Value is not a fixed-point number: " + getValue());
+        }
+        return value;
+    }
+
+    /**
+     * Скільки знаків після коми було у вартості (0..VALUE_SCALE) - разом з getValueThousandths()
+     * дає те саме число, що й getValue(), без створення BigDecimal
+     * @throws IllegalStateException якщо вартості немає або вона не представляється в тисячних
+     */
+    public int getValueScale() {
+        if (!isValueFixedPoint()) {
+            throw new IllegalStateException("Value is not a fixed-point number: " + getValue());
+        }
+        return valueScale;
+    }
+
+    /**
+     * Порівняння вартості з іншим каменем, як getValue().compareTo(other.getValue()),
+     * але для чисел з фіксованою комою - просто порівняння двох long
+     * @throws NullPointerException якщо в одного з каменів немає вартості
+     */
+    public int compareValueTo(Gem other) {
+        if (!hasValue() || !other.hasValue()) {
+            throw new NullPointerException("Gem has no value");
+        }
+        if (isValueFixedPoint() && other.isValueFixedPoint()) {
+            return Long.compare(value, other.value);
+        }
+        return getValue().compareTo(other.getValue());
+    }
+
+    private boolean setFixedValue(long unscaled, int scale) {
+        long fixed = FixedPoint.toFixed(unscaled, scale, VALUE_SCALE);
+        if (fixed == FixedPoint.UNPARSED) {
+            return false;
+        }
+        value = fixed;
+        valueScale = (byte) scale;
+        exactValue = null;
+        return true;
+    }
+
+    private void setExactValue(BigDecimal exact) {
+        value = 0;
+        valueScale = FixedPoint.EXACT;
+        exactValue = exact;
+    }
+
+    private void clearValue() {
+        value = 0;
+        valueScale = FixedPoint.NULL;
+        exactValue = null;
     }
 
     @Override
@@ -96,7 +215,7 @@ public class Gem {
                 ", preciousness=" + preciousness +
                 ", origin='" + origin + '\'' +
                 ", visualParameters=" + visualParameters +
-                ", value=" + value +
+                ", value=" + getValue() +
                 '}';
     }
 }
@@ -0,0 +1,126 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Спільні екземпляри для значень, які в інвентарі повторюються постійно
+ * - назви і походження ("South Africa", "Colombia") - одна копія рядка на всі камені
+ * - однакові visualParameters (ті самі кольори, прозорість і грані) - один заморожений об'єкт
+ *
+ * Парсер все одно створює нові об'єкти під час читання, але після canonicalize(gem) камінь посилається
+ * на спільні екземпляри, а свої копії віддає збирачу сміття - для великого інвентарю в пам'яті
+ * це суттєво менше зайнятої купи
+ *
+ * Пам'ять обмежена: коли в таблиці вже maxEntries значень, нові значення просто не запам'ятовуються
+ * (камінь лишається зі своїм об'єктом). Під час одночасного доступу межа може бути трохи перевищена
+ * Клас потокобезпечний, тому один canonicalizer можна давати паралельним парсерам
+ *
+ * Увага: visualParameters каменя після canonicalize стають замороженими (VisualParameters.freeze()),
+ * бо можуть бути спільними з іншими каменями
+ */
+public class GemCanonicalizer {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final int maxEntries;
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<VisualParameters, VisualParameters> visualParameters = new ConcurrentHashMap<>();
+
+    public GemCanonicalizer() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries скільки різних рядків і скільки різних visualParameters запам'ятовувати
+     */
+    public GemCanonicalizer(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Замінюємо назву, походження і visualParameters каменя спільними екземплярами
+     * @return той самий камінь
+     */
+    public Gem canonicalize(Gem gem) {
+        gem.setName(canonical(gem.getName()));
+        gem.setOrigin(canonical(gem.getOrigin()));
+        List<VisualParameters> visual = gem.getVisualParameters();
+        if (visual != null) {
+            for (int i = 0; i < visual.size(); i++) {
+                VisualParameters params = visual.get(i);
+                VisualParameters shared = canonical(params);
+                if (shared != params) {
+                    visual.set(i, shared);
+                }
+            }
+        }
+        return gem;
+    }
+
+    /**
+     * Consumer, який перед передачею далі канонізує кожен камінь - для потокових парсерів
+     */
+    public Consumer<Gem> wrap(Consumer<Gem> consumer) {
+        return gem -> consumer.accept(canonicalize(gem));
+    }
+
+    /**
+     * Спільна копія рядка (або сам рядок, якщо він перший такий чи таблиця заповнена)
+     */
+    public String canonical(String s) {
+        if (s == null) {
+            return null;
+        }
+        String shared = strings.get(s);
+        if (shared != null) {
+            return shared;
+        }
+        if (strings.size() >= maxEntries) {
+            return s;
+        }
+        shared = strings.putIfAbsent(s, s);
+        return shared != null ? shared : s;
+    }
+
+    /**
+     * Спільний заморожений екземпляр з тими самими значеннями
+     * Якщо таких ще не було, заморожуємо і запам'ятовуємо переданий об'єкт
+     * Якщо таблиця заповнена - повертаємо переданий об'єкт як є, без заморожування
+     */
+    public VisualParameters canonical(VisualParameters params) {
+        if (params == null) {
+            return null;
+        }
+        VisualParameters shared = visualParameters.get(params);
+        if (shared != null) {
+            return shared;
+        }
+        if (visualParameters.size() >= maxEntries) {
+            return params;
+        }
+        params.freeze();
+        shared = visualParameters.putIfAbsent(params, params);
+        return shared != null ? shared : params;
+    }
+
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    public int getVisualParametersCount() {
+        return visualParameters.size();
+    }
+
+    /**
+     * Забуваємо всі запам'ятовані значення (вже розподілені екземпляри лишаються в каменях)
+     */
+    public void clear() {
+        strings.clear();
+        visualParameters.clear();
+    }
+}
@@ -0,0 +1,512 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Колонкова таблиця каменів для аналітики по мільйонах записів
+ * Замість списку об'єктів Gem кожне поле лежить в окремому масиві примітивів (рядок таблиці = камінь),
+ * тому повний прохід по одній колонці - це послідовне читання масиву без переходів по посиланнях
+ *
+ * Колонки каменів:
+ * - id - масив рядків і індекс id -> рядок (rowOf): хеш-таблиця з відкритою адресацією в int[],
+ *   без об'єктів Integer і вузлів HashMap; назва і походження - номери в словниках (-1 для null)
+ * - дорогоцінність - порядковий номер enum (-1 для null)
+ * - вартість - тисячні карата (NULL_VALUE для null); точніші значення округлюються до тисячних
+ * - маска всіх кольорів каменя (Color.mask() для кожного кольору)
+ * Колонки visualParameters (окремі рядки, камінь i займає рядки visualStart(i)..visualEnd(i)-1):
+ * - маска кольорів, прозорість в базисних пунктах і кількість граней (NULL_INT для null)
+ * Маска не зберігає порядок і повтори кольорів, тому toGem повертає кольори в порядку констант Color
+ *
+ * Таблицю будує Builder - його можна передати потоковому парсеру як consumer,
+ * тоді об'єкти Gem не накопичуються: parser.parse(path, builder); GemTable table = builder.build();
+ * Таблиця незмінна і безпечна для читання з кількох потоків
+ */
+public final class GemTable {
+    public static final long NULL_VALUE = Long.MIN_VALUE;
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final Preciousness[] PRECIOUSNESS = Preciousness.values();
+    private static final Color[] COLORS = Color.values();
+
+    private final int size;
+    private final String[] ids;
+    // Номер рядка + 1 для кожної комірки (0 - порожня); розмір - степінь двійки, не менше 2 * size
+    private final int[] idIndex;
+    private final int[] nameCodes;
+    private final String[] names;
+    private final int[] originCodes;
+    private final String[] origins;
+    private final byte[] preciousness;
+    private final long[] values;
+    private final int[] colorMasks;
+    private final int[] visualOffsets;
+    private final int[] visualColorMasks;
+    private final int[] transparency;
+    private final int[] facets;
+
+    private GemTable(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.idIndex = buildIdIndex(ids);
+        this.nameCodes = Arrays.copyOf(builder.nameCodes, size);
+        this.names = builder.names.toArray(new String[0]);
+        this.originCodes = Arrays.copyOf(builder.originCodes, size);
+        this.origins = builder.origins.toArray(new String[0]);
+        this.preciousness = Arrays.copyOf(builder.preciousness, size);
+        this.values = Arrays.copyOf(builder.values, size);
+        this.colorMasks = Arrays.copyOf(builder.colorMasks, size);
+        this.visualOffsets = Arrays.copyOf(builder.visualOffsets, size + 1);
+        this.visualColorMasks = Arrays.copyOf(builder.visualColorMasks, builder.visualSize);
+        this.transparency = Arrays.copyOf(builder.transparency, builder.visualSize);
+        this.facets = Arrays.copyOf(builder.facets, builder.visualSize);
+    }
+
+    /**
+     * Таблиця з готового списку каменів
+     */
+    public static GemTable of(List<Gem> gems) {
+        Builder builder = new Builder(gems.size());
+        for (Gem gem : gems) {
+            builder.accept(gem);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Рядок каменя з таким id або -1; якщо id повторюється - перший з таких рядків
+     */
+    public int rowOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int mask = idIndex.length - 1;
+        for (int slot = spread(id.hashCode()) & mask; idIndex[slot] != 0; slot = (slot + 1) & mask) {
+            int row = idIndex[slot] - 1;
+            if (id.equals(ids[row])) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public String getName(int row) {
+        return decode(names, nameCodes[row]);
+    }
+
+    public String getOrigin(int row) {
+        return decode(origins, originCodes[row]);
+    }
+
+    /**
+     * Номер походження в словнику (-1 для null) - для групування по getOrigins()
+     */
+    public int getOriginCode(int row) {
+        return originCodes[row];
+    }
+
+    /**
+     * Словник походжень: номер - позиція в масиві
+     */
+    public List<String> getOrigins() {
+        return Arrays.asList(origins.clone());
+    }
+
+    public Preciousness getPreciousness(int row) {
+        byte ordinal = preciousness[row];
+        return ordinal < 0 ? null : PRECIOUSNESS[ordinal];
+    }
+
+    public boolean hasValue(int row) {
+        return values[row] != NULL_VALUE;
+    }
+
+    /**
+     * Вартість в тисячних карата або NULL_VALUE
+     */
+    public long getValueThousandths(int row) {
+        return values[row];
+    }
+
+    /**
+     * Маска всіх кольорів каменя з усіх його visualParameters
+     */
+    public int getColorMask(int row) {
+        return colorMasks[row];
+    }
+
+    public int visualStart(int row) {
+        return visualOffsets[row];
+    }
+
+    public int visualEnd(int row) {
+        return visualOffsets[row + 1];
+    }
+
+    public int getVisualColorMask(int visualRow) {
+        return visualColorMasks[visualRow];
+    }
+
+    /**
+     * Прозорість в базисних пунктах або NULL_INT
+     */
+    public int getTransparencyBasisPoints(int visualRow) {
+        return transparency[visualRow];
+    }
+
+    /**
+     * Кількість граней або NULL_INT
+     */
+    public int getFacets(int visualRow) {
+        return facets[visualRow];
+    }
+
+    /**
+     * Рядки, для яких predicate повертає true (номери рядків по зростанню)
+     */
+    public int[] filter(IntPredicate predicate) {
+        int[] rows = new int[Math.min(size, 16)];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(16, rows.length * 2));
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    public int[] rowsWithPreciousness(Preciousness value) {
+        byte ordinal = (byte) value.ordinal();
+        return filter(row -> preciousness[row] == ordinal);
+    }
+
+    public int[] rowsWithOrigin(String origin) {
+        int code = Arrays.asList(origins).indexOf(origin);
+        return code < 0 ? new int[0] : filter(row -> originCodes[row] == code);
+    }
+
+    /**
+     * Камені, в яких є хоча б один з кольорів маски
+     */
+    public int[] rowsWithAnyColor(int mask) {
+        return filter(row -> (colorMasks[row] & mask) != 0);
+    }
+
+    /**
+     * Камені з вартістю в межах [minThousandths, maxThousandths] (камені без вартості не потрапляють)
+     */
+    public int[] rowsWithValueBetween(long minThousandths, long maxThousandths) {
+        return filter(row -> values[row] != NULL_VALUE && values[row] >= minThousandths && values[row] <= maxThousandths);
+    }
+
+    /**
+     * Сума вартості всіх каменів в тисячних карата (камені без вартості пропускаються)
+     */
+    public long sumValueThousandths() {
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            long value = values[row];
+            if (value != NULL_VALUE) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    public long sumValueThousandths(int[] rows) {
+        long sum = 0;
+        for (int row : rows) {
+            long value = values[row];
+            if (value != NULL_VALUE) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Загальна вартість як BigDecimal (для показу)
+     */
+    public BigDecimal totalValue() {
+        return BigDecimal.valueOf(sumValueThousandths(), Gem.VALUE_SCALE);
+    }
+
+    /**
+     * Кількість каменів кожної дорогоцінності; індекс - ordinal
+     */
+    public int[] countByPreciousness() {
+        int[] counts = new int[PRECIOUSNESS.length];
+        for (int row = 0; row < size; row++) {
+            if (preciousness[row] >= 0) {
+                counts[preciousness[row]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Кількість каменів з кожного походження; індекс - номер в getOrigins()
+     */
+    public int[] countByOrigin() {
+        int[] counts = new int[origins.length];
+        for (int row = 0; row < size; row++) {
+            if (originCodes[row] >= 0) {
+                counts[originCodes[row]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Сума вартості в тисячних карата для кожного походження; індекс - номер в getOrigins()
+     */
+    public long[] sumValueThousandthsByOrigin() {
+        long[] sums = new long[origins.length];
+        for (int row = 0; row < size; row++) {
+            int code = originCodes[row];
+            long value = values[row];
+            if (code >= 0 && value != NULL_VALUE) {
+                sums[code] += value;
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Відновлюємо об'єкт Gem для рядка
+     */
+    public Gem toGem(int row) {
+        Gem gem = new Gem();
+        gem.setId(ids[row]);
+        gem.setName(getName(row));
+        gem.setOrigin(getOrigin(row));
+        gem.setPreciousness(getPreciousness(row));
+        if (values[row] != NULL_VALUE) {
+            gem.setValue(values[row], Gem.VALUE_SCALE);
+        }
+        List<VisualParameters> visual = new ArrayList<>(visualEnd(row) - visualStart(row));
+        for (int v = visualStart(row); v < visualEnd(row); v++) {
+            VisualParameters params = new VisualParameters();
+            for (Color color : COLORS) {
+                if ((visualColorMasks[v] & color.mask()) != 0) {
+                    params.addColor(color);
+                }
+            }
+            if (transparency[v] != NULL_INT) {
+                params.setTransparency(transparency[v], VisualParameters.TRANSPARENCY_SCALE);
+            }
+            if (facets[v] != NULL_INT) {
+                params.setFacets(facets[v]);
+            }
+            visual.add(params);
+        }
+        gem.setVisualParameters(visual);
+        return gem;
+    }
+
+    public List<Gem> toGems(int[] rows) {
+        List<Gem> gems = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            gems.add(toGem(row));
+        }
+        return gems;
+    }
+
+    private static int[] buildIdIndex(String[] ids) {
+        int capacity = Integer.highestOneBit(Math.max(1, ids.length) * 2 - 1) << 1;
+        int[] index = new int[capacity];
+        int mask = capacity - 1;
+        for (int row = 0; row < ids.length; row++) {
+            String id = ids[row];
+            if (id == null) {
+                continue;
+            }
+            int slot = spread(id.hashCode()) & mask;
+            while (index[slot] != 0) {
+                if (id.equals(ids[index[slot] - 1])) {
+                    // Повтор id - лишаємо перший рядок
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (index[slot] == 0) {
+                index[slot] = row + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Перемішуємо старші біти хешу в молодші, як HashMap - id на кшталт gem00000001 відрізняються в кінці
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String decode(String[] dictionary, int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    /**
+     * Збирає таблицю по одному каменю; масиви ростуть вдвічі, як в ArrayList
+     * Не потокобезпечний - як і звичайний список в ролі consumer
+     */
+    public static final class Builder implements Consumer<Gem> {
+        private int size;
+        private int visualSize;
+        private String[] ids;
+        private int[] nameCodes;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameIndex = new HashMap<>();
+        private int[] originCodes;
+        private final List<String> origins = new ArrayList<>();
+        private final Map<String, Integer> originIndex = new HashMap<>();
+        private byte[] preciousness;
+        private long[] values;
+        private int[] colorMasks;
+        private int[] visualOffsets;
+        private int[] visualColorMasks;
+        private int[] transparency;
+        private int[] facets;
+
+        public Builder() {
+            this(1024);
+        }
+
+        /**
+         * @param expectedSize скільки каменів очікується (початковий розмір масивів)
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new String[capacity];
+            nameCodes = new int[capacity];
+            originCodes = new int[capacity];
+            preciousness = new byte[capacity];
+            values = new long[capacity];
+            colorMasks = new int[capacity];
+            visualOffsets = new int[capacity + 1];
+            visualColorMasks = new int[capacity];
+            transparency = new int[capacity];
+            facets = new int[capacity];
+        }
+
+        @Override
+        public void accept(Gem gem) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                nameCodes = Arrays.copyOf(nameCodes, capacity);
+                originCodes = Arrays.copyOf(originCodes, capacity);
+                preciousness = Arrays.copyOf(preciousness, capacity);
+                values = Arrays.copyOf(values, capacity);
+                colorMasks = Arrays.copyOf(colorMasks, capacity);
+                visualOffsets = Arrays.copyOf(visualOffsets, capacity + 1);
+            }
+            ids[size] = gem.getId();
+            nameCodes[size] = encode(names, nameIndex, gem.getName());
+            originCodes[size] = encode(origins, originIndex, gem.getOrigin());
+            preciousness[size] = gem.getPreciousness() == null ? -1 : (byte) gem.getPreciousness().ordinal();
+            values[size] = valueThousandths(gem);
+
+            int gemMask = 0;
+            List<VisualParameters> visual = gem.getVisualParameters();
+            if (visual != null) {
+                for (VisualParameters params : visual) {
+                    int mask = addVisual(params);
+                    gemMask |= mask;
+                }
+            }
+            colorMasks[size] = gemMask;
+            size++;
+            visualOffsets[size] = visualSize;
+        }
+
+        public GemTable build() {
+            return new GemTable(this);
+        }
+
+        private int addVisual(VisualParameters params) {
+            if (visualSize == visualColorMasks.length) {
+                int capacity = visualSize * 2;
+                visualColorMasks = Arrays.copyOf(visualColorMasks, capacity);
+                transparency = Arrays.copyOf(transparency, capacity);
+                facets = Arrays.copyOf(facets, capacity);
+            }
+            int mask = params.getColorMask();
+            visualColorMasks[visualSize] = mask;
+            transparency[visualSize] = transparencyBasisPoints(params);
+            facets[visualSize] = params.hasFacets() ? params.getFacetsAsInt() : NULL_INT;
+            visualSize++;
+            return mask;
+        }
+
+        private static long valueThousandths(Gem gem) {
+            if (!gem.hasValue()) {
+                return NULL_VALUE;
+            }
+            if (gem.isValueFixedPoint()) {
+                return gem.getValueThousandths();
+            }
+            try {
+                return gem.getValue().setScale(Gem.VALUE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Value of gem " + gem.getId() + " does not fit into the table: "
+                                                   + gem.getValue(), e);
+            }
+        }
+
+        private static int transparencyBasisPoints(VisualParameters params) {
+            if (!params.hasTransparency()) {
+                return NULL_INT;
+            }
+            long basisPoints;
+            try {
+                if (params.isTransparencyFixedPoint()) {
+                    basisPoints = params.getTransparencyBasisPoints();
+                } else {
+                    basisPoints = params.getTransparency()
+                        .setScale(VisualParameters.TRANSPARENCY_SCALE, RoundingMode.HALF_EVEN)
+                        .unscaledValue().longValueExact();
+                }
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Transparency does not fit into the table: "
+                                                   + params.getTransparency(), e);
+            }
+            if (basisPoints <= NULL_INT || basisPoints > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Transparency does not fit into the table: " + params.getTransparency());
+            }
+            return (int) basisPoints;
+        }
+
+        private static int encode(List<String> dictionary, Map<String, Integer> index, String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                index.put(value, code);
+            }
+            return code;
+        }
+    }
+}
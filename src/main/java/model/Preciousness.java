@@ -15,12 +15,50 @@ public enum Preciousness {
     }
 
     public static Preciousness fromString(String value) {
-        for (Preciousness p : Preciousness.values()) {
-            if (p.value.equals(value)) {
-                return p;
+        Preciousness preciousness = value == null ? null : lookup(value, 0, value.length());
+        if (preciousness == null) {
+            throw new IllegalArgumentException("Unknown preciousness: " + value);
+        }
+        return preciousness;
+    }
+
+    /**
+     * Тип з тексту елемента, як fromString(text.toString().trim()), але без створення рядка
+     * @throws IllegalArgumentException якщо такого типу немає
+     */
+    public static Preciousness parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        Preciousness preciousness = lookup(text, start, end);
+        if (preciousness == null) {
+            throw new IllegalArgumentException("Unknown preciousness: " + text.subSequence(start, end));
+        }
+        return preciousness;
+    }
+
+    /**
+     * Значення різної довжини, тому кандидата дає довжина, а далі одне порівняння
+     */
+    private static Preciousness lookup(CharSequence text, int start, int end) {
+        Preciousness candidate;
+        if (end - start == PRECIOUS.value.length()) {
+            candidate = PRECIOUS;
+        } else if (end - start == SEMI_PRECIOUS.value.length()) {
+            candidate = SEMI_PRECIOUS;
+        } else {
+            return null;
+        }
+        for (int i = 0; i < candidate.value.length(); i++) {
+            if (text.charAt(start + i) != candidate.value.charAt(i)) {
+                return null;
             }
         }
-        throw new IllegalArgumentException("Unknown preciousness: " + value);
+        return candidate;
     }
 }
-
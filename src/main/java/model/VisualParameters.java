@@ -1,47 +1,319 @@
 package model;
 
 import java.math.BigDecimal;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 
 public class VisualParameters {
-    private List<Color> colors;
-    private BigDecimal transparency;
-    private Integer facets;
+    // Скільки знаків після коми вміщають базисні пункти (сотні частки відсотка)
+    public static final int TRANSPARENCY_SCALE = 2;
+
+    // Скільки кольорів вміщається в packedColors (по 4 біти на колір)
+    private static final int MAX_PACKED_COLORS = Long.SIZE / 4;
+    private static final int NULL_COLORS = -1;
+    private static final Color[] COLORS = Color.values();
+
+    static {
+        // Код кольору в packedColors - ordinal + 1, а 0 означає null елемент
+        if (COLORS.length > 15) {
+            throw new ExceptionInInitializerError("Color codes do not fit into 4 bits");
+        }
+    }
+
+    // Кольори без списку: коди по порядку в packedColors, маска всіх кольорів і кількість
+    // (NULL_COLORS - списку немає). Якщо кольорів більше MAX_PACKED_COLORS, вони лежать в overflowColors
+    private long packedColors;
+    private int colorMask;
+    private int colorCount;
+    private List<Color> overflowColors;
+    // Незмінне представлення кольорів як List - створюється при першому getColors()
+    private List<Color> colorsView;
+    // Прозорість в базисних пунктах, scale і exactTransparency - так само як вартість в Gem
+    private long transparency;
+    private byte transparencyScale = FixedPoint.NULL;
+    private BigDecimal exactTransparency;
+    private int facets;
+    private boolean hasFacets;
+    // Заморожені параметри можуть бути спільними для багатьох каменів, тому змінювати їх не можна
+    private boolean frozen;
 
     public VisualParameters() {
-        this.colors = new ArrayList<>();
     }
 
     public VisualParameters(List<Color> colors, BigDecimal transparency, Integer facets) {
-        this.colors = colors != null ? colors : new ArrayList<>();
-        this.transparency = transparency;
-        this.facets = facets;
+        if (colors != null) {
+            setColors(colors);
+        }
+        setTransparency(transparency);
+        setFacets(facets);
     }
 
+    /**
+     * Кольори в порядку додавання (з повторами) або null, якщо список кольорів задали як null
+     * Список незмінний і показує поточні кольори - змінюються вони через addColor і setColors
+     */
     public List<Color> getColors() {
-        return colors;
+        if (colorCount == NULL_COLORS) {
+            return null;
+        }
+        if (colorsView == null) {
+            colorsView = new ColorList();
+        }
+        return colorsView;
     }
 
+    /**
+     * Замінюємо кольори копією списку (пізніші зміни переданого списку вже не впливають)
+     */
     public void setColors(List<Color> colors) {
-        this.colors = colors;
+        checkNotFrozen();
+        if (colors != null && colors == colorsView) {
+            // Власне представлення - кольори вже ті самі
+            return;
+        }
+        packedColors = 0;
+        colorMask = 0;
+        overflowColors = null;
+        if (colors == null) {
+            colorCount = NULL_COLORS;
+            return;
+        }
+        colorCount = 0;
+        for (Color color : colors) {
+            addColor(color);
+        }
+    }
+
+    /**
+     * Додаємо колір в кінець - для парсерів, без проміжного списку
+     */
+    public void addColor(Color color) {
+        checkNotFrozen();
+        if (colorCount == NULL_COLORS) {
+            colorCount = 0;
+        }
+        if (overflowColors == null && colorCount == MAX_PACKED_COLORS) {
+            overflowColors = new ArrayList<>(getColors());
+        }
+        if (overflowColors != null) {
+            overflowColors.add(color);
+        } else {
+            long code = color == null ? 0 : color.ordinal() + 1;
+            packedColors |= code << (4 * colorCount);
+        }
+        if (color != null) {
+            colorMask |= color.mask();
+        }
+        colorCount++;
     }
 
+    /**
+     * Чи є такий колір - одне AND з маскою
+     */
+    public boolean hasColor(Color color) {
+        return (colorMask & color.mask()) != 0;
+    }
+
+    /**
+     * Маска всіх кольорів: біт Color.mask() для кожного кольору, що є
+     */
+    public int getColorMask() {
+        return colorMask;
+    }
+
+    /**
+     * Кількість кольорів з повторами (0, якщо списку немає)
+     */
+    public int getColorCount() {
+        return Math.max(0, colorCount);
+    }
+
+    public Color getColor(int index) {
+        if (index < 0 || index >= colorCount) {
+            throw new IndexOutOfBoundsException("Color index " + index + " out of bounds for size " + getColorCount());
+        }
+        if (overflowColors != null) {
+            return overflowColors.get(index);
+        }
+        int code = (int) (packedColors >>> (4 * index)) & 0xF;
+        return code == 0 ? null : COLORS[code - 1];
+    }
+
+    /**
+     * Прозорість як BigDecimal з тим самим scale, з яким її задали (кожен виклик - новий об'єкт)
+     */
     public BigDecimal getTransparency() {
-        return transparency;
+        if (transparencyScale == FixedPoint.NULL) {
+            return null;
+        }
+        if (transparencyScale == FixedPoint.EXACT) {
+            return exactTransparency;
+        }
+        return FixedPoint.toBigDecimal(transparency, transparencyScale, TRANSPARENCY_SCALE);
     }
 
     public void setTransparency(BigDecimal transparency) {
-        this.transparency = transparency;
+        checkNotFrozen();
+        if (transparency == null) {
+            this.transparency = 0;
+            this.transparencyScale = FixedPoint.NULL;
+            this.exactTransparency = null;
+        } else if (transparency.unscaledValue().bitLength() >= Long.SIZE
+                || !setFixedTransparency(transparency.unscaledValue().longValue(), transparency.scale())) {
+            setExactTransparency(transparency);
+        }
+    }
+
+    /**
+     * Прозорість unscaled * 10^-scale без створення BigDecimal
+     */
+    public void setTransparency(long unscaled, int scale) {
+        checkNotFrozen();
+        if (!setFixedTransparency(unscaled, scale)) {
+            setExactTransparency(BigDecimal.valueOf(unscaled, scale));
+        }
+    }
+
+    /**
+     * Прозорість з тексту, як new BigDecimal(text.trim()), але без створення об'єктів
+     * @throws NumberFormatException якщо текст не є числом
+     */
+    public void parseTransparency(CharSequence text) {
+        checkNotFrozen();
+        long packed = FixedPoint.parse(text, TRANSPARENCY_SCALE);
+        if (packed == FixedPoint.UNPARSED) {
+            setExactTransparency(FixedPoint.parseExact(text));
+        } else {
+            transparency = FixedPoint.parsedValue(packed);
+            transparencyScale = FixedPoint.parsedScale(packed);
+            exactTransparency = null;
+        }
+    }
+
+    public boolean hasTransparency() {
+        return transparencyScale != FixedPoint.NULL;
+    }
+
+    /**
+     * Чи зберігається прозорість точно в базисних пунктах (не більше двох знаків після коми)
+     */
+    public boolean isTransparencyFixedPoint() {
+        return transparencyScale != FixedPoint.NULL && transparencyScale != FixedPoint.EXACT;
+    }
+
+    /**
+     * Прозорість в базисних пунктах: 100% - це 10000
+     * @throws IllegalStateException якщо прозорості немає або вона не представляється в базисних пунктах
+     */
+    public long getTransparencyBasisPoints() {
+        if (!isTransparencyFixedPoint()) {
+            throw new IllegalStateException("Transparency is not a fixed-point number: " + getTransparency());
+        }
+        return transparency;
     }
 
+    /**
+     * Скільки знаків після коми було у прозорості (0..TRANSPARENCY_SCALE)
+     * @throws IllegalStateException якщо прозорості немає або вона не представляється в базисних пунктах
+     */
+    public int getTransparencyScale() {
+        if (!isTransparencyFixedPoint()) {
+            throw new IllegalStateException("Transparency is not a fixed-point number: " + getTransparency());
+        }
+        return transparencyScale;
+    }
+
+    /**
+     * Кількість граней; Integer.valueOf для малих чисел бере об'єкт з кешу, тому нічого не створюється
+     */
     public Integer getFacets() {
-        return facets;
+        return hasFacets ? Integer.valueOf(facets) : null;
     }
 
     public void setFacets(Integer facets) {
+        checkNotFrozen();
+        if (facets == null) {
+            this.facets = 0;
+            this.hasFacets = false;
+        } else {
+            setFacets(facets.intValue());
+        }
+    }
+
+    public void setFacets(int facets) {
+        checkNotFrozen();
         this.facets = facets;
+        this.hasFacets = true;
+    }
+
+    /**
+     * Кількість граней з тексту, як Integer.parseInt(text.trim()), але без проміжного рядка
+     * @throws NumberFormatException якщо текст не є цілим числом
+     */
+    public void parseFacets(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        setFacets(Integer.parseInt(text, start, end, 10));
+    }
+
+    public boolean hasFacets() {
+        return hasFacets;
+    }
+
+    /**
+     * Кількість граней без упаковки в Integer
+     * @throws IllegalStateException якщо граней не задано
+     */
+    public int getFacetsAsInt() {
+        if (!hasFacets) {
+            throw new IllegalStateException("Facets are not set");
+        }
+        return facets;
+    }
+
+    /**
+     * Робимо параметри незмінними: сетери і addColor далі кидають UnsupportedOperationException
+     * @return цей самий об'єкт
+     */
+    public VisualParameters freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Visual parameters are frozen and may be shared between gems");
+        }
+    }
+
+    private boolean setFixedTransparency(long unscaled, int scale) {
+        long fixed = FixedPoint.toFixed(unscaled, scale, TRANSPARENCY_SCALE);
+        if (fixed == FixedPoint.UNPARSED) {
+            return false;
+        }
+        transparency = fixed;
+        transparencyScale = (byte) scale;
+        exactTransparency = null;
+        return true;
+    }
+
+    private void setExactTransparency(BigDecimal exact) {
+        transparency = 0;
+        transparencyScale = FixedPoint.EXACT;
+        exactTransparency = exact;
     }
 
     @Override
@@ -49,23 +321,51 @@ public class VisualParameters {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         VisualParameters that = (VisualParameters) o;
-        return Objects.equals(colors, that.colors) &&
-                Objects.equals(transparency, that.transparency) &&
-                Objects.equals(facets, that.facets);
+        // Представлення однозначне (якщо число вміщається в базисні пункти, воно завжди зберігається так),
+        // тому порівнюємо поля напряму - це те саме, що BigDecimal.equals з урахуванням scale
+        return transparency == that.transparency &&
+                transparencyScale == that.transparencyScale &&
+                hasFacets == that.hasFacets &&
+                facets == that.facets &&
+                Objects.equals(exactTransparency, that.exactTransparency) &&
+                colorCount == that.colorCount &&
+                packedColors == that.packedColors &&
+                Objects.equals(overflowColors, that.overflowColors);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(colors, transparency, facets);
+        // Ті самі поля, що й в equals, без створення BigDecimal - hashCode рахується на кожен пошук в GemCanonicalizer
+        int result = 31 * colorCount + Long.hashCode(packedColors);
+        result = 31 * result + Objects.hashCode(overflowColors);
+        result = 31 * result + Long.hashCode(transparency);
+        result = 31 * result + transparencyScale;
+        result = 31 * result + Objects.hashCode(exactTransparency);
+        result = 31 * result + (hasFacets ? facets : -1);
+        return result;
     }
 
     @Override
     public String toString() {
         return "VisualParameters{" +
-                "colors=" + colors +
-                ", transparency=" + transparency +
-                ", facets=" + facets +
+                "colors=" + getColors() +
+                ", transparency=" + getTransparency() +
+                ", facets=" + getFacets() +
                 '}';
     }
-}
 
+    /**
+     * Кольори як List без копіювання - читає поля цього об'єкта
+     */
+    private final class ColorList extends AbstractList<Color> implements RandomAccess {
+        @Override
+        public Color get(int index) {
+            return getColor(index);
+        }
+
+        @Override
+        public int size() {
+            return getColorCount();
+        }
+    }
+}
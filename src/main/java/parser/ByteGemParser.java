@@ -0,0 +1,685 @@
+package parser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Color;
+import model.Gem;
+import model.GemCanonicalizer;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Спеціалізований парсер, який читає UTF-8 байти файлу напряму і знає тільки словник gems.xsd
+ * (gem, name, preciousness, origin, visualParameters, color, transparency, facets, value)
+ * Імена елементів порівнюються як байти, числа розбираються без проміжних рядків,
+ * а namespace перевіряється один раз на корені
+ *
+ * Все, що виходить за межі звичного формату (DOCTYPE, сутності &amp;..., CDATA, префікси,
+ * невідомі елементи, інше кодування) - передається StaxGemParser, тому результат завжди такий самий
+ */
+public class ByteGemParser implements StreamingGemParser {
+    private static final Logger logger = LogManager.getLogger(ByteGemParser.class);
+
+    private static final byte[] ROOT = bytes("Gem");
+    private static final byte[] GEM = bytes("gem");
+    private static final byte[] NAME = bytes("name");
+    private static final byte[] PRECIOUSNESS = bytes("preciousness");
+    private static final byte[] ORIGIN = bytes("origin");
+    private static final byte[] VISUAL_PARAMETERS = bytes("visualParameters");
+    private static final byte[] COLOR = bytes("color");
+    private static final byte[] TRANSPARENCY = bytes("transparency");
+    private static final byte[] FACETS = bytes("facets");
+    private static final byte[] VALUE = bytes("value");
+    private static final byte[] ID = bytes("id");
+    private static final byte[] XMLNS = bytes("xmlns");
+    private static final byte[] NAMESPACE = bytes(ParserConstants.NAMESPACE);
+
+    private static final Preciousness[] PRECIOUSNESS_VALUES = Preciousness.values();
+    private static final byte[][] PRECIOUSNESS_BYTES = new byte[PRECIOUSNESS_VALUES.length][];
+    private static final Color[] COLOR_VALUES = Color.values();
+    private static final byte[][] COLOR_BYTES = new byte[COLOR_VALUES.length][];
+
+    static {
+        for (int i = 0; i < PRECIOUSNESS_VALUES.length; i++) {
+            PRECIOUSNESS_BYTES[i] = bytes(PRECIOUSNESS_VALUES[i].getValue());
+        }
+        for (int i = 0; i < COLOR_VALUES.length; i++) {
+            COLOR_BYTES[i] = bytes(COLOR_VALUES[i].getValue());
+        }
+    }
+
+    private final StaxGemParser fallbackParser = new StaxGemParser();
+    private GemCanonicalizer canonicalizer;
+
+    /**
+     * Спільні екземпляри для повторюваних назв, походжень і visualParameters (GemCanonicalizer);
+     * null - вимкнено (за замовчуванням)
+     */
+    public void setCanonicalizer(GemCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    public void parse(String xmlFilePath, Consumer<Gem> consumer) throws Exception {
+        logger.info("Starting byte-level parsing of file: {}", xmlFilePath);
+        // Запасний StAX парсер отримує вже обгорнутий consumer, тому йому canonicalizer не передаємо
+        if (canonicalizer != null) {
+            consumer = canonicalizer.wrap(consumer);
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(xmlFilePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                logger.info("File {} is larger than 2 GB, falling back to StAX", xmlFilePath);
+                fallbackParser.parse(xmlFilePath, consumer);
+                return;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Scanner scanner = new Scanner(buffer);
+        int emitted = 0;
+        try {
+            scanner.readRoot();
+            Gem gem;
+            while ((gem = scanner.nextGem()) != null) {
+                consumer.accept(gem);
+                emitted++;
+            }
+        } catch (UnexpectedContentException e) {
+            logger.info("Unexpected content at byte {} of {}, falling back to StAX after {} gems",
+                        e.position, xmlFilePath, emitted);
+            fallback(xmlFilePath, emitted, consumer);
+            return;
+        }
+
+        logger.info("Byte-level parsing completed. Found {} gems", emitted);
+    }
+
+    /**
+     * Допарсюємо файл через StAX, пропускаючи камені, які вже були віддані
+     */
+    private void fallback(String xmlFilePath, int alreadyEmitted, Consumer<Gem> consumer) throws Exception {
+        int[] seen = {0};
+        fallbackParser.parse(xmlFilePath, gem -> {
+            if (seen[0]++ >= alreadyEmitted) {
+                consumer.accept(gem);
+            }
+        });
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сигнал "тут щось незвичне" - без stack trace, бо це не помилка, а перехід на StAX
+     */
+    private static class UnexpectedContentException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int position;
+
+        UnexpectedContentException(int position) {
+            super(null, null, false, false);
+            this.position = position;
+        }
+    }
+
+    /**
+     * Курсор по байтах файлу
+     * Позиції абсолютні (від початку файлу), а самі байти копіюються з відображеного буфера
+     * в невелике вікно на купі: читати з масиву значно швидше, ніж через ByteBuffer.get(index).
+     * Вікно зсувається тільки між каменями, тому позиції всередині каменя завжди доступні
+     */
+    private static class Scanner {
+        private static final int WINDOW_SIZE = 1 << 16;
+
+        private final ByteBuffer source;
+        private final int limit;
+        private int pos;
+        private byte[] scratch = new byte[256];
+
+        private byte[] window = new byte[WINDOW_SIZE];
+        private int windowStart; // позиція у файлі першого байта вікна
+        private int windowEnd; // позиція у файлі за останнім завантаженим байтом
+
+        // Межі тексту останнього простого елемента [textStart, textEnd)
+        private int textStart;
+        private int textEnd;
+
+        // Результат останнього розбору десяткового числа
+        private long unscaled;
+        private int scale;
+
+        Scanner(ByteBuffer buffer) {
+            this.source = buffer.duplicate();
+            this.limit = buffer.limit();
+        }
+
+        /**
+         * Пролог і відкриваючий тег кореня: корінь має бути Gem з xmlns нашого namespace
+         */
+        void readRoot() throws UnexpectedContentException {
+            if (limit >= 3 && (get(0) & 0xFF) == 0xEF && (get(1) & 0xFF) == 0xBB && (get(2) & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+            while (true) {
+                skipWhitespace();
+                if (startsWith("<?xml")) {
+                    readXmlDeclaration();
+                } else if (startsWith("<!--")) {
+                    skipComment();
+                } else if (startsWith("<?")) {
+                    skipProcessingInstruction();
+                } else {
+                    break;
+                }
+            }
+
+            expect('<');
+            if (!readName(ROOT)) {
+                throw unexpected();
+            }
+            boolean namespaceDeclared = false;
+            while (true) {
+                skipWhitespace();
+                if (peek() == '>') {
+                    pos++;
+                    break;
+                }
+                int nameStart = pos;
+                int nameEnd = scanAttributeName();
+                int valueStart = scanAttributeValue();
+                int valueEnd = pos - 1;
+                if (regionEquals(nameStart, nameEnd, XMLNS)) {
+                    namespaceDeclared = regionEquals(valueStart, valueEnd, NAMESPACE);
+                    if (!namespaceDeclared) {
+                        throw unexpected();
+                    }
+                }
+            }
+            if (!namespaceDeclared) {
+                throw unexpected();
+            }
+        }
+
+        /**
+         * @return наступний камінь або null якщо дійшли до </Gem>
+         */
+        Gem nextGem() throws UnexpectedContentException {
+            slideWindow();
+            skipWhitespaceAndComments();
+            expect('<');
+            if (peek() == '/') {
+                pos++;
+                if (!readName(ROOT)) {
+                    throw unexpected();
+                }
+                skipWhitespace();
+                expect('>');
+                readTrailer();
+                return null;
+            }
+            if (!readName(GEM)) {
+                throw unexpected();
+            }
+            return readGem();
+        }
+
+        /**
+         * Після кореня можуть бути тільки пробіли, коментарі та інструкції обробки
+         */
+        private void readTrailer() throws UnexpectedContentException {
+            while (true) {
+                skipWhitespaceAndComments();
+                if (pos >= limit) {
+                    return;
+                }
+                if (!startsWith("<?")) {
+                    throw unexpected();
+                }
+                skipProcessingInstruction();
+            }
+        }
+
+        private Gem readGem() throws UnexpectedContentException {
+            Gem gem = new Gem();
+            while (true) {
+                skipWhitespace();
+                if (peek() == '>') {
+                    pos++;
+                    break;
+                }
+                int nameStart = pos;
+                int nameEnd = scanAttributeName();
+                int valueStart = scanAttributeValue();
+                int valueEnd = pos - 1;
+                if (regionStartsWith(nameStart, nameEnd, XMLNS)) {
+                    throw unexpected();
+                }
+                if (regionEquals(nameStart, nameEnd, ID)) {
+                    gem.setId(string(valueStart, valueEnd));
+                }
+            }
+
+            while (true) {
+                skipWhitespaceAndComments();
+                expect('<');
+                if (peek() == '/') {
+                    pos++;
+                    if (!readName(GEM)) {
+                        throw unexpected();
+                    }
+                    skipWhitespace();
+                    expect('>');
+                    return gem;
+                }
+
+                if (readName(NAME)) {
+                    finishStartTag();
+                    readText(NAME);
+                    if (textStart < textEnd) {
+                        gem.setName(string(textStart, textEnd));
+                    }
+                } else if (readName(PRECIOUSNESS)) {
+                    finishStartTag();
+                    readText(PRECIOUSNESS);
+                    if (textStart < textEnd) {
+                        gem.setPreciousness(PRECIOUSNESS_VALUES[match(PRECIOUSNESS_BYTES)]);
+                    }
+                } else if (readName(ORIGIN)) {
+                    finishStartTag();
+                    readText(ORIGIN);
+                    if (textStart < textEnd) {
+                        gem.setOrigin(string(textStart, textEnd));
+                    }
+                } else if (readName(VALUE)) {
+                    finishStartTag();
+                    readText(VALUE);
+                    if (textStart < textEnd) {
+                        parseDecimal(textStart, textEnd);
+                        gem.setValue(unscaled, scale);
+                    }
+                } else if (readName(VISUAL_PARAMETERS)) {
+                    finishStartTag();
+                    gem.getVisualParameters().add(readVisualParameters());
+                } else {
+                    throw unexpected();
+                }
+            }
+        }
+
+        private VisualParameters readVisualParameters() throws UnexpectedContentException {
+            VisualParameters visualParams = new VisualParameters();
+            while (true) {
+                skipWhitespaceAndComments();
+                expect('<');
+                if (peek() == '/') {
+                    pos++;
+                    if (!readName(VISUAL_PARAMETERS)) {
+                        throw unexpected();
+                    }
+                    skipWhitespace();
+                    expect('>');
+                    return visualParams;
+                }
+
+                if (readName(COLOR)) {
+                    finishStartTag();
+                    readText(COLOR);
+                    if (textStart < textEnd) {
+                        visualParams.addColor(COLOR_VALUES[match(COLOR_BYTES)]);
+                    }
+                } else if (readName(TRANSPARENCY)) {
+                    finishStartTag();
+                    readText(TRANSPARENCY);
+                    if (textStart < textEnd) {
+                        parseDecimal(textStart, textEnd);
+                        visualParams.setTransparency(unscaled, scale);
+                    }
+                } else if (readName(FACETS)) {
+                    finishStartTag();
+                    readText(FACETS);
+                    if (textStart < textEnd) {
+                        visualParams.setFacets(parseInt(textStart, textEnd));
+                    }
+                } else {
+                    throw unexpected();
+                }
+            }
+        }
+
+        /**
+         * Текст простого елемента до його закриваючого тегу
+         * Межі тексту без пробілів на краях зберігаються в textStart/textEnd
+         */
+        private void readText(byte[] elementName) throws UnexpectedContentException {
+            int start = pos;
+            while (pos < limit) {
+                byte b = get(pos);
+                if (b == '<') {
+                    break;
+                }
+                // Сутності та \r (нормалізація кінців рядків) залишаємо StAX
+                if (b == '&' || b == '\r') {
+                    throw unexpected();
+                }
+                pos++;
+            }
+            int end = pos;
+            expect('<');
+            expect('/');
+            if (!readName(elementName)) {
+                throw unexpected();
+            }
+            skipWhitespace();
+            expect('>');
+
+            while (start < end && (get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+            textStart = start;
+            textEnd = end;
+        }
+
+        /**
+         * Десяткове число у форматі [+-]цифри[.цифри] - так само як new BigDecimal(text), але без рядка
+         */
+        private void parseDecimal(int start, int end) throws UnexpectedContentException {
+            int i = start;
+            boolean negative = false;
+            byte first = get(i);
+            if (first == '+' || first == '-') {
+                negative = first == '-';
+                i++;
+            }
+            long result = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean fraction = false;
+            for (; i < end; i++) {
+                byte b = get(i);
+                if (b >= '0' && b <= '9') {
+                    if (++digits > 18) {
+                        throw unexpected();
+                    }
+                    result = result * 10 + (b - '0');
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    throw unexpected();
+                }
+            }
+            if (digits == 0) {
+                throw unexpected();
+            }
+            unscaled = negative ? -result : result;
+            scale = fractionDigits;
+        }
+
+        private int parseInt(int start, int end) throws UnexpectedContentException {
+            parseDecimal(start, end);
+            if (scale != 0 || get(end - 1) == '.' || unscaled > Integer.MAX_VALUE || unscaled < Integer.MIN_VALUE) {
+                throw unexpected();
+            }
+            return (int) unscaled;
+        }
+
+        private int match(byte[][] candidates) throws UnexpectedContentException {
+            for (int i = 0; i < candidates.length; i++) {
+                if (regionEquals(textStart, textEnd, candidates[i])) {
+                    return i;
+                }
+            }
+            // Невідоме значення переліку - нехай StAX кине свою помилку
+            throw unexpected();
+        }
+
+        /**
+         * Читаємо ім'я елемента, якщо воно збігається з очікуваним і далі йде кінець імені
+         */
+        private boolean readName(byte[] name) {
+            if (pos + name.length >= limit || !regionEquals(pos, pos + name.length, name)) {
+                return false;
+            }
+            byte after = get(pos + name.length);
+            if (!isWhitespace(after) && after != '>' && after != '/') {
+                return false;
+            }
+            pos += name.length;
+            return true;
+        }
+
+        /**
+         * Простим елементам атрибути не потрібні, а порожній елемент (&lt;name/&gt;) рідкість - все це для StAX
+         */
+        private void finishStartTag() throws UnexpectedContentException {
+            skipWhitespace();
+            expect('>');
+        }
+
+        private int scanAttributeName() throws UnexpectedContentException {
+            int start = pos;
+            while (pos < limit) {
+                byte b = get(pos);
+                if (b == '=' || isWhitespace(b)) {
+                    break;
+                }
+                if (b == '>' || b == '/' || b == '<') {
+                    throw unexpected();
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw unexpected();
+            }
+            return pos;
+        }
+
+        /**
+         * @return початок значення; після виклику pos стоїть одразу за закриваючою лапкою
+         */
+        private int scanAttributeValue() throws UnexpectedContentException {
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            byte quote = peek();
+            if (quote != '"' && quote != '\'') {
+                throw unexpected();
+            }
+            pos++;
+            int start = pos;
+            while (pos < limit) {
+                byte b = get(pos);
+                if (b == quote) {
+                    pos++;
+                    return start;
+                }
+                // Сутності та нормалізацію пробілів в атрибутах залишаємо StAX
+                if (b == '&' || b == '<' || (b != ' ' && isWhitespace(b))) {
+                    throw unexpected();
+                }
+                pos++;
+            }
+            throw unexpected();
+        }
+
+        private void readXmlDeclaration() throws UnexpectedContentException {
+            int start = pos;
+            skipProcessingInstruction();
+            String declaration = new String(bytesOf(start, pos), StandardCharsets.US_ASCII);
+            int encoding = declaration.indexOf("encoding");
+            if (encoding >= 0) {
+                String rest = declaration.substring(encoding).toUpperCase(Locale.ROOT);
+                if (!rest.contains("UTF-8") && !rest.contains("US-ASCII")) {
+                    throw unexpected();
+                }
+            }
+        }
+
+        private void skipProcessingInstruction() throws UnexpectedContentException {
+            while (pos + 1 < limit) {
+                if (get(pos) == '?' && get(pos + 1) == '>') {
+                    pos += 2;
+                    return;
+                }
+                pos++;
+            }
+            throw unexpected();
+        }
+
+        private void skipComment() throws UnexpectedContentException {
+            pos += 4;
+            while (pos + 2 < limit) {
+                if (get(pos) == '-' && get(pos + 1) == '-' && get(pos + 2) == '>') {
+                    pos += 3;
+                    return;
+                }
+                pos++;
+            }
+            throw unexpected();
+        }
+
+        private void skipWhitespaceAndComments() throws UnexpectedContentException {
+            while (true) {
+                skipWhitespace();
+                if (startsWith("<!--")) {
+                    skipComment();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < limit && isWhitespace(get(pos))) {
+                pos++;
+            }
+        }
+
+        private void expect(char c) throws UnexpectedContentException {
+            if (pos >= limit || get(pos) != c) {
+                throw unexpected();
+            }
+            pos++;
+        }
+
+        private byte peek() throws UnexpectedContentException {
+            if (pos >= limit) {
+                throw unexpected();
+            }
+            return get(pos);
+        }
+
+        private boolean startsWith(String prefix) {
+            if (pos + prefix.length() > limit) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (get(pos + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean regionEquals(int start, int end, byte[] expected) {
+            if (end - start != expected.length) {
+                return false;
+            }
+            return regionStartsWith(start, end, expected);
+        }
+
+        private boolean regionStartsWith(int start, int end, byte[] prefix) {
+            if (end - start < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (get(start + i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String string(int start, int end) {
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                scratch[i] = get(start + i);
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private byte[] bytesOf(int start, int end) {
+            byte[] result = new byte[end - start];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = get(start + i);
+            }
+            return result;
+        }
+
+        private byte get(int index) {
+            int offset = index - windowStart;
+            if (offset < windowEnd - windowStart) {
+                return window[offset];
+            }
+            return load(index);
+        }
+
+        /**
+         * Довантажуємо байти до index включно (вікно за потреби росте)
+         */
+        private byte load(int index) {
+            int loaded = windowEnd - windowStart;
+            int needed = index - windowStart + 1;
+            if (needed > window.length) {
+                window = Arrays.copyOf(window, Math.max(needed, window.length * 2));
+            }
+            int length = Math.min(window.length - loaded, limit - windowEnd);
+            source.position(windowEnd);
+            source.get(window, loaded, length);
+            windowEnd += length;
+            return window[index - windowStart];
+        }
+
+        /**
+         * Викидаємо з вікна вже прочитані байти - це безпечно тільки між каменями
+         */
+        private void slideWindow() {
+            if (pos - windowStart < window.length / 2) {
+                return;
+            }
+            int keep = Math.max(0, windowEnd - pos);
+            System.arraycopy(window, pos - windowStart, window, 0, keep);
+            windowStart = pos;
+            windowEnd = pos + keep;
+        }
+
+        private UnexpectedContentException unexpected() {
+            return new UnexpectedContentException(pos);
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+    }
+}
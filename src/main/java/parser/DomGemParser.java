@@ -8,95 +8,267 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import model.Color;
 import model.Gem;
+import model.GemCanonicalizer;
 import model.Preciousness;
 import model.VisualParameters;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * DOM парсер: спочатку будує дерево всього документа, потім перетворює елементи gem в об'єкти
+ * Дочірні елементи кожного каменя обходяться один раз і розбираються за локальним іменем,
+ * замість окремого пошуку getElementsByTagNameNS по піддереву для кожного поля
+ * Якщо передати ForkJoinPool, перетворення тексту полів в об'єкти Gem виконується паралельно
+ */
 public class DomGemParser implements GemParser {
     private static final Logger logger = LogManager.getLogger(DomGemParser.class);
 
+    // Менше каменів на одну задачу не варто віддавати в пул - накладні витрати з'їдять виграш
+    private static final int MIN_CHUNK_SIZE = 512;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ParserFactories.DocumentBuilderPool documentBuilders;
+    private final ForkJoinPool pool;
+    private GemCanonicalizer canonicalizer;
+
+    public DomGemParser() {
+        this(true);
+    }
+
+    /**
+     * @param deferNodeExpansion true - Xerces будує дерево з відкладеним розгортанням вузлів
+     *                           (дешевша побудова, вузли створюються при першому зверненні);
+     *                           false - всі вузли створюються одразу під час парсингу
+     */
+    public DomGemParser(boolean deferNodeExpansion) {
+        this(deferNodeExpansion, null);
+    }
+
+    public DomGemParser(ForkJoinPool pool) {
+        this(true, pool);
+    }
+
+    /**
+     * @param pool пул для паралельного перетворення в об'єкти Gem; null - все в потоці виклику
+     */
+    public DomGemParser(boolean deferNodeExpansion, ForkJoinPool pool) {
+        this.documentBuilders = ParserFactories.documentBuilders(deferNodeExpansion);
+        this.pool = pool;
+    }
+
+    /**
+     * Спільні екземпляри для повторюваних назв, походжень і visualParameters (GemCanonicalizer);
+     * null - вимкнено (за замовчуванням)
+     */
+    public void setCanonicalizer(GemCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
     @Override
     public List<Gem> parse(String xmlFilePath) throws Exception {
         logger.info("Starting DOM parsing of file: {}", xmlFilePath);
         
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new File(xmlFilePath));
-        
-        document.getDocumentElement().normalize();
+        DocumentBuilder builder = documentBuilders.acquire();
+        Document document;
+        try {
+            document = builder.parse(new File(xmlFilePath));
+        } finally {
+            documentBuilders.release(builder);
+        }
         
-        List<Gem> gems = new ArrayList<>();
+        // normalize() тут не потрібен: текст елемента збирає getTextContent, навіть якщо він розбитий на кілька вузлів
+        // Дерево Xerces не можна читати з кількох потоків (навіть читання змінює його внутрішні кеші),
+        // тому текст усіх полів збираємо тут, в одному потоці, а перетворення в об'єкти вже можна робити паралельно
+        List<GemFields> fields = new ArrayList<>();
         NodeList gemNodes = document.getElementsByTagNameNS(ParserConstants.NAMESPACE, "gem");
         
         for (int i = 0; i < gemNodes.getLength(); i++) {
             Node gemNode = gemNodes.item(i);
             if (gemNode.getNodeType() == Node.ELEMENT_NODE) {
-                Gem gem = parseGemElement((Element) gemNode);
-                gems.add(gem);
+                fields.add(readGemElement((Element) gemNode));
             }
         }
         
+        List<Gem> gems = pool == null || fields.size() < 2 * MIN_CHUNK_SIZE
+            ? toGems(fields, 0, fields.size(), canonicalizer)
+            : toGemsInParallel(fields);
+        
         logger.info("DOM parsing completed. Found {} gems", gems.size());
         return gems;
     }
 
-    private Gem parseGemElement(Element gemElement) {
-        Gem gem = new Gem();
-        
-        gem.setId(gemElement.getAttribute("id"));
-        
-        gem.setName(getElementText(gemElement, "name"));
-        gem.setPreciousness(Preciousness.fromString(getElementText(gemElement, "preciousness")));
-        gem.setOrigin(getElementText(gemElement, "origin"));
-        gem.setValue(new BigDecimal(getElementText(gemElement, "value")));
-        
-        NodeList visualParamsNodes = gemElement.getElementsByTagNameNS(ParserConstants.NAMESPACE, "visualParameters");
-        List<VisualParameters> visualParamsList = new ArrayList<>();
-        
-        for (int i = 0; i < visualParamsNodes.getLength(); i++) {
-            Element visualParamsElement = (Element) visualParamsNodes.item(i);
-            VisualParameters visualParams = parseVisualParameters(visualParamsElement);
-            visualParamsList.add(visualParams);
+    /**
+     * Ділимо камені на шматки і перетворюємо їх в пулі; результати складаємо в порядку документа
+     */
+    private List<Gem> toGemsInParallel(List<GemFields> fields) throws Exception {
+        int chunks = Math.max(1, Math.min(fields.size() / MIN_CHUNK_SIZE, pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<ForkJoinTask<List<Gem>>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) fields.size() * i / chunks);
+            int to = (int) ((long) fields.size() * (i + 1) / chunks);
+            tasks.add(pool.submit(() -> toGems(fields, from, to, canonicalizer)));
         }
         
-        gem.setVisualParameters(visualParamsList);
-        
-        return gem;
+        List<Gem> gems = new ArrayList<>(fields.size());
+        try {
+            for (ForkJoinTask<List<Gem>> task : tasks) {
+                gems.addAll(ParallelGemParser.join(task));
+            }
+        } finally {
+            for (ForkJoinTask<List<Gem>> task : tasks) {
+                task.cancel(true);
+            }
+        }
+        return gems;
     }
 
-    private VisualParameters parseVisualParameters(Element visualParamsElement) {
-        VisualParameters visualParams = new VisualParameters();
+    private static List<Gem> toGems(List<GemFields> fields, int from, int to, GemCanonicalizer canonicalizer) {
+        List<Gem> gems = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Gem gem = fields.get(i).toGem();
+            gems.add(canonicalizer == null ? gem : canonicalizer.canonicalize(gem));
+        }
+        return gems;
+    }
+
+    private GemFields readGemElement(Element gemElement) {
+        // Один прохід по дочірніх елементах; перше входження поля виграє
+        String name = null;
+        String preciousness = null;
+        String origin = null;
+        String value = null;
+        List<VisualFields> visualParams = new ArrayList<>();
         
-        NodeList colorNodes = visualParamsElement.getElementsByTagNameNS(ParserConstants.NAMESPACE, "color");
-        List<Color> colors = new ArrayList<>();
-        for (int i = 0; i < colorNodes.getLength(); i++) {
-            String colorText = colorNodes.item(i).getTextContent().trim();
-            colors.add(Color.fromString(colorText));
+        for (Node child = gemElement.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!isGemsElement(child)) {
+                continue;
+            }
+            switch (child.getLocalName()) {
+                case "name":
+                    name = name != null ? name : text(child);
+                    break;
+                case "preciousness":
+                    preciousness = preciousness != null ? preciousness : text(child);
+                    break;
+                case "origin":
+                    origin = origin != null ? origin : text(child);
+                    break;
+                case "value":
+                    value = value != null ? value : text(child);
+                    break;
+                case "visualParameters":
+                    visualParams.add(readVisualParameters(child));
+                    break;
+                default:
+                    break;
+            }
         }
-        visualParams.setColors(colors);
         
-        String transparencyText = getElementText(visualParamsElement, "transparency");
-        visualParams.setTransparency(new BigDecimal(transparencyText));
+        return new GemFields(gemElement.getAttribute("id"), name, preciousness, origin, value, visualParams);
+    }
+
+    private VisualFields readVisualParameters(Node visualParamsElement) {
+        List<String> colors = new ArrayList<>();
+        String transparency = null;
+        String facets = null;
         
-        String facetsText = getElementText(visualParamsElement, "facets");
-        visualParams.setFacets(Integer.parseInt(facetsText));
+        for (Node child = visualParamsElement.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!isGemsElement(child)) {
+                continue;
+            }
+            switch (child.getLocalName()) {
+                case "color":
+                    colors.add(text(child));
+                    break;
+                case "transparency":
+                    transparency = transparency != null ? transparency : text(child);
+                    break;
+                case "facets":
+                    facets = facets != null ? facets : text(child);
+                    break;
+                default:
+                    break;
+            }
+        }
         
-        return visualParams;
+        return new VisualFields(colors, transparency, facets);
+    }
+
+    private static boolean isGemsElement(Node node) {
+        return node.getNodeType() == Node.ELEMENT_NODE && ParserConstants.NAMESPACE.equals(node.getNamespaceURI());
+    }
+
+    private static String text(Node element) {
+        return element.getTextContent().trim();
+    }
+
+    private static String orEmpty(String text) {
+        return text != null ? text : "";
     }
 
-    private String getElementText(Element parent, String tagName) {
-        NodeList nodes = parent.getElementsByTagNameNS(ParserConstants.NAMESPACE, tagName);
-        if (nodes.getLength() > 0) {
-            return nodes.item(0).getTextContent().trim();
+    /**
+     * Текст полів одного каменя, знятий з DOM дерева
+     * Незмінний і не посилається на вузли DOM, тому його можна віддати в інший потік
+     */
+    private static final class GemFields {
+        private final String id;
+        private final String name;
+        private final String preciousness;
+        private final String origin;
+        private final String value;
+        private final List<VisualFields> visualParams;
+
+        GemFields(String id, String name, String preciousness, String origin, String value,
+                  List<VisualFields> visualParams) {
+            this.id = id;
+            this.name = name;
+            this.preciousness = preciousness;
+            this.origin = origin;
+            this.value = value;
+            this.visualParams = visualParams;
+        }
+
+        Gem toGem() {
+            Gem gem = new Gem();
+            gem.setId(id);
+            // Відсутнє поле - порожній рядок, як і раніше (для обов'язкових полів це дасть помилку перетворення)
+            gem.setName(orEmpty(name));
+            gem.setPreciousness(Preciousness.fromString(orEmpty(preciousness)));
+            gem.setOrigin(orEmpty(origin));
+            gem.parseValue(orEmpty(value));
+            List<VisualParameters> visualParamsList = new ArrayList<>(visualParams.size());
+            for (VisualFields visual : visualParams) {
+                visualParamsList.add(visual.toVisualParameters());
+            }
+            gem.setVisualParameters(visualParamsList);
+            return gem;
         }
-        return "";
     }
-}
 
+    private static final class VisualFields {
+        private final List<String> colors;
+        private final String transparency;
+        private final String facets;
+
+        VisualFields(List<String> colors, String transparency, String facets) {
+            this.colors = colors;
+            this.transparency = transparency;
+            this.facets = facets;
+        }
+
+        VisualParameters toVisualParameters() {
+            VisualParameters visualParams = new VisualParameters();
+            for (String color : colors) {
+                visualParams.addColor(Color.fromString(color));
+            }
+            visualParams.parseTransparency(orEmpty(transparency));
+            visualParams.parseFacets(orEmpty(facets));
+            return visualParams;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Байтова "розмітка" файлу каменів: пролог, відкриваючий тег кореня Gem та межі його вмісту
+ * Потрібна щоб різати великий файл на шматки по межах gem без повного парсингу
+ * Підтримуються тільки ASCII-сумісні кодування і документи без DOCTYPE, інакше detect повертає null
+ */
+final class GemDocumentLayout {
+    private static final int HEAD_LIMIT = 1 << 20;
+    private static final int WINDOW_SIZE = 1 << 16;
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+    // Розмітка, всередині якої "<gem" - просто текст: коментар, CDATA та інструкція обробки
+    private static final byte[] COMMENT_START = "<!--".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_END = "-->".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_START = "<![CDATA[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_END = "]]>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PI_START = "<?".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PI_END = "?>".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] segmentPrefix;
+    private final byte[] segmentSuffix;
+    private final byte[] gemTag;
+    private final long contentStart;
+    private final long contentEnd;
+
+    private GemDocumentLayout(byte[] segmentPrefix, byte[] segmentSuffix, byte[] gemTag,
+                              long contentStart, long contentEnd) {
+        this.segmentPrefix = segmentPrefix;
+        this.segmentSuffix = segmentSuffix;
+        this.gemTag = gemTag;
+        this.contentStart = contentStart;
+        this.contentEnd = contentEnd;
+    }
+
+    /**
+     * Пролог разом з відкриваючим тегом кореня - з нього починається кожен шматок,
+     * тому всі оголошення namespace з кореня діють і всередині шматка
+     */
+    byte[] getSegmentPrefix() {
+        return segmentPrefix;
+    }
+
+    /**
+     * Закриваючий тег кореня, яким завершується кожен шматок
+     */
+    byte[] getSegmentSuffix() {
+        return segmentSuffix;
+    }
+
+    long getContentStart() {
+        return contentStart;
+    }
+
+    long getContentEnd() {
+        return contentEnd;
+    }
+
+    static GemDocumentLayout detect(FileChannel channel) throws IOException {
+        long size = channel.size();
+        byte[] head = read(channel, 0, (int) Math.min(size, HEAD_LIMIT));
+
+        int pos = 0;
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            pos = 3;
+        }
+
+        // Пропускаємо XML декларацію, коментарі та інструкції обробки до кореня
+        while (true) {
+            pos = skipWhitespace(head, pos);
+            if (pos >= head.length) {
+                return null;
+            }
+            if (startsWith(head, pos, "<?")) {
+                int end = indexOf(head, "?>".getBytes(StandardCharsets.US_ASCII), pos);
+                if (end < 0) {
+                    return null;
+                }
+                if (startsWith(head, pos, "<?xml") && !isSupportedEncoding(head, pos, end)) {
+                    return null;
+                }
+                pos = end + 2;
+            } else if (startsWith(head, pos, "<!--")) {
+                int end = indexOf(head, "-->".getBytes(StandardCharsets.US_ASCII), pos);
+                if (end < 0) {
+                    return null;
+                }
+                pos = end + 3;
+            } else if (startsWith(head, pos, "<!")) {
+                // DOCTYPE може оголошувати сутності - такі файли не ріжемо
+                return null;
+            } else if (head[pos] == '<') {
+                break;
+            } else {
+                return null;
+            }
+        }
+
+        int rootStart = pos;
+        int nameEnd = rootStart + 1;
+        while (nameEnd < head.length && !isWhitespace(head[nameEnd]) && head[nameEnd] != '>' && head[nameEnd] != '/') {
+            nameEnd++;
+        }
+        String rootName = new String(head, rootStart + 1, nameEnd - rootStart - 1, StandardCharsets.UTF_8);
+
+        int tagEnd = nameEnd;
+        byte quote = 0;
+        while (tagEnd < head.length) {
+            byte b = head[tagEnd];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                break;
+            }
+            tagEnd++;
+        }
+        if (tagEnd >= head.length || head[tagEnd - 1] == '/') {
+            return null;
+        }
+        long contentStart = tagEnd + 1;
+
+        byte[] endTag = ("</" + rootName).getBytes(StandardCharsets.UTF_8);
+        long tailStart = Math.max(contentStart, size - WINDOW_SIZE);
+        byte[] tail = read(channel, tailStart, (int) (size - tailStart));
+        int endIndex = lastIndexOfEndTag(tail, endTag);
+        if (endIndex < 0) {
+            return null;
+        }
+
+        int colon = rootName.indexOf(':');
+        String prefix = colon >= 0 ? rootName.substring(0, colon + 1) : "";
+
+        return new GemDocumentLayout(
+            Arrays.copyOf(head, (int) contentStart),
+            ("</" + rootName + ">").getBytes(StandardCharsets.UTF_8),
+            ("<" + prefix + "gem").getBytes(StandardCharsets.UTF_8),
+            contentStart,
+            tailStart + endIndex);
+    }
+
+    /**
+     * Шукаємо початок першого елемента gem, що стоїть не раніше target
+     * "<gem" всередині коментаря, CDATA чи інструкції обробки - не елемент, а чи потрапив target
+     * всередину такої розмітки, видно тільки пройшовши файл від місця, де її точно немає.
+     * Тому сканування йде від from - початку вмісту кореня або попередньої межі (початку іншого gem)
+     * @return позиція символу '<' або to, якщо елемента немає
+     */
+    long findGemStart(FileChannel channel, long from, long target, long to) throws IOException {
+        // Скільки байтів після '<' треба бачити, щоб розпізнати будь-який з початків
+        int lookahead = Math.max(CDATA_START.length, gemTag.length + 1);
+        // Кінець розмітки, всередині якої ми зараз; null - звичайний вміст
+        byte[] closing = null;
+        long windowStart = from;
+        while (windowStart < to) {
+            int length = (int) Math.min(WINDOW_SIZE, to - windowStart);
+            byte[] window = read(channel, windowStart, length);
+            boolean last = windowStart + length >= to;
+            // Байти ближче lookahead до кінця вікна розбираємо вже в наступному вікні
+            int limit = last ? window.length : window.length - lookahead;
+            int i = 0;
+            while (i < limit) {
+                if (closing != null) {
+                    if (matches(window, i, closing)) {
+                        i += closing.length;
+                        closing = null;
+                    } else {
+                        i++;
+                    }
+                } else if (window[i] != '<') {
+                    i++;
+                } else if (matches(window, i, COMMENT_START)) {
+                    closing = COMMENT_END;
+                    i += COMMENT_START.length;
+                } else if (matches(window, i, CDATA_START)) {
+                    closing = CDATA_END;
+                    i += CDATA_START.length;
+                } else if (matches(window, i, PI_START)) {
+                    closing = PI_END;
+                    i += PI_START.length;
+                } else if (windowStart + i >= target && matches(window, i, gemTag)
+                           && i + gemTag.length < window.length && isTagNameEnd(window[i + gemTag.length])) {
+                    return windowStart + i;
+                } else {
+                    i++;
+                }
+            }
+            if (last) {
+                break;
+            }
+            windowStart += i;
+        }
+        return to;
+    }
+
+    private static boolean isSupportedEncoding(byte[] head, int start, int end) {
+        String declaration = new String(head, start, end - start, StandardCharsets.US_ASCII);
+        Matcher matcher = ENCODING.matcher(declaration);
+        if (!matcher.find()) {
+            return true;
+        }
+        String encoding = matcher.group(1).toUpperCase(Locale.ROOT);
+        return encoding.equals("UTF-8") || encoding.equals("US-ASCII") || encoding.equals("ISO-8859-1");
+    }
+
+    private static int lastIndexOfEndTag(byte[] tail, byte[] endTag) {
+        for (int i = tail.length - endTag.length; i >= 0; i--) {
+            if (matches(tail, i, endTag)) {
+                int after = skipWhitespace(tail, i + endTag.length);
+                if (after < tail.length && tail[after] == '>') {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        for (int i = from; i + pattern.length <= data.length; i++) {
+            if (matches(data, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] data, int offset, byte[] pattern) {
+        if (offset + pattern.length > data.length) {
+            return false;
+        }
+        for (int j = 0; j < pattern.length; j++) {
+            if (data[offset + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        return matches(data, offset, prefix.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static int skipWhitespace(byte[] data, int pos) {
+        while (pos < data.length && isWhitespace(data[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isTagNameEnd(byte b) {
+        return isWhitespace(b) || b == '>' || b == '/';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
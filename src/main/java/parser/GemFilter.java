@@ -0,0 +1,127 @@
+package parser;
+
+import model.Gem;
+import model.Preciousness;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Фільтр каменів, який потоковий парсер може перевірити ще до кінця каменя
+ *
+ * За схемою name, preciousness і origin (і атрибут id) йдуть на початку каменя, перед visualParameters,
+ * тому умову на ці поля ("ранню") парсер перевіряє, як тільки прочитав потрібні поля,
+ * і камінь, що не підходить, пропускає без створення visualParameters і решти об'єктів
+ * Довільна умова на весь камінь (where) перевіряється вже на готовому камені
+ *
+ * GemFilter filter = GemFilter.preciousness(Preciousness.PRECIOUS).and(GemFilter.origin("Colombia"));
+ * parser.parse("gems.xml", filter, gems::add);
+ */
+public final class GemFilter {
+    // Поля початку каменя, від яких залежить рання умова
+    static final int ID = 1;
+    static final int NAME = 1 << 1;
+    static final int PRECIOUSNESS = 1 << 2;
+    static final int ORIGIN = 1 << 3;
+
+    private final int fields;
+    // Умова на поля fields; null - завжди true
+    private final Predicate<Gem> early;
+    // Умова на готовий камінь; null - завжди true
+    private final Predicate<Gem> late;
+
+    private GemFilter(int fields, Predicate<Gem> early, Predicate<Gem> late) {
+        this.fields = fields;
+        this.early = early;
+        this.late = late;
+    }
+
+    public static GemFilter id(String id) {
+        return new GemFilter(ID, gem -> Objects.equals(id, gem.getId()), null);
+    }
+
+    public static GemFilter name(String name) {
+        return new GemFilter(NAME, gem -> Objects.equals(name, gem.getName()), null);
+    }
+
+    public static GemFilter preciousness(Preciousness preciousness) {
+        return new GemFilter(PRECIOUSNESS, gem -> gem.getPreciousness() == preciousness, null);
+    }
+
+    public static GemFilter origin(String origin) {
+        return new GemFilter(ORIGIN, gem -> Objects.equals(origin, gem.getOrigin()), null);
+    }
+
+    /**
+     * Будь-яка умова на весь камінь - перевіряється на готовому камені, без раннього пропуску
+     */
+    public static GemFilter where(Predicate<Gem> predicate) {
+        return new GemFilter(0, null, predicate);
+    }
+
+    /**
+     * Обидві умови; ранні частини обох лишаються ранніми
+     */
+    public GemFilter and(GemFilter other) {
+        return new GemFilter(fields | other.fields, both(early, other.early), both(late, other.late));
+    }
+
+    public GemFilter or(GemFilter other) {
+        if (late == null && other.late == null) {
+            return new GemFilter(fields | other.fields, either(early, other.early), null);
+        }
+        // Змішане "або" на ранню і пізню частини не розкладається - перевіряємо на готовому камені
+        return where(gem -> test(gem) || other.test(gem));
+    }
+
+    public GemFilter negate() {
+        if (late == null) {
+            return new GemFilter(fields, early == null ? gem -> false : early.negate(), null);
+        }
+        return where(gem -> !test(gem));
+    }
+
+    /**
+     * Перевірка готового каменя (так фільтрують парсери без раннього пропуску)
+     */
+    public boolean test(Gem gem) {
+        return acceptsHeader(gem) && acceptsGem(gem);
+    }
+
+    /**
+     * Які поля початку каменя потрібні ранній умові
+     */
+    int requiredFields() {
+        return fields;
+    }
+
+    /**
+     * Чи можна вже вирішити по прочитаних полях (seenFields - набір ID, NAME, ...)
+     */
+    boolean canDecide(int seenFields) {
+        return (seenFields & fields) == fields;
+    }
+
+    /**
+     * Рання умова по полях початку каменя (поля, яких не було в документі, - null)
+     */
+    boolean acceptsHeader(Gem gem) {
+        return early == null || early.test(gem);
+    }
+
+    /**
+     * Пізня умова на весь камінь
+     */
+    boolean acceptsGem(Gem gem) {
+        return late == null || late.test(gem);
+    }
+
+    private static Predicate<Gem> both(Predicate<Gem> a, Predicate<Gem> b) {
+        return a == null ? b : b == null ? a : a.and(b);
+    }
+
+    private static Predicate<Gem> either(Predicate<Gem> a, Predicate<Gem> b) {
+        // null - це "завжди true", тому і "або" з ним завжди true
+        return a == null || b == null ? null : a.or(b);
+    }
+}
@@ -0,0 +1,20 @@
+package parser;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Помилка розбору XML там, де перевірений виняток кинути не можна (наприклад в Stream з StaxGemParser.stream)
+ * Як UncheckedIOException для IOException: сама помилка парсера - одразу в getCause()
+ */
+public class GemParseException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public GemParseException(XMLStreamException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized XMLStreamException getCause() {
+        return (XMLStreamException) super.getCause();
+    }
+}
@@ -0,0 +1,33 @@
+package parser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Спосіб читання XML файлу парсерами
+ */
+public enum InputMode {
+    /**
+     * Звичайне читання через FileInputStream / File (як було завжди)
+     */
+    STREAM {
+        @Override
+        InputStream open(String xmlFilePath) throws IOException {
+            return new FileInputStream(xmlFilePath);
+        }
+    },
+
+    /**
+     * Файл відображається в пам'ять через FileChannel.map і читається прямо з відображеного буфера
+     * Великі файли (більше 2 ГБ) відображаються вікнами по черзі
+     */
+    MAPPED {
+        @Override
+        InputStream open(String xmlFilePath) throws IOException {
+            return new MappedFileInputStream(xmlFilePath);
+        }
+    };
+
+    abstract InputStream open(String xmlFilePath) throws IOException;
+}
@@ -0,0 +1,106 @@
+package parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Потік, що читає файл через відображення в пам'ять (FileChannel.map)
+ * Один MappedByteBuffer не може бути більшим за 2 ГБ, тому файл відображається вікнами:
+ * коли поточне вікно прочитано, відображаємо наступне
+ */
+class MappedFileInputStream extends InputStream {
+    static final long DEFAULT_WINDOW_SIZE = 256L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    MappedFileInputStream(String filePath) throws IOException {
+        this(filePath, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(String filePath, long windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid window size: " + windowSize);
+        }
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = position();
+        long skipped = Math.min(n, size - position);
+        long target = position + skipped;
+        if (window != null && target < windowStart + window.limit()) {
+            window.position((int) (target - windowStart));
+        } else {
+            windowStart = target;
+            window = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private long position() {
+        return window == null ? windowStart : windowStart + window.position();
+    }
+
+    /**
+     * Відображаємо наступне вікно, якщо поточне вже прочитано
+     * @return false якщо файл закінчився
+     */
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        long next = position();
+        if (next >= size) {
+            return false;
+        }
+        windowStart = next;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, size - windowStart));
+        return true;
+    }
+}
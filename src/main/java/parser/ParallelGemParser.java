@@ -0,0 +1,194 @@
+package parser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Gem;
+import model.GemCanonicalizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Паралельний парсер для великих файлів
+ * Файл ріжеться на шматки по межах елементів gem всередині кореня Gem,
+ * кожен шматок обгортається відкриваючим/закриваючим тегом кореня (разом з його namespace)
+ * і парситься StAX парсером в ForkJoinPool. Результат віддається в порядку документа.
+ * Якщо файл малий або його структуру не вдалося розпізнати - парсимо звичайним StaxGemParser
+ */
+public class ParallelGemParser implements StreamingGemParser {
+    private static final Logger logger = LogManager.getLogger(ParallelGemParser.class);
+
+    private static final long DEFAULT_MIN_SEGMENT_SIZE = 4L << 20;
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final long minSegmentSize;
+    private final StaxGemParser staxParser = new StaxGemParser();
+
+    public ParallelGemParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelGemParser(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param pool пул, в якому парсяться шматки
+     * @param minSegmentSize мінімальний розмір шматка в байтах; файли менші за два шматки парсяться в одному потоці
+     */
+    public ParallelGemParser(ForkJoinPool pool, long minSegmentSize) {
+        if (minSegmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + minSegmentSize);
+        }
+        this.pool = pool;
+        this.minSegmentSize = minSegmentSize;
+    }
+
+    /**
+     * Спільні екземпляри для повторюваних назв, походжень і visualParameters (GemCanonicalizer);
+     * null - вимкнено (за замовчуванням)
+     */
+    public void setCanonicalizer(GemCanonicalizer canonicalizer) {
+        // Шматки парсить StAX в потоках пулу - там же камені і канонізуються
+        staxParser.setCanonicalizer(canonicalizer);
+    }
+
+    @Override
+    public void parse(String xmlFilePath, Consumer<Gem> consumer) throws Exception {
+        parse(xmlFilePath, null, consumer);
+    }
+
+    /**
+     * Фільтр передається в StAX кожного шматка, тому камені, що не підходять, пропускаються
+     * ще в потоках пулу; умови фільтра викликаються з кількох потоків одночасно
+     * @param filter фільтр; null - всі камені
+     */
+    @Override
+    public void parse(String xmlFilePath, GemFilter filter, Consumer<Gem> consumer) throws Exception {
+        logger.info("Starting parallel parsing of file: {}", xmlFilePath);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(xmlFilePath), StandardOpenOption.READ)) {
+            GemDocumentLayout layout = GemDocumentLayout.detect(channel);
+            long contentLength = layout == null ? 0 : layout.getContentEnd() - layout.getContentStart();
+
+            if (layout == null || contentLength < 2 * minSegmentSize) {
+                logger.debug("File {} is not split, falling back to StAX", xmlFilePath);
+                staxParser.parse(xmlFilePath, filter, consumer);
+                return;
+            }
+
+            long[] boundaries = findBoundaries(channel, layout, contentLength);
+            int gemCount = parseSegments(channel, layout, boundaries, filter, consumer);
+            logger.info("Parallel parsing completed. Found {} gems in {} segments", gemCount, boundaries.length - 1);
+        }
+    }
+
+    /**
+     * Межі шматків: кожна внутрішня межа стоїть на '<' якогось елемента gem
+     * Кожен пошук починається з попередньої межі, тож разом вони один раз проходять вміст файлу
+     * (звичайне порівняння байтів, без розбору XML) - так "<gem" в коментарях і CDATA не стане межею
+     */
+    private long[] findBoundaries(FileChannel channel, GemDocumentLayout layout, long contentLength) throws Exception {
+        int segments = (int) Math.min(contentLength / minSegmentSize,
+                                      (long) pool.getParallelism() * SEGMENTS_PER_THREAD);
+        segments = Math.max(1, segments);
+
+        long[] boundaries = new long[segments + 1];
+        int count = 0;
+        boundaries[count++] = layout.getContentStart();
+        for (int i = 1; i < segments; i++) {
+            long target = layout.getContentStart() + contentLength * i / segments;
+            long previous = boundaries[count - 1];
+            if (target <= previous) {
+                continue;
+            }
+            long boundary = layout.findGemStart(channel, previous, target, layout.getContentEnd());
+            if (boundary > previous && boundary < layout.getContentEnd()) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = layout.getContentEnd();
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Запускаємо шматки в пулі, тримаючи в роботі обмежену кількість, і віддаємо результати по порядку
+     */
+    private int parseSegments(FileChannel channel, GemDocumentLayout layout, long[] boundaries,
+                              GemFilter filter, Consumer<Gem> consumer) throws Exception {
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<List<Gem>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        int gemCount = 0;
+
+        try {
+            while (next < boundaries.length - 1 || !inFlight.isEmpty()) {
+                while (next < boundaries.length - 1 && inFlight.size() < maxInFlight) {
+                    long start = boundaries[next];
+                    long end = boundaries[next + 1];
+                    inFlight.addLast(pool.submit(() -> parseSegment(channel, layout, start, end, filter)));
+                    next++;
+                }
+
+                List<Gem> gems = join(inFlight.removeFirst());
+                for (Gem gem : gems) {
+                    consumer.accept(gem);
+                }
+                gemCount += gems.size();
+            }
+        } finally {
+            for (ForkJoinTask<List<Gem>> task : inFlight) {
+                task.cancel(true);
+            }
+        }
+        return gemCount;
+    }
+
+    private List<Gem> parseSegment(FileChannel channel, GemDocumentLayout layout, long start, long end,
+                                   GemFilter filter) throws Exception {
+        InputStream segment = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+            new ByteArrayInputStream(layout.getSegmentPrefix()),
+            new FileRangeInputStream(channel, start, end),
+            new ByteArrayInputStream(layout.getSegmentSuffix()))));
+
+        List<Gem> gems = new ArrayList<>();
+        staxParser.parse(segment, filter, gems::add);
+        return gems;
+    }
+
+    /**
+     * Чекаємо результат задачі і розгортаємо ExecutionException в справжню причину
+     * ForkJoinPool.submit(Callable) загортає перевірений виняток (наприклад XMLStreamException)
+     * в RuntimeException, а get() в іншому потоці ще раз копіює його в новий RuntimeException -
+     * ці обгортки знімаємо, щоб виклик кидав той самий виняток, що і StaxGemParser
+     */
+    static List<Gem> join(ForkJoinTask<List<Gem>> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause != null && cause.getClass() == RuntimeException.class && cause.getCause() instanceof Exception) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package parser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.validation.Schema;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Спільні фабрики парсерів
+ * newInstance() кожного разу шукає реалізацію через ServiceLoader і це дорого,
+ * тому фабрики створюються один раз, а самі парсери перевикористовуються в межах потоку
+ *
+ * Парсер береться через acquire...() і обов'язково повертається через release(...) -
+ * так вкладений parse в тому ж потоці (наприклад з consumer'а) отримає окремий екземпляр
+ */
+final class ParserFactories {
+    private static final Logger logger = LogManager.getLogger(ParserFactories.class);
+
+    private static final SaxParserPool SAX_PARSERS = new SaxParserPool(null);
+    // Валідуючі пули по схемах; Schema порівнюється за посиланням, а XmlValidator і так віддає
+    // одну скомпільовану схему на файл. Кількість обмежена, щоб схеми, скомпільовані вручну щоразу
+    // заново, не накопичувались назавжди
+    private static final int MAX_SCHEMA_POOLS = 16;
+    private static final ConcurrentMap<Schema, SaxParserPool> VALIDATING_SAX_PARSERS = new ConcurrentHashMap<>();
+    // Xerces за замовчуванням будує DOM з відкладеним розгортанням вузлів, тому пул з ним - основний
+    private static final DocumentBuilderPool DEFERRED_DOCUMENT_BUILDERS = new DocumentBuilderPool(true);
+    private static final DocumentBuilderPool EXPANDED_DOCUMENT_BUILDERS = new DocumentBuilderPool(false);
+    // Фабрика StAX після налаштування безпечна для одночасного створення reader'ів з різних потоків
+    private static final XMLInputFactory STAX_FACTORY = XMLInputFactory.newInstance();
+
+    private ParserFactories() {
+    }
+
+    static XMLInputFactory inputFactory() {
+        return STAX_FACTORY;
+    }
+
+    /**
+     * Пул звичайних (не валідуючих) SAX парсерів
+     */
+    static SaxParserPool saxParsers() {
+        return SAX_PARSERS;
+    }
+
+    /**
+     * Пул SAX парсерів, що валідують за схемою; для тієї ж схеми - той самий пул
+     * @param schema схема; null - звичайний пул
+     */
+    static SaxParserPool saxParsers(Schema schema) {
+        if (schema == null) {
+            return SAX_PARSERS;
+        }
+        SaxParserPool pool = VALIDATING_SAX_PARSERS.get(schema);
+        if (pool != null) {
+            return pool;
+        }
+        if (VALIDATING_SAX_PARSERS.size() >= MAX_SCHEMA_POOLS) {
+            return new SaxParserPool(schema);
+        }
+        return VALIDATING_SAX_PARSERS.computeIfAbsent(schema, SaxParserPool::new);
+    }
+
+    static SAXParser acquireSaxParser() throws ParserConfigurationException, SAXException {
+        return SAX_PARSERS.acquire();
+    }
+
+    static void release(SAXParser parser) {
+        SAX_PARSERS.release(parser);
+    }
+
+    /**
+     * Пул DOM парсерів
+     * @param deferNodeExpansion чи будувати дерево з відкладеним розгортанням вузлів
+     */
+    static DocumentBuilderPool documentBuilders(boolean deferNodeExpansion) {
+        return deferNodeExpansion ? DEFERRED_DOCUMENT_BUILDERS : EXPANDED_DOCUMENT_BUILDERS;
+    }
+
+    static DocumentBuilder acquireDocumentBuilder() throws ParserConfigurationException {
+        return DEFERRED_DOCUMENT_BUILDERS.acquire();
+    }
+
+    static void release(DocumentBuilder builder) {
+        DEFERRED_DOCUMENT_BUILDERS.release(builder);
+    }
+
+    /**
+     * Фабрика DOM парсерів (з namespace) і по одному парсеру на потік
+     * З відкладеним розгортанням (deferred node expansion) Xerces спочатку складає документ
+     * в компактні масиви, а об'єкти вузлів створює тільки коли до них звертаються
+     */
+    static final class DocumentBuilderPool {
+        private static final String DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+
+        private final DocumentBuilderFactory factory;
+        private final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<>();
+
+        DocumentBuilderPool(boolean deferNodeExpansion) {
+            factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            try {
+                factory.setFeature(DEFER_NODE_EXPANSION, deferNodeExpansion);
+            } catch (ParserConfigurationException e) {
+                // Інша реалізація DOM може не знати цієї опції - тоді просто працюємо з її налаштуваннями
+                logger.debug("DOM implementation does not support {}: {}", DEFER_NODE_EXPANSION, e.getMessage());
+            }
+        }
+
+        DocumentBuilder acquire() throws ParserConfigurationException {
+            DocumentBuilder builder = builders.get();
+            if (builder != null) {
+                builders.set(null);
+                return builder;
+            }
+            // Самі фабрики JAXP не потокобезпечні, тому створення парсера синхронізуємо
+            synchronized (factory) {
+                return factory.newDocumentBuilder();
+            }
+        }
+
+        void release(DocumentBuilder builder) {
+            builder.reset();
+            builders.set(builder);
+        }
+    }
+
+    /**
+     * Фабрика SAX парсерів (з namespace) і по одному парсеру на потік
+     * Якщо передано Schema - парсери валідують документ прямо під час парсингу
+     */
+    static final class SaxParserPool {
+        private final SAXParserFactory factory;
+        private final ThreadLocal<SAXParser> parsers = new ThreadLocal<>();
+
+        SaxParserPool(Schema schema) {
+            factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            if (schema != null) {
+                factory.setSchema(schema);
+            }
+        }
+
+        SAXParser acquire() throws ParserConfigurationException, SAXException {
+            SAXParser parser = parsers.get();
+            if (parser != null) {
+                parsers.set(null);
+                return parser;
+            }
+            synchronized (factory) {
+                return factory.newSAXParser();
+            }
+        }
+
+        void release(SAXParser parser) {
+            parser.reset();
+            parsers.set(parser);
+        }
+    }
+}
@@ -4,52 +4,114 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import model.Color;
 import model.Gem;
+import model.GemCanonicalizer;
 import model.Preciousness;
 import model.VisualParameters;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.Schema;
 import java.io.File;
-import java.math.BigDecimal;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * SAX парсер для обробки XML файлів з інформацією про камені
  * SAX - це event-based парсер, тобто він викликає наші методи коли зустрічає елементи
  * Перевага: швидкий, не завантажує весь файл в пам'ять
  * Недолік: складніше працювати, бо не можна "прокрутити" назад
+ * Камені віддаються в consumer по одному, тому весь список в пам'яті тримати не обов'язково
+ * Якщо передати Schema - документ валідується за XSD в тому ж проході, що і парситься
  */
-public class SaxGemParser implements GemParser {
+public class SaxGemParser implements StreamingGemParser {
     private static final Logger logger = LogManager.getLogger(SaxGemParser.class);
 
+    private final InputMode inputMode; // як читаємо файл: звичайним потоком чи через відображення в пам'ять
+    private final ParserFactories.SaxParserPool saxParsers; // звідки беремо парсери (з валідацією чи без)
+    private GemCanonicalizer canonicalizer; // спільні екземпляри повторюваних значень; null - вимкнено
+
+    public SaxGemParser() {
+        this(InputMode.STREAM);
+    }
+
+    public SaxGemParser(InputMode inputMode) {
+        this(inputMode, null);
+    }
+
+    public SaxGemParser(Schema schema) {
+        this(InputMode.STREAM, schema);
+    }
+
+    /**
+     * @param inputMode як читаємо файл
+     * @param schema схема для валідації під час парсингу; null - без валідації
+     */
+    public SaxGemParser(InputMode inputMode, Schema schema) {
+        this.inputMode = inputMode;
+        // Для схеми потрібна окрема фабрика (setSchema діє на всі парсери, які вона створює),
+        // але спільна для всіх SaxGemParser з тією ж схемою
+        this.saxParsers = ParserFactories.saxParsers(schema);
+    }
+
+    /**
+     * Спільні екземпляри для повторюваних назв, походжень і visualParameters (GemCanonicalizer);
+     * null - вимкнено (за замовчуванням)
+     */
+    public void setCanonicalizer(GemCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
     /**
      * Парсимо XML файл за допомогою SAX парсера
+     * Кожен камінь передається в consumer як тільки парсер дійде до його закриваючого тегу
+     * В режимі валідації перша ж помилка схеми зупиняє парсинг з SAXParseException,
+     * але камені, які стояли в файлі до помилки, вже будуть віддані в consumer
      * @param xmlFilePath шлях до XML файлу
-     * @return список знайдених каменів
+     * @param consumer отримувач знайдених каменів
      */
     @Override
-    public List<Gem> parse(String xmlFilePath) throws Exception {
+    public void parse(String xmlFilePath, Consumer<Gem> consumer) throws Exception {
+        parse(xmlFilePath, null, consumer);
+    }
+
+    /**
+     * Парсимо тільки камені, що підходять під фільтр
+     * Коли рання умова фільтра не виконується, решта подій каменя ігнорується:
+     * visualParameters, кольори і текст не створюються (валідація за схемою при цьому працює як і раніше)
+     * @param filter фільтр; null - всі камені
+     */
+    @Override
+    public void parse(String xmlFilePath, GemFilter filter, Consumer<Gem> consumer) throws Exception {
         logger.info("Starting SAX parsing of file: {}", xmlFilePath);
         
-        // Створюємо фабрику для SAX парсера
-        // Фабрика потрібна щоб отримати екземпляр парсера
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        // Вказуємо що парсер повинен враховувати namespace
-        // Це важливо бо в нашому XML є namespace
-        factory.setNamespaceAware(true);
-        SAXParser saxParser = factory.newSAXParser();
+        // Беремо SAX парсер з кешу поточного потоку
+        // Фабрика (з увімкненим namespace) створюється один раз на всю програму,
+        // а парсер перевикористовується - так не платимо за newInstance() при кожному виклику
+        SAXParser saxParser = saxParsers.acquire();
         
         // Створюємо обробник подій - він буде викликатись коли парсер знаходить елементи
-        GemHandler handler = new GemHandler();
-        // Запускаємо парсинг - парсер буде викликати методи handler'а
-        saxParser.parse(new File(xmlFilePath), handler);
-        
-        // Після парсингу отримуємо список каменів з handler'а
-        List<Gem> gems = handler.getGems();
-        logger.info("SAX parsing completed. Found {} gems", gems.size());
+        GemHandler handler = new GemHandler(canonicalizer == null ? consumer : canonicalizer.wrap(consumer), filter);
+        try {
+            // Запускаємо парсинг - парсер буде викликати методи handler'а
+            if (inputMode == InputMode.STREAM) {
+                saxParser.parse(new File(xmlFilePath), handler);
+            } else {
+                // Файл читаємо з відображеного в пам'ять буфера
+                // systemId потрібен щоб в повідомленнях про помилки був шлях до файлу
+                try (InputStream inputStream = inputMode.open(xmlFilePath)) {
+                    InputSource source = new InputSource(inputStream);
+                    source.setSystemId(new File(xmlFilePath).toURI().toString());
+                    saxParser.parse(source, handler);
+                }
+            }
+        } finally {
+            // Повертаємо парсер в кеш (він скидається через reset) навіть якщо парсинг впав
+            saxParsers.release(saxParser);
+        }
         
-        return gems;
+        logger.info("SAX parsing completed. Found {} gems", handler.getGemCount());
     }
 
     /**
@@ -59,15 +121,20 @@ public class SaxGemParser implements GemParser {
      * Коли зустрічає кінець елемента - викликається endElement
      */
     private static class GemHandler extends org.xml.sax.helpers.DefaultHandler {
-        private List<Gem> gems; // тут зберігаємо всі знайдені камені
+        private final Consumer<Gem> consumer; // сюди віддаємо кожен готовий камінь
+        private int gemCount; // скільки каменів вже віддали
         private Gem currentGem; // поточний камінь який парсимо
         private VisualParameters currentVisualParams; // поточні візуальні параметри
         private StringBuilder currentText; // текст поточного елемента (може бути розбитий на частини)
         private boolean inVisualParameters; // прапорець чи ми зараз всередині visualParameters
-        private List<Color> currentColors; // кольори для поточних візуальних параметрів
+        private final GemFilter filter; // фільтр каменів; null - всі камені
+        private int seenFields; // які поля початку каменя вже прочитані (для ранньої умови фільтра)
+        private boolean decided = true; // чи рання умова фільтра для поточного каменя вже перевірена
+        private boolean skipping; // поточний камінь не підходить - ігноруємо всі події до його </gem>
 
-        public GemHandler() {
-            this.gems = new ArrayList<>();
+        public GemHandler(Consumer<Gem> consumer, GemFilter filter) {
+            this.consumer = consumer;
+            this.filter = filter;
             this.currentText = new StringBuilder();
         }
 
@@ -78,6 +145,9 @@ public class SaxGemParser implements GemParser {
         @Override
         public void startElement(String uri, String localName, String qName, 
                                  org.xml.sax.Attributes attributes) {
+            if (skipping) {
+                return;
+            }
             // Очищаємо текст попереднього елемента
             currentText.setLength(0);
             
@@ -90,12 +160,24 @@ public class SaxGemParser implements GemParser {
                 if (id != null) {
                     currentGem.setId(id);
                 }
-            } else if ("visualParameters".equals(localName) && ParserConstants.NAMESPACE.equals(uri)) {
+                seenFields = GemFilter.ID;
+                decided = filter == null;
+                decideIfReady();
+                return;
+            }
+            if (!decided && currentGem != null && ParserConstants.NAMESPACE.equals(uri)
+                    && ("visualParameters".equals(localName) || "value".equals(localName))) {
+                // Початок каменя закінчився - поля, яких не було, лишаються null
+                decide();
+                if (skipping) {
+                    return;
+                }
+            }
+            if ("visualParameters".equals(localName) && ParserConstants.NAMESPACE.equals(uri)) {
                 // Якщо знайшли visualParameters - встановлюємо прапорець
                 // і створюємо новий об'єкт для візуальних параметрів
                 inVisualParameters = true;
                 currentVisualParams = new VisualParameters();
-                currentColors = new ArrayList<>();
             }
         }
 
@@ -105,6 +187,9 @@ public class SaxGemParser implements GemParser {
          */
         @Override
         public void characters(char[] ch, int start, int length) {
+            if (skipping) {
+                return;
+            }
             currentText.append(ch, start, length);
         }
 
@@ -114,43 +199,61 @@ public class SaxGemParser implements GemParser {
          */
         @Override
         public void endElement(String uri, String localName, String qName) {
-            // Отримуємо весь текст елемента і прибираємо зайві пробіли
-            String text = currentText.toString().trim();
-            
+            // Рядок з тексту створюємо тільки для текстових полів - числа розбираються прямо з currentText
             // Перевіряємо namespace - якщо не наш, ігноруємо
             if (!ParserConstants.NAMESPACE.equals(uri)) {
                 return;
             }
+            if (skipping) {
+                // Пропущений камінь закінчився - далі знову звичайна обробка
+                if ("gem".equals(localName)) {
+                    skipping = false;
+                    currentGem = null;
+                }
+                return;
+            }
             
             // Обробляємо різні типи елементів
             switch (localName) {
                 case "gem":
-                    // Кінець елемента gem - додаємо камінь до списку
+                    // Кінець елемента gem - камінь готовий, одразу віддаємо його
                     if (currentGem != null) {
-                        gems.add(currentGem);
+                        if (!decided) {
+                            decide();
+                        }
+                        if (!skipping && (filter == null || filter.acceptsGem(currentGem))) {
+                            consumer.accept(currentGem);
+                            gemCount++;
+                        }
+                        skipping = false;
                         currentGem = null; // очищаємо поточний камінь
                     }
                     break;
                 case "name":
                     if (currentGem != null) {
-                        currentGem.setName(text);
+                        currentGem.setName(text());
+                        seenFields |= GemFilter.NAME;
+                        decideIfReady();
                     }
                     break;
                 case "preciousness":
                     if (currentGem != null) {
-                        // Використовуємо fromString щоб перетворити рядок в enum
-                        currentGem.setPreciousness(Preciousness.fromString(text));
+                        // parse перетворює текст в enum без створення рядка
+                        currentGem.setPreciousness(Preciousness.parse(currentText));
+                        seenFields |= GemFilter.PRECIOUSNESS;
+                        decideIfReady();
                     }
                     break;
                 case "origin":
                     if (currentGem != null) {
-                        currentGem.setOrigin(text);
+                        currentGem.setOrigin(text());
+                        seenFields |= GemFilter.ORIGIN;
+                        decideIfReady();
                     }
                     break;
                 case "visualParameters":
                     // Кінець visualParameters - додаємо до каменя
                     if (currentGem != null && currentVisualParams != null) {
-                        currentVisualParams.setColors(currentColors);
                         // Перевіряємо чи є вже список, якщо ні - створюємо
                         if (currentGem.getVisualParameters() == null) {
                             currentGem.setVisualParameters(new ArrayList<>());
@@ -158,38 +261,78 @@ public class SaxGemParser implements GemParser {
                         currentGem.getVisualParameters().add(currentVisualParams);
                         // Очищаємо поточні параметри
                         currentVisualParams = null;
-                        currentColors = null;
                         inVisualParameters = false;
                     }
                     break;
                 case "color":
                     // Колір може бути тільки всередині visualParameters
                     if (inVisualParameters && currentVisualParams != null) {
-                        currentColors.add(Color.fromString(text));
+                        currentVisualParams.addColor(Color.parse(currentText));
                     }
                     break;
                 case "transparency":
                     if (inVisualParameters && currentVisualParams != null) {
-                        // Парсимо BigDecimal з рядка
-                        currentVisualParams.setTransparency(new BigDecimal(text));
+                        // Число з фіксованою комою - без BigDecimal і без проміжного рядка
+                        currentVisualParams.parseTransparency(currentText);
                     }
                     break;
                 case "facets":
                     if (inVisualParameters && currentVisualParams != null) {
-                        // Парсимо int з рядка
-                        currentVisualParams.setFacets(Integer.parseInt(text));
+                        currentVisualParams.parseFacets(currentText);
                     }
                     break;
                 case "value":
                     if (currentGem != null) {
-                        currentGem.setValue(new BigDecimal(text));
+                        currentGem.parseValue(currentText);
                     }
                     break;
             }
         }
 
-        public List<Gem> getGems() {
-            return gems;
+        /**
+         * Перевіряємо ранню умову, якщо вже прочитані всі потрібні їй поля
+         */
+        private void decideIfReady() {
+            if (!decided && filter.canDecide(seenFields)) {
+                decide();
+            }
+        }
+
+        /**
+         * Рання умова по прочитаних полях; якщо камінь не підходить, решту його подій пропускаємо
+         */
+        private void decide() {
+            decided = true;
+            if (!filter.acceptsHeader(currentGem)) {
+                skipping = true;
+                currentVisualParams = null;
+                inVisualParameters = false;
+            }
+        }
+
+        /**
+         * Весь текст елемента без зайвих пробілів
+         */
+        private String text() {
+            return currentText.toString().trim();
+        }
+
+        /**
+         * Помилки валідації за замовчуванням SAX тільки ігнорує,
+         * тому кидаємо їх далі - невалідний документ не повинен тихо стати списком каменів
+         */
+        @Override
+        public void error(SAXParseException e) throws SAXParseException {
+            throw e;
+        }
+
+        @Override
+        public void warning(SAXParseException e) {
+            logger.warn("SAX warning at line {}: {}", e.getLineNumber(), e.getMessage());
+        }
+
+        public int getGemCount() {
+            return gemCount;
         }
     }
 }
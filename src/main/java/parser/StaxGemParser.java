@@ -4,155 +4,352 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import model.Color;
 import model.Gem;
+import model.GemCanonicalizer;
 import model.Preciousness;
 import model.VisualParameters;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import java.io.FileInputStream;
-import java.math.BigDecimal;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class StaxGemParser implements GemParser {
+public class StaxGemParser implements StreamingGemParser {
     private static final Logger logger = LogManager.getLogger(StaxGemParser.class);
 
+    private final InputMode inputMode;
+    private GemCanonicalizer canonicalizer;
+
+    public StaxGemParser() {
+        this(InputMode.STREAM);
+    }
+
+    public StaxGemParser(InputMode inputMode) {
+        this.inputMode = inputMode;
+    }
+
+    /**
+     * Спільні екземпляри для повторюваних назв, походжень і visualParameters (GemCanonicalizer);
+     * null - вимкнено (за замовчуванням)
+     */
+    public void setCanonicalizer(GemCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
     @Override
-    public List<Gem> parse(String xmlFilePath) throws Exception {
+    public void parse(String xmlFilePath, Consumer<Gem> consumer) throws Exception {
+        parse(xmlFilePath, null, consumer);
+    }
+
+    /**
+     * Парсимо тільки камені, що підходять під фільтр
+     * Як тільки прочитані поля, потрібні ранній умові фільтра, камінь, що не підходить,
+     * пропускається до </gem> без розбору решти елементів
+     * @param filter фільтр; null - всі камені
+     */
+    @Override
+    public void parse(String xmlFilePath, GemFilter filter, Consumer<Gem> consumer) throws Exception {
         logger.info("Starting StAX parsing of file: {}", xmlFilePath);
-        
-        XMLInputFactory factory = XMLInputFactory.newInstance();
-        
-        List<Gem> gems = new ArrayList<>();
+
+        int gemCount;
+        InputStream inputStream = inputMode.open(xmlFilePath);
+        try {
+            gemCount = parse(inputStream, filter, consumer);
+        } finally {
+            close(null, inputStream);
+        }
+
+        logger.info("StAX parsing completed. Found {} gems", gemCount);
+    }
+
+    /**
+     * Парсимо вже відкритий потік (потік не закривається)
+     * @return кількість каменів, переданих в consumer
+     */
+    int parse(InputStream inputStream, Consumer<Gem> consumer) throws XMLStreamException {
+        return parse(inputStream, null, consumer);
+    }
+
+    /**
+     * Те саме з фільтром (null - всі камені)
+     */
+    int parse(InputStream inputStream, GemFilter filter, Consumer<Gem> consumer) throws XMLStreamException {
+        XMLInputFactory factory = ParserFactories.inputFactory();
+        Consumer<Gem> target = canonicalizer == null ? consumer : canonicalizer.wrap(consumer);
+
+        int gemCount = 0;
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(inputStream);
+
+            Gem gem;
+            while ((gem = nextGem(reader, filter)) != null) {
+                target.accept(gem);
+                gemCount++;
+            }
+        } finally {
+            close(reader, null);
+        }
+        return gemCount;
+    }
+
+    /**
+     * Лінивий потік каменів: наступний камінь парситься тільки коли stream його попросить
+     * Потік тримає файл відкритим, тому його обов'язково закривати (наприклад через try-with-resources)
+     * Помилка в документі під час обходу потоку кидається як GemParseException з XMLStreamException всередині
+     */
+    public Stream<Gem> stream(String xmlFilePath) throws Exception {
+        logger.info("Opening StAX gem stream for file: {}", xmlFilePath);
+
+        XMLInputFactory factory = ParserFactories.inputFactory();
+
+        InputStream inputStream = inputMode.open(xmlFilePath);
+        XMLStreamReader reader;
+        try {
+            reader = factory.createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            close(null, inputStream);
+            throw e;
+        }
+
+        Iterator<Gem> iterator = new GemIterator(reader);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> close(reader, inputStream));
+    }
+
+    /**
+     * Читаємо події до наступного </gem> і повертаємо готовий камінь
+     * Камені, що не підходять під фільтр, пропускаються
+     * @param filter фільтр; null - всі камені
+     * @return камінь або null якщо каменів у документі більше немає
+     */
+    private Gem nextGem(XMLStreamReader reader, GemFilter filter) throws XMLStreamException {
         Gem currentGem = null;
         VisualParameters currentVisualParams = null;
-        List<Color> currentColors = null;
         boolean inVisualParameters = false;
         String currentElement = null;
-        
-        FileInputStream inputStream = new FileInputStream(xmlFilePath);
-        XMLStreamReader reader = null;
-        try {
-            reader = factory.createXMLStreamReader(inputStream);
-        
-            while (reader.hasNext()) {
-                int event = reader.next();
-                
-                switch (event) {
-                    case XMLStreamConstants.START_ELEMENT:
-                        String localName = reader.getLocalName();
-                        String namespaceURI = reader.getNamespaceURI();
-                        
-                        if (!ParserConstants.NAMESPACE.equals(namespaceURI)) {
-                            break;
+        // Які поля початку каменя вже прочитані і чи рання умова фільтра вже перевірена
+        int seenFields = 0;
+        boolean decided = true;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String localName = reader.getLocalName();
+                    String namespaceURI = reader.getNamespaceURI();
+
+                    if (!ParserConstants.NAMESPACE.equals(namespaceURI)) {
+                        break;
+                    }
+
+                    currentElement = localName;
+
+                    if ("gem".equals(localName)) {
+                        currentGem = new Gem();
+                        String id = reader.getAttributeValue(null, "id");
+                        if (id != null) {
+                            currentGem.setId(id);
                         }
-                        
-                        currentElement = localName;
-                        
-                        if ("gem".equals(localName)) {
-                            currentGem = new Gem();
-                            String id = reader.getAttributeValue(null, "id");
-                            if (id != null) {
-                                currentGem.setId(id);
+                        seenFields = GemFilter.ID;
+                        decided = filter == null;
+                        if (!decided && filter.canDecide(seenFields)) {
+                            decided = true;
+                            if (!filter.acceptsHeader(currentGem)) {
+                                skipGem(reader, 1);
+                                currentGem = null;
+                                currentElement = null;
                             }
-                        } else if ("visualParameters".equals(localName)) {
-                            inVisualParameters = true;
-                            currentVisualParams = new VisualParameters();
-                            currentColors = new ArrayList<>();
                         }
                         break;
-                        
-                    case XMLStreamConstants.CHARACTERS:
-                        if (currentElement == null || currentGem == null) {
-                            break;
-                        }
-                        
-                        String text = reader.getText().trim();
-                        if (text.isEmpty()) {
+                    }
+                    if (!decided && currentGem != null
+                            && ("visualParameters".equals(localName) || "value".equals(localName))) {
+                        // Початок каменя закінчився - поля, яких не було, лишаються null
+                        decided = true;
+                        if (!filter.acceptsHeader(currentGem)) {
+                            skipGem(reader, 2);
+                            currentGem = null;
+                            currentElement = null;
                             break;
                         }
-                        
-                        switch (currentElement) {
-                            case "name":
-                                currentGem.setName(text);
-                                break;
-                            case "preciousness":
-                                currentGem.setPreciousness(Preciousness.fromString(text));
-                                break;
-                            case "origin":
-                                currentGem.setOrigin(text);
-                                break;
-                            case "value":
-                                currentGem.setValue(new BigDecimal(text));
-                                break;
-                            case "color":
-                                if (inVisualParameters && currentVisualParams != null) {
-                                    currentColors.add(Color.fromString(text));
-                                }
-                                break;
-                            case "transparency":
-                                if (inVisualParameters && currentVisualParams != null) {
-                                    currentVisualParams.setTransparency(new BigDecimal(text));
-                                }
-                                break;
-                            case "facets":
-                                if (inVisualParameters && currentVisualParams != null) {
-                                    currentVisualParams.setFacets(Integer.parseInt(text));
-                                }
-                                break;
-                        }
+                    }
+                    if ("visualParameters".equals(localName)) {
+                        inVisualParameters = true;
+                        currentVisualParams = new VisualParameters();
+                    }
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                    if (currentElement == null || currentGem == null) {
+                        break;
+                    }
+
+                    String text = reader.getText().trim();
+                    if (text.isEmpty()) {
                         break;
-                        
-                    case XMLStreamConstants.END_ELEMENT:
-                        localName = reader.getLocalName();
-                        namespaceURI = reader.getNamespaceURI();
-                        
-                        if (!ParserConstants.NAMESPACE.equals(namespaceURI)) {
+                    }
+
+                    switch (currentElement) {
+                        case "name":
+                            currentGem.setName(text);
+                            break;
+                        case "preciousness":
+                            currentGem.setPreciousness(Preciousness.fromString(text));
+                            break;
+                        case "origin":
+                            currentGem.setOrigin(text);
                             break;
+                        case "value":
+                            currentGem.parseValue(text);
+                            break;
+                        case "color":
+                            if (inVisualParameters && currentVisualParams != null) {
+                                currentVisualParams.addColor(Color.fromString(text));
+                            }
+                            break;
+                        case "transparency":
+                            if (inVisualParameters && currentVisualParams != null) {
+                                currentVisualParams.parseTransparency(text);
+                            }
+                            break;
+                        case "facets":
+                            if (inVisualParameters && currentVisualParams != null) {
+                                currentVisualParams.parseFacets(text);
+                            }
+                            break;
+                    }
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    localName = reader.getLocalName();
+                    namespaceURI = reader.getNamespaceURI();
+
+                    if (!ParserConstants.NAMESPACE.equals(namespaceURI)) {
+                        break;
+                    }
+
+                    if ("gem".equals(localName)) {
+                        if (currentGem != null) {
+                            if (filter == null || (decided || filter.acceptsHeader(currentGem))
+                                                  && filter.acceptsGem(currentGem)) {
+                                return currentGem;
+                            }
+                            currentGem = null;
                         }
-                        
-                        if ("gem".equals(localName)) {
-                            if (currentGem != null) {
-                                gems.add(currentGem);
+                    } else if (!decided && currentGem != null) {
+                        seenFields |= headerField(localName);
+                        if (filter.canDecide(seenFields)) {
+                            decided = true;
+                            if (!filter.acceptsHeader(currentGem)) {
+                                skipGem(reader, 1);
                                 currentGem = null;
                             }
-                        } else if ("visualParameters".equals(localName)) {
-                            if (currentVisualParams != null && currentGem != null) {
-                                currentVisualParams.setColors(currentColors);
-                                if (currentGem.getVisualParameters() == null) {
-                                    currentGem.setVisualParameters(new ArrayList<>());
-                                }
-                                currentGem.getVisualParameters().add(currentVisualParams);
-                                currentVisualParams = null;
-                                currentColors = null;
-                                inVisualParameters = false;
+                        }
+                    } else if ("visualParameters".equals(localName)) {
+                        if (currentVisualParams != null && currentGem != null) {
+                            if (currentGem.getVisualParameters() == null) {
+                                currentGem.setVisualParameters(new ArrayList<>());
                             }
+                            currentGem.getVisualParameters().add(currentVisualParams);
+                            currentVisualParams = null;
+                            inVisualParameters = false;
                         }
-                        
-                        currentElement = null;
-                        break;
-                }
+                    }
+
+                    currentElement = null;
+                    break;
             }
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (Exception e) {
-                    logger.warn("Error closing XMLStreamReader", e);
-                }
+        }
+
+        return null;
+    }
+
+    /**
+     * Пропускаємо решту каменя до його </gem>, не розбираючи текст і не створюючи об'єктів
+     * @param depth скільки елементів зараз відкрито, рахуючи сам gem
+     */
+    private static void skipGem(XMLStreamReader reader, int depth) throws XMLStreamException {
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static int headerField(String localName) {
+        switch (localName) {
+            case "name":
+                return GemFilter.NAME;
+            case "preciousness":
+                return GemFilter.PRECIOUSNESS;
+            case "origin":
+                return GemFilter.ORIGIN;
+            default:
+                return 0;
+        }
+    }
+
+    private static void close(XMLStreamReader reader, InputStream inputStream) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                logger.warn("Error closing XMLStreamReader", e);
             }
-            if (inputStream != null) {
+        }
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (Exception e) {
+                logger.warn("Error closing input stream", e);
+            }
+        }
+    }
+
+    private class GemIterator implements Iterator<Gem> {
+        private final XMLStreamReader reader;
+        private Gem next;
+        private boolean finished;
+
+        GemIterator(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
                 try {
-                    inputStream.close();
-                } catch (Exception e) {
-                    logger.warn("Error closing FileInputStream", e);
+                    next = nextGem(reader, null);
+                } catch (XMLStreamException e) {
+                    throw new GemParseException(e);
                 }
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Gem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            Gem gem = next;
+            next = null;
+            return gem;
         }
-        
-        logger.info("StAX parsing completed. Found {} gems", gems.size());
-        return gems;
     }
 }
-
@@ -0,0 +1,52 @@
+package parser;
+
+import model.Gem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потоковий парсер: віддає кожен камінь споживачу одразу після його закриваючого тегу
+ * Так не потрібно тримати весь список каменів в пам'яті - пам'ять не залежить від розміру файлу
+ */
+public interface StreamingGemParser extends GemParser {
+
+    /**
+     * Парсимо XML файл і передаємо кожен камінь в consumer в порядку документа
+     * @param xmlFilePath шлях до XML файлу
+     * @param consumer отримувач каменів
+     */
+    void parse(String xmlFilePath, Consumer<Gem> consumer) throws Exception;
+
+    /**
+     * Парсимо тільки камені, що підходять під фільтр
+     * За замовчуванням камені фільтруються вже готовими; SAX і StAX перевіряють ранні умови
+     * на початку каменя і пропускають решту його елементів без створення об'єктів
+     * @param filter фільтр; null - всі камені
+     */
+    default void parse(String xmlFilePath, GemFilter filter, Consumer<Gem> consumer) throws Exception {
+        if (filter == null) {
+            parse(xmlFilePath, consumer);
+            return;
+        }
+        parse(xmlFilePath, gem -> {
+            if (filter.test(gem)) {
+                consumer.accept(gem);
+            }
+        });
+    }
+
+    default List<Gem> parse(String xmlFilePath, GemFilter filter) throws Exception {
+        List<Gem> gems = new ArrayList<>();
+        parse(xmlFilePath, filter, gems::add);
+        return gems;
+    }
+
+    @Override
+    default List<Gem> parse(String xmlFilePath) throws Exception {
+        List<Gem> gems = new ArrayList<>();
+        parse(xmlFilePath, gems::add);
+        return gems;
+    }
+}
@@ -0,0 +1,189 @@
+package query;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Color;
+import model.Gem;
+import model.GemTable;
+import model.Preciousness;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Бітмап-індекси над колонковою GemTable для швидких запитів GemQuery
+ *
+ * Для кожного типу, кольору і походження - BitSet каменів з цим значенням,
+ * для вартості, прозорості і граней - RangeIndex по кошиках значень
+ * Запит комбінує їх побітовими AND/OR, тому вибірковий запит по мільйону каменів
+ * займає мікросекунди замість повного проходу
+ *
+ * Колір, прозорість і грані рахуються на рівні каменя: камінь підходить, якщо умову виконує
+ * хоча б один його visualParameters (умови можуть виконуватись різними visualParameters)
+ *
+ * Індекс незмінний і безпечний для запитів з кількох потоків
+ */
+public final class GemIndex {
+    private static final Logger logger = LogManager.getLogger(GemIndex.class);
+
+    private final GemTable table;
+    private final BitSet[] byPreciousness;
+    private final BitSet[] byColor;
+    private final Map<String, BitSet> byOrigin = new HashMap<>();
+    private final RangeIndex values;
+    private final RangeIndex transparency;
+    private final RangeIndex facets;
+
+    private GemIndex(GemTable table) {
+        this.table = table;
+        int size = table.size();
+        byPreciousness = new BitSet[Preciousness.values().length];
+        for (int i = 0; i < byPreciousness.length; i++) {
+            byPreciousness[i] = new BitSet(size);
+        }
+        byColor = new BitSet[Color.values().length];
+        for (int i = 0; i < byColor.length; i++) {
+            byColor[i] = new BitSet(size);
+        }
+        List<String> origins = table.getOrigins();
+        BitSet[] originBits = new BitSet[origins.size()];
+        for (int code = 0; code < originBits.length; code++) {
+            originBits[code] = new BitSet(size);
+            byOrigin.put(origins.get(code), originBits[code]);
+        }
+
+        for (int row = 0; row < size; row++) {
+            Preciousness preciousness = table.getPreciousness(row);
+            if (preciousness != null) {
+                byPreciousness[preciousness.ordinal()].set(row);
+            }
+            int mask = table.getColorMask(row);
+            while (mask != 0) {
+                byColor[Integer.numberOfTrailingZeros(mask)].set(row);
+                mask &= mask - 1;
+            }
+            if (table.getOriginCode(row) >= 0) {
+                originBits[table.getOriginCode(row)].set(row);
+            }
+        }
+
+        values = RangeIndex.build(size, new RangeIndex.Values() {
+            @Override
+            public int count(int row) {
+                return 1;
+            }
+
+            @Override
+            public long get(int row, int i) {
+                return table.hasValue(row) ? table.getValueThousandths(row) : RangeIndex.MISSING;
+            }
+        });
+        transparency = RangeIndex.build(size, new VisualValues() {
+            @Override
+            public long get(int row, int i) {
+                int basisPoints = table.getTransparencyBasisPoints(table.visualStart(row) + i);
+                return basisPoints == GemTable.NULL_INT ? RangeIndex.MISSING : basisPoints;
+            }
+        });
+        facets = RangeIndex.build(size, new VisualValues() {
+            @Override
+            public long get(int row, int i) {
+                int value = table.getFacets(table.visualStart(row) + i);
+                return value == GemTable.NULL_INT ? RangeIndex.MISSING : value;
+            }
+        });
+    }
+
+    /**
+     * Будуємо індекси над таблицею (один прохід по таблиці і сортування кожної числової колонки)
+     */
+    public static GemIndex build(GemTable table) {
+        long start = System.nanoTime();
+        GemIndex index = new GemIndex(table);
+        logger.info("Built gem index over {} gems in {} ms", table.size(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    public static GemIndex of(List<Gem> gems) {
+        return build(GemTable.of(gems));
+    }
+
+    public GemTable getTable() {
+        return table;
+    }
+
+    /**
+     * Номери рядків таблиці, що підходять під запит, як BitSet (новий об'єкт, його можна змінювати)
+     */
+    public BitSet select(GemQuery query) {
+        return query.evaluate(this);
+    }
+
+    public int count(GemQuery query) {
+        return select(query).cardinality();
+    }
+
+    /**
+     * Номери рядків таблиці по зростанню
+     */
+    public int[] rows(GemQuery query) {
+        return select(query).stream().toArray();
+    }
+
+    public List<String> findIds(GemQuery query) {
+        BitSet rows = select(query);
+        List<String> ids = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            ids.add(table.getId(row));
+        }
+        return ids;
+    }
+
+    /**
+     * Камені, що підходять під запит, в порядку таблиці (нові об'єкти Gem)
+     */
+    public List<Gem> find(GemQuery query) {
+        return table.toGems(rows(query));
+    }
+
+    BitSet all() {
+        BitSet all = new BitSet(table.size());
+        all.set(0, table.size());
+        return all;
+    }
+
+    BitSet preciousness(Preciousness preciousness) {
+        return (BitSet) byPreciousness[preciousness.ordinal()].clone();
+    }
+
+    BitSet color(Color color) {
+        return (BitSet) byColor[color.ordinal()].clone();
+    }
+
+    BitSet origin(String origin) {
+        BitSet rows = byOrigin.get(origin);
+        return rows == null ? new BitSet() : (BitSet) rows.clone();
+    }
+
+    BitSet valueBetween(long minThousandths, long maxThousandths, BitSet within) {
+        return values.select(minThousandths, maxThousandths, within);
+    }
+
+    BitSet transparencyBetween(long minBasisPoints, long maxBasisPoints, BitSet within) {
+        return transparency.select(minBasisPoints, maxBasisPoints, within);
+    }
+
+    BitSet facetsBetween(long min, long max, BitSet within) {
+        return facets.select(min, max, within);
+    }
+
+    private abstract class VisualValues implements RangeIndex.Values {
+        @Override
+        public int count(int row) {
+            return table.visualEnd(row) - table.visualStart(row);
+        }
+    }
+}
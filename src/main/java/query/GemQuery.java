@@ -0,0 +1,152 @@
+package query;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.BitSet;
+
+/**
+ * Запит до GemIndex: умови над полями каменя, поєднані через and/or/not
+ *
+ * GemQuery query = GemQuery.preciousness(Preciousness.PRECIOUS)
+ *     .and(GemQuery.color(Color.BLUE))
+ *     .and(GemQuery.transparencyAbove(new BigDecimal("80")))
+ *     .and(GemQuery.facetsBetween(8, 12));
+ * List<Gem> gems = index.find(query);
+ *
+ * Межі діапазонів включні; точність вартості - тисячні, прозорості - сотні частки (як в GemTable)
+ * Камені без значення поля під умову на це поле не підходять
+ */
+public final class GemQuery {
+    private final Evaluator evaluator;
+
+    private GemQuery(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Номери рядків, що підходять (завжди новий BitSet - його можна змінювати)
+     */
+    BitSet evaluate(GemIndex index) {
+        return evaluator.evaluate(index, null);
+    }
+
+    public static GemQuery preciousness(Preciousness preciousness) {
+        return of((index, within) -> index.preciousness(preciousness));
+    }
+
+    /**
+     * Є такий колір хоча б в одному visualParameters
+     */
+    public static GemQuery color(Color color) {
+        return of((index, within) -> index.color(color));
+    }
+
+    /**
+     * Є хоча б один з кольорів
+     */
+    public static GemQuery anyColor(Color... colors) {
+        return of((index, within) -> {
+            BitSet rows = new BitSet();
+            for (Color color : colors) {
+                rows.or(index.color(color));
+            }
+            return rows;
+        });
+    }
+
+    public static GemQuery origin(String origin) {
+        return of((index, within) -> index.origin(origin));
+    }
+
+    public static GemQuery valueBetween(BigDecimal min, BigDecimal max) {
+        long from = toFixed(min, Gem.VALUE_SCALE, RoundingMode.CEILING);
+        long to = toFixed(max, Gem.VALUE_SCALE, RoundingMode.FLOOR);
+        return of((index, within) -> index.valueBetween(from, to, within));
+    }
+
+    /**
+     * Вартість строго більша за value
+     */
+    public static GemQuery valueAbove(BigDecimal value) {
+        long from = toFixed(value, Gem.VALUE_SCALE, RoundingMode.FLOOR) + 1;
+        return of((index, within) -> index.valueBetween(from, Long.MAX_VALUE, within));
+    }
+
+    /**
+     * Є visualParameters з прозорістю в межах [min, max] відсотків
+     */
+    public static GemQuery transparencyBetween(BigDecimal min, BigDecimal max) {
+        long from = toFixed(min, VisualParameters.TRANSPARENCY_SCALE, RoundingMode.CEILING);
+        long to = toFixed(max, VisualParameters.TRANSPARENCY_SCALE, RoundingMode.FLOOR);
+        return of((index, within) -> index.transparencyBetween(from, to, within));
+    }
+
+    /**
+     * Є visualParameters з прозорістю строго більшою за value відсотків
+     */
+    public static GemQuery transparencyAbove(BigDecimal value) {
+        long from = toFixed(value, VisualParameters.TRANSPARENCY_SCALE, RoundingMode.FLOOR) + 1;
+        return of((index, within) -> index.transparencyBetween(from, Long.MAX_VALUE, within));
+    }
+
+    /**
+     * Є visualParameters з кількістю граней в межах [min, max]
+     */
+    public static GemQuery facetsBetween(int min, int max) {
+        return of((index, within) -> index.facetsBetween(min, max, within));
+    }
+
+    public GemQuery and(GemQuery other) {
+        return of((index, within) -> {
+            BitSet rows = evaluator.evaluate(index, within);
+            // Якщо вже нічого не підходить, другу умову можна не рахувати,
+            // інакше друга умова перевіряє діапазони тільки для тих, хто пройшов першу
+            if (!rows.isEmpty()) {
+                rows.and(other.evaluator.evaluate(index, rows));
+            }
+            return rows;
+        });
+    }
+
+    public GemQuery or(GemQuery other) {
+        return of((index, within) -> {
+            BitSet rows = evaluator.evaluate(index, within);
+            rows.or(other.evaluator.evaluate(index, within));
+            return rows;
+        });
+    }
+
+    public GemQuery not() {
+        return of((index, within) -> {
+            BitSet rows = index.all();
+            rows.andNot(evaluator.evaluate(index, within));
+            return rows;
+        });
+    }
+
+    private static long toFixed(BigDecimal value, int scale, RoundingMode rounding) {
+        BigDecimal fixed = value.setScale(scale, rounding);
+        // Межа, яка не вміщається в long, все одно за межами будь-якого значення в таблиці
+        if (fixed.unscaledValue().bitLength() >= Long.SIZE - 1) {
+            return fixed.signum() > 0 ? Long.MAX_VALUE - 1 : Long.MIN_VALUE + 1;
+        }
+        return fixed.unscaledValue().longValue();
+    }
+
+    private interface Evaluator {
+        /**
+         * @param within null або камені, які цікавлять того, хто викликає: результат може містити
+         *               і інші камені, але для цих він має бути точним
+         */
+        BitSet evaluate(GemIndex index, BitSet within);
+    }
+
+    private static GemQuery of(Evaluator evaluator) {
+        return new GemQuery(evaluator);
+    }
+}
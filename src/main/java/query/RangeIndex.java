@@ -0,0 +1,151 @@
+package query;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Бітмап-індекс по діапазонах числової колонки
+ *
+ * Значення діляться на BUCKETS кошиків приблизно однакового наповнення (межі - квантилі колонки),
+ * і для кожного кошика тримаємо BitSet каменів, у яких є значення з цього кошика
+ * Запит [min, max] - це OR кошиків, що повністю лежать всередині, плюс точна перевірка каменів
+ * лише з двох крайніх кошиків - замість перевірки всіх каменів
+ *
+ * В одного каменя може бути кілька значень (прозорість кожного visualParameters) -
+ * камінь підходить, якщо хоча б одне його значення в діапазоні
+ */
+final class RangeIndex {
+    static final int BUCKETS = 64;
+
+    // Значення, якого немає (null в моделі)
+    static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * Значення колонки для рядка таблиці
+     */
+    interface Values {
+        int count(int row);
+
+        /**
+         * i-те значення рядка або MISSING
+         */
+        long get(int row, int i);
+    }
+
+    private final Values values;
+    // Кошик i - значення від lowerBounds[i] включно до lowerBounds[i + 1] не включно
+    private final long[] lowerBounds;
+    private final BitSet[] buckets;
+
+    private RangeIndex(Values values, long[] lowerBounds, BitSet[] buckets) {
+        this.values = values;
+        this.lowerBounds = lowerBounds;
+        this.buckets = buckets;
+    }
+
+    static RangeIndex build(int rows, Values values) {
+        int total = 0;
+        for (int row = 0; row < rows; row++) {
+            total += values.count(row);
+        }
+        long[] sorted = new long[total];
+        int size = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int i = values.count(row) - 1; i >= 0; i--) {
+                long value = values.get(row, i);
+                if (value != MISSING) {
+                    sorted[size++] = value;
+                }
+            }
+        }
+        Arrays.sort(sorted, 0, size);
+
+        long[] lowerBounds = new long[Math.min(BUCKETS, size)];
+        int bucketCount = 0;
+        for (int b = 0; b < lowerBounds.length; b++) {
+            long bound = sorted[(int) ((long) b * size / lowerBounds.length)];
+            if (bucketCount == 0 || bound > lowerBounds[bucketCount - 1]) {
+                lowerBounds[bucketCount++] = bound;
+            }
+        }
+        lowerBounds = Arrays.copyOf(lowerBounds, bucketCount);
+
+        BitSet[] buckets = new BitSet[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[b] = new BitSet(rows);
+        }
+        RangeIndex index = new RangeIndex(values, lowerBounds, buckets);
+        for (int row = 0; row < rows; row++) {
+            for (int i = values.count(row) - 1; i >= 0; i--) {
+                long value = values.get(row, i);
+                if (value != MISSING) {
+                    buckets[index.bucketOf(value)].set(row);
+                }
+            }
+        }
+        return index;
+    }
+
+    BitSet select(long min, long max) {
+        return select(min, max, null);
+    }
+
+    /**
+     * Камені, в яких є значення в межах [min, max] включно
+     * @param within якщо не null, крайні кошики перевіряються тільки для цих каменів
+     *               (результат тоді треба ще перетнути з within - повні кошики додаються цілими)
+     */
+    BitSet select(long min, long max, BitSet within) {
+        BitSet result = new BitSet();
+        if (min > max || buckets.length == 0) {
+            return result;
+        }
+        int last = bucketOf(max);
+        if (last < 0) {
+            return result;
+        }
+        int first = Math.max(0, bucketOf(min));
+        for (int b = first; b <= last; b++) {
+            boolean coversFrom = min <= lowerBounds[b];
+            boolean coversTo = b + 1 < lowerBounds.length && max >= lowerBounds[b + 1] - 1;
+            if ((b > first || coversFrom) && (b < last || coversTo)) {
+                result.or(buckets[b]);
+            } else {
+                // Крайній кошик покритий частково - перевіряємо його камені точно
+                BitSet bucket = buckets[b];
+                if (within != null) {
+                    bucket = (BitSet) bucket.clone();
+                    bucket.and(within);
+                }
+                for (int row = bucket.nextSetBit(0); row >= 0; row = bucket.nextSetBit(row + 1)) {
+                    if (anyInRange(row, min, max)) {
+                        result.set(row);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    int bucketCount() {
+        return buckets.length;
+    }
+
+    private boolean anyInRange(int row, long min, long max) {
+        for (int i = values.count(row) - 1; i >= 0; i--) {
+            long value = values.get(row, i);
+            if (value != MISSING && value >= min && value <= max) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Номер кошика для значення або -1, якщо воно менше за всі значення колонки
+     */
+    private int bucketOf(long value) {
+        int position = Arrays.binarySearch(lowerBounds, value);
+        return position >= 0 ? position : -position - 2;
+    }
+}
@@ -0,0 +1,349 @@
+package snapshot;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Компактний бінарний формат для списку каменів
+ *
+ * Структура файлу:
+ * - заголовок: magic, версія і відбиток вихідного XML (SourceStamp)
+ * - таблиці імен enum (Preciousness, Color) - в записах зберігаються тільки порядкові номери,
+ *   а при завантаженні вони зіставляються з поточними константами за іменем
+ * - таблиця рядків - кожен різний рядок (id, назва, походження) зберігається один раз
+ * - записи каменів і візуальних параметрів фіксованої ширини + масив кольорів
+ * - контрольна сума CRC32C всього попереднього вмісту
+ *
+ * Завантаження - це послідовне читання одного масиву байт без жодного розбору тексту,
+ * тому воно на порядок швидше за будь-який XML парсер
+ */
+public final class GemSnapshot {
+    private static final int MAGIC = 0x47454D53; // "GEMS"
+    private static final short VERSION = 1;
+
+    private static final int NULL_INDEX = -1;
+    private static final byte NULL_ENUM = -1;
+
+    // Як закодоване число BigDecimal
+    private static final byte DECIMAL_NULL = 0;
+    private static final byte DECIMAL_COMPACT = 1; // unscaled вміщається в long
+    private static final byte DECIMAL_STRING = 2; // дуже довге число - зберігаємо текст в таблиці рядків
+
+    private static final int GEM_RECORD_SIZE = 4 + 4 + 4 + 1 + 13 + 4 + 4;
+    private static final int VISUAL_RECORD_SIZE = 13 + 1 + 4 + 4 + 4;
+
+    private GemSnapshot() {
+    }
+
+    /**
+     * Записуємо знімок у файл
+     * @param stamp відбиток XML файлу, з якого отримано камені
+     */
+    public static void write(Path file, SourceStamp stamp, List<Gem> gems) throws IOException {
+        // Спочатку збираємо таблицю рядків і рахуємо розміри секцій
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int visualCount = 0;
+        int colorCount = 0;
+        for (Gem gem : gems) {
+            intern(strings, gem.getId());
+            intern(strings, gem.getName());
+            intern(strings, gem.getOrigin());
+            intern(strings, bigDecimalText(gem.getValue()));
+            if (gem.getVisualParameters() != null) {
+                for (VisualParameters params : gem.getVisualParameters()) {
+                    visualCount++;
+                    intern(strings, bigDecimalText(params.getTransparency()));
+                    if (params.getColors() != null) {
+                        colorCount += params.getColors().size();
+                    }
+                }
+            }
+        }
+
+        CRC32C crc = new CRC32C();
+        try (OutputStream fileOut = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new CheckedOutputStream(fileOut, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(stamp.getSize());
+            out.writeLong(stamp.getLastModified());
+            out.writeLong(stamp.getHash());
+
+            writeEnumTable(out, Preciousness.values());
+            writeEnumTable(out, Color.values());
+
+            out.writeInt(strings.size());
+            for (String s : strings.keySet()) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(gems.size());
+            out.writeInt(visualCount);
+            out.writeInt(colorCount);
+
+            int visualIndex = 0;
+            for (Gem gem : gems) {
+                out.writeInt(index(strings, gem.getId()));
+                out.writeInt(index(strings, gem.getName()));
+                out.writeInt(index(strings, gem.getOrigin()));
+                out.writeByte(gem.getPreciousness() == null ? NULL_ENUM : gem.getPreciousness().ordinal());
+                writeDecimal(out, strings, gem.getValue());
+                List<VisualParameters> visual = gem.getVisualParameters();
+                out.writeInt(visualIndex);
+                out.writeInt(visual == null ? NULL_INDEX : visual.size());
+                if (visual != null) {
+                    visualIndex += visual.size();
+                }
+            }
+
+            int colorIndex = 0;
+            for (Gem gem : gems) {
+                if (gem.getVisualParameters() == null) {
+                    continue;
+                }
+                for (VisualParameters params : gem.getVisualParameters()) {
+                    writeDecimal(out, strings, params.getTransparency());
+                    out.writeBoolean(params.getFacets() != null);
+                    out.writeInt(params.getFacets() == null ? 0 : params.getFacets());
+                    List<Color> colors = params.getColors();
+                    out.writeInt(colorIndex);
+                    out.writeInt(colors == null ? NULL_INDEX : colors.size());
+                    if (colors != null) {
+                        colorIndex += colors.size();
+                    }
+                }
+            }
+
+            for (Gem gem : gems) {
+                if (gem.getVisualParameters() == null) {
+                    continue;
+                }
+                for (VisualParameters params : gem.getVisualParameters()) {
+                    if (params.getColors() != null) {
+                        for (Color color : params.getColors()) {
+                            out.writeByte(color == null ? NULL_ENUM : color.ordinal());
+                        }
+                    }
+                }
+            }
+
+            // Контрольна сума не входить сама в себе
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+        }
+    }
+
+    /**
+     * Читаємо знімок
+     * @param expected відбиток поточного XML файлу; null - не перевіряти
+     * @return список каменів або null, якщо знімок зроблено з іншої версії файлу
+     * @throws IOException якщо файл пошкоджений або має невідомий формат
+     */
+    public static List<Gem> read(Path file, SourceStamp expected) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a gem snapshot: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            SourceStamp stamp = new SourceStamp(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            if (expected != null && !expected.equals(stamp)) {
+                return null;
+            }
+            verifyChecksum(buffer, file);
+
+            Preciousness[] preciousness = readEnumTable(buffer, Preciousness.class);
+            Color[] colorTable = readEnumTable(buffer, Color.class);
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                strings[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+
+            int gemCount = buffer.getInt();
+            int visualCount = buffer.getInt();
+            int colorCount = buffer.getInt();
+            int gemsStart = buffer.position();
+            int visualStart = gemsStart + gemCount * GEM_RECORD_SIZE;
+            int colorsStart = visualStart + visualCount * VISUAL_RECORD_SIZE;
+            if (colorsStart + colorCount != buffer.limit() - Long.BYTES) {
+                throw new IOException("Corrupted snapshot (section sizes): " + file);
+            }
+
+            List<Gem> gems = new ArrayList<>(gemCount);
+            for (int i = 0; i < gemCount; i++) {
+                buffer.position(gemsStart + i * GEM_RECORD_SIZE);
+                Gem gem = new Gem();
+                gem.setId(string(strings, buffer.getInt()));
+                gem.setName(string(strings, buffer.getInt()));
+                gem.setOrigin(string(strings, buffer.getInt()));
+                gem.setPreciousness(constant(preciousness, buffer.get()));
+                gem.setValue(readDecimal(buffer, strings));
+                int visualIndex = buffer.getInt();
+                int visualSize = buffer.getInt();
+                if (visualSize == NULL_INDEX) {
+                    gem.setVisualParameters(null);
+                } else {
+                    List<VisualParameters> visual = new ArrayList<>(visualSize);
+                    for (int v = 0; v < visualSize; v++) {
+                        visual.add(readVisualParameters(buffer, visualStart + (visualIndex + v) * VISUAL_RECORD_SIZE,
+                                                        colorsStart, strings, colorTable));
+                    }
+                    gem.setVisualParameters(visual);
+                }
+                gems.add(gem);
+            }
+            return gems;
+        } catch (RuntimeException e) {
+            // Вихід за межі буфера, невідома константа тощо - знімок пошкоджений
+            throw new IOException("Corrupted snapshot: " + file, e);
+        }
+    }
+
+    private static VisualParameters readVisualParameters(ByteBuffer buffer, int position, int colorsStart,
+                                                         String[] strings, Color[] colorTable) {
+        buffer.position(position);
+        VisualParameters params = new VisualParameters();
+        params.setTransparency(readDecimal(buffer, strings));
+        boolean hasFacets = buffer.get() != 0;
+        int facets = buffer.getInt();
+        params.setFacets(hasFacets ? facets : null);
+        int colorIndex = buffer.getInt();
+        int colorSize = buffer.getInt();
+        if (colorSize == NULL_INDEX) {
+            params.setColors(null);
+        } else {
+            List<Color> colors = new ArrayList<>(colorSize);
+            for (int c = 0; c < colorSize; c++) {
+                colors.add(constant(colorTable, buffer.get(colorsStart + colorIndex + c)));
+            }
+            params.setColors(colors);
+        }
+        return params;
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer, Path file) throws IOException {
+        int end = buffer.limit() - Long.BYTES;
+        if (end < buffer.position()) {
+            throw new IOException("Corrupted snapshot (truncated): " + file);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, end);
+        if (crc.getValue() != buffer.getLong(end)) {
+            throw new IOException("Corrupted snapshot (checksum mismatch): " + file);
+        }
+    }
+
+    private static void writeEnumTable(DataOutputStream out, Enum<?>[] constants) throws IOException {
+        out.writeByte(constants.length);
+        for (Enum<?> constant : constants) {
+            out.writeUTF(constant.name());
+        }
+    }
+
+    /**
+     * Таблиця "порядковий номер у знімку -> поточна константа"
+     * Так знімок лишається правильним навіть якщо константи enum переставили місцями
+     */
+    private static <E extends Enum<E>> E[] readEnumTable(ByteBuffer buffer, Class<E> type) {
+        int count = buffer.get() & 0xFF;
+        @SuppressWarnings("unchecked")
+        E[] table = (E[]) Array.newInstance(type, count);
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getShort() & 0xFFFF;
+            String name = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            table[i] = Enum.valueOf(type, name);
+        }
+        return table;
+    }
+
+    private static void writeDecimal(DataOutputStream out, Map<String, Integer> strings, BigDecimal value)
+            throws IOException {
+        if (value == null) {
+            out.writeByte(DECIMAL_NULL);
+            out.writeLong(0);
+            out.writeInt(0);
+        } else if (value.unscaledValue().bitLength() < Long.SIZE) {
+            out.writeByte(DECIMAL_COMPACT);
+            out.writeLong(value.unscaledValue().longValue());
+            out.writeInt(value.scale());
+        } else {
+            out.writeByte(DECIMAL_STRING);
+            out.writeLong(index(strings, value.toString()));
+            out.writeInt(0);
+        }
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer buffer, String[] strings) {
+        byte kind = buffer.get();
+        long unscaled = buffer.getLong();
+        int scale = buffer.getInt();
+        switch (kind) {
+            case DECIMAL_NULL:
+                return null;
+            case DECIMAL_COMPACT:
+                return BigDecimal.valueOf(unscaled, scale);
+            case DECIMAL_STRING:
+                return new BigDecimal(strings[(int) unscaled]);
+            default:
+                throw new IllegalStateException("Unknown decimal kind: " + kind);
+        }
+    }
+
+    /**
+     * Текст числа, якщо воно не вміщається в компактний запис (тоді воно йде в таблицю рядків)
+     */
+    private static String bigDecimalText(BigDecimal value) {
+        if (value == null || value.unscaledValue().bitLength() < Long.SIZE) {
+            return null;
+        }
+        return value.toString();
+    }
+
+    private static void intern(Map<String, Integer> strings, String s) {
+        if (s != null) {
+            strings.putIfAbsent(s, strings.size());
+        }
+    }
+
+    private static int index(Map<String, Integer> strings, String s) {
+        return s == null ? NULL_INDEX : strings.get(s);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NULL_INDEX ? null : strings[index];
+    }
+
+    private static <E> E constant(E[] table, byte ordinal) {
+        return ordinal == NULL_ENUM ? null : table[ordinal & 0xFF];
+    }
+}
@@ -0,0 +1,96 @@
+package snapshot;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Gem;
+import parser.GemParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Парсер-обгортка зі знімками: після успішного парсингу зберігає результат в бінарний знімок,
+ * а наступного разу, якщо XML файл не змінився (розмір, час зміни і хеш ті самі),
+ * завантажує камені зі знімка замість повторного парсингу
+ * Знімок - це тільки кеш: якщо його не вдалося прочитати або записати, просто парсимо XML як завжди
+ */
+public class SnapshotGemParser implements GemParser {
+    private static final Logger logger = LogManager.getLogger(SnapshotGemParser.class);
+
+    public static final Path DEFAULT_SNAPSHOT_DIR = Paths.get("target", "snapshots");
+
+    private final GemParser delegate;
+    private final Path snapshotDir;
+
+    public SnapshotGemParser(GemParser delegate) {
+        this(delegate, DEFAULT_SNAPSHOT_DIR);
+    }
+
+    /**
+     * @param delegate парсер, яким парсимо XML коли знімка немає або він застарів
+     * @param snapshotDir папка для знімків
+     */
+    public SnapshotGemParser(GemParser delegate, Path snapshotDir) {
+        this.delegate = delegate;
+        this.snapshotDir = snapshotDir;
+    }
+
+    @Override
+    public List<Gem> parse(String xmlFilePath) throws Exception {
+        Path source = Paths.get(xmlFilePath);
+        SourceStamp stamp = SourceStamp.of(source);
+        Path snapshot = snapshotFile(source);
+
+        if (Files.exists(snapshot)) {
+            try {
+                List<Gem> gems = GemSnapshot.read(snapshot, stamp);
+                if (gems != null) {
+                    logger.info("Loaded {} gems from snapshot: {}", gems.size(), snapshot);
+                    return gems;
+                }
+                logger.info("Snapshot {} is stale, re-parsing {}", snapshot, xmlFilePath);
+            } catch (IOException e) {
+                logger.warn("Failed to read snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+
+        List<Gem> gems = delegate.parse(xmlFilePath);
+        save(snapshot, stamp, gems);
+        return gems;
+    }
+
+    /**
+     * Шлях до знімка для XML файлу
+     * В імені є хеш абсолютного шляху, щоб однакові імена з різних папок не перетиналися
+     */
+    Path snapshotFile(Path source) {
+        Path absolute = source.toAbsolutePath().normalize();
+        String name = absolute.getFileName() + "-" + Integer.toHexString(absolute.toString().hashCode()) + ".snapshot";
+        return snapshotDir.resolve(name);
+    }
+
+    private void save(Path snapshot, SourceStamp stamp, List<Gem> gems) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(snapshotDir);
+            // Пишемо в тимчасовий файл і підміняємо - так ніхто не прочитає напівзаписаний знімок
+            tmp = Files.createTempFile(snapshotDir, snapshot.getFileName().toString(), ".tmp");
+            GemSnapshot.write(tmp, stamp, gems);
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved snapshot of {} gems: {}", gems.size(), snapshot);
+        } catch (IOException e) {
+            logger.warn("Failed to save snapshot {}: {}", snapshot, e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // нічого не робимо - тимчасовий файл просто залишиться
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * "Відбиток" вихідного XML файлу: розмір, час зміни і контрольна сума вмісту
+ * Знімок можна використовувати тільки якщо відбиток файлу не змінився
+ * Розмір і час зміни ловлять більшість змін одразу, а хеш - випадки коли файл
+ * переписали з тим самим розміром і часом (наприклад при копіюванні з збереженням атрибутів)
+ */
+public final class SourceStamp {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long size;
+    private final long lastModified;
+    private final long hash;
+
+    public SourceStamp(long size, long lastModified, long hash) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.hash = hash;
+    }
+
+    /**
+     * Рахуємо відбиток файлу
+     * CRC32C вимагає прочитати весь файл, але це на порядки дешевше за його парсинг
+     */
+    public static SourceStamp of(Path file) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        CRC32C crc = new CRC32C();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new SourceStamp(size, lastModified, crc.getValue());
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SourceStamp that = (SourceStamp) o;
+        return size == that.size && lastModified == that.lastModified && hash == that.hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(size) * 31 * 31 + Long.hashCode(lastModified) * 31 + Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "SourceStamp{" +
+                "size=" + size +
+                ", lastModified=" + lastModified +
+                ", hash=" + Long.toHexString(hash) +
+                '}';
+    }
+}
@@ -0,0 +1,218 @@
+package store;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static store.OffHeapGemStore.*;
+
+/**
+ * Курсор-легковаговик над записом каменя в OffHeapGemStore
+ * Сам нічого не зберігає, крім позиції: кожен getter читає поле прямо з буфера,
+ * тому прохід по мільйонах каменів одним курсором не створює об'єктів (крім рядків і BigDecimal,
+ * якщо їх попросити). Курсор не потокобезпечний - кожному потоку свій
+ *
+ * visualParameters адресуються номером від 0 до getVisualParametersCount() - 1
+ */
+public final class GemView {
+    private final OffHeapGemStore store;
+    private long index = -1;
+    private ByteBuffer segment;
+    private int position;
+
+    GemView(OffHeapGemStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Ставимо курсор на камінь index
+     * @return цей самий курсор
+     */
+    public GemView moveTo(long index) {
+        long offset = store.gemOffset(index);
+        this.index = index;
+        this.segment = store.gems.segment(offset);
+        this.position = store.gems.position(offset);
+        return this;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return store.readString(record().getLong(position + GEM_ID));
+    }
+
+    public String getName() {
+        return store.readString(record().getLong(position + GEM_NAME));
+    }
+
+    public String getOrigin() {
+        return store.readString(record().getLong(position + GEM_ORIGIN));
+    }
+
+    public Preciousness getPreciousness() {
+        byte ordinal = record().get(position + GEM_PRECIOUSNESS);
+        return ordinal == NULL_ENUM ? null : PRECIOUSNESS[ordinal];
+    }
+
+    public boolean hasValue() {
+        return record().get(position + GEM_VALUE) != DECIMAL_NULL;
+    }
+
+    public BigDecimal getValue() {
+        return readDecimal(record(), position + GEM_VALUE);
+    }
+
+    /**
+     * Вартість в тисячних карата без створення BigDecimal
+     * @throws IllegalStateException якщо вартості немає або вона не представляється в тисячних
+     */
+    public long getValueThousandths() {
+        ByteBuffer record = record();
+        int scale = record.getInt(position + GEM_VALUE + 1);
+        long unscaled = record.getLong(position + GEM_VALUE + 5);
+        // Long.MIN_VALUE і Gem не вважає числом з фіксованою комою
+        if (record.get(position + GEM_VALUE) == DECIMAL_COMPACT && scale >= 0 && scale <= Gem.VALUE_SCALE
+                && unscaled != Long.MIN_VALUE) {
+            try {
+                return Math.multiplyExact(unscaled, POWERS_OF_TEN[Gem.VALUE_SCALE - scale]);
+            } catch (ArithmeticException e) {
+                // Не влазить в long - це вже не число з фіксованою комою
+            }
+        }
+        throw new IllegalStateException("Value is not a fixed-point number: " + getValue());
+    }
+
+    /**
+     * Кількість visualParameters (0, якщо списку немає зовсім)
+     */
+    public int getVisualParametersCount() {
+        return Math.max(0, record().getInt(position + GEM_VISUAL_COUNT));
+    }
+
+    public BigDecimal getTransparency(int visualIndex) {
+        long offset = visualOffset(visualIndex);
+        return readDecimal(store.visual.segment(offset), store.visual.position(offset) + VISUAL_TRANSPARENCY);
+    }
+
+    /**
+     * Кількість граней або null
+     */
+    public Integer getFacets(int visualIndex) {
+        long offset = visualOffset(visualIndex);
+        ByteBuffer visual = store.visual.segment(offset);
+        int visualPosition = store.visual.position(offset);
+        return visual.get(visualPosition + VISUAL_HAS_FACETS) == 0 ? null : visual.getInt(visualPosition + VISUAL_FACETS);
+    }
+
+    /**
+     * Кількість кольорів (0, якщо списку немає зовсім)
+     */
+    public int getColorCount(int visualIndex) {
+        long offset = visualOffset(visualIndex);
+        return Math.max(0, store.visual.segment(offset).getInt(store.visual.position(offset) + VISUAL_COLOR_COUNT));
+    }
+
+    public Color getColor(int visualIndex, int colorIndex) {
+        if (colorIndex < 0 || colorIndex >= getColorCount(visualIndex)) {
+            throw new IndexOutOfBoundsException("Color index " + colorIndex + " out of bounds");
+        }
+        long offset = visualOffset(visualIndex);
+        long colors = store.visual.segment(offset).getLong(store.visual.position(offset) + VISUAL_COLORS);
+        byte ordinal = store.data.segment(colors).get(store.data.position(colors) + colorIndex);
+        return ordinal == NULL_ENUM ? null : COLORS[ordinal];
+    }
+
+    /**
+     * Повний об'єкт Gem з усіма полями поточного запису
+     */
+    public Gem toGem() {
+        ByteBuffer record = record();
+        Gem gem = new Gem();
+        gem.setId(getId());
+        gem.setName(getName());
+        gem.setOrigin(getOrigin());
+        gem.setPreciousness(getPreciousness());
+        if (record.get(position + GEM_VALUE) == DECIMAL_COMPACT) {
+            gem.setValue(record.getLong(position + GEM_VALUE + 5), record.getInt(position + GEM_VALUE + 1));
+        } else {
+            gem.setValue(getValue());
+        }
+        int visualCount = record.getInt(position + GEM_VISUAL_COUNT);
+        if (visualCount == NULL_COUNT) {
+            gem.setVisualParameters(null);
+            return gem;
+        }
+        List<VisualParameters> visual = new ArrayList<>(visualCount);
+        for (int v = 0; v < visualCount; v++) {
+            visual.add(toVisualParameters(v));
+        }
+        gem.setVisualParameters(visual);
+        return gem;
+    }
+
+    private VisualParameters toVisualParameters(int visualIndex) {
+        long offset = visualOffset(visualIndex);
+        ByteBuffer visual = store.visual.segment(offset);
+        int visualPosition = store.visual.position(offset);
+        VisualParameters params = new VisualParameters();
+        if (visual.get(visualPosition + VISUAL_TRANSPARENCY) == DECIMAL_COMPACT) {
+            params.setTransparency(visual.getLong(visualPosition + VISUAL_TRANSPARENCY + 5),
+                                   visual.getInt(visualPosition + VISUAL_TRANSPARENCY + 1));
+        } else {
+            params.setTransparency(getTransparency(visualIndex));
+        }
+        if (visual.get(visualPosition + VISUAL_HAS_FACETS) != 0) {
+            params.setFacets(visual.getInt(visualPosition + VISUAL_FACETS));
+        }
+        int colorCount = visual.getInt(visualPosition + VISUAL_COLOR_COUNT);
+        if (colorCount == NULL_COUNT) {
+            params.setColors(null);
+        } else {
+            List<Color> colors = new ArrayList<>(colorCount);
+            for (int c = 0; c < colorCount; c++) {
+                colors.add(getColor(visualIndex, c));
+            }
+            params.setColors(colors);
+        }
+        return params;
+    }
+
+    private BigDecimal readDecimal(ByteBuffer buffer, int decimalPosition) {
+        byte kind = buffer.get(decimalPosition);
+        int scale = buffer.getInt(decimalPosition + 1);
+        long unscaled = buffer.getLong(decimalPosition + 5);
+        switch (kind) {
+            case DECIMAL_NULL:
+                return null;
+            case DECIMAL_COMPACT:
+                return BigDecimal.valueOf(unscaled, scale);
+            case DECIMAL_STRING:
+                return new BigDecimal(store.readString(unscaled));
+            default:
+                throw new IllegalStateException("Unknown decimal kind: " + kind);
+        }
+    }
+
+    private long visualOffset(int visualIndex) {
+        if (visualIndex < 0 || visualIndex >= getVisualParametersCount()) {
+            throw new IndexOutOfBoundsException("Visual parameters index " + visualIndex + " out of bounds");
+        }
+        return store.visualOffset(record().getLong(position + GEM_VISUAL_INDEX) + visualIndex);
+    }
+
+    private ByteBuffer record() {
+        if (segment == null) {
+            throw new IllegalStateException("View is not positioned on a gem");
+        }
+        return segment;
+    }
+}
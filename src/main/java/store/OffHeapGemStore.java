@@ -0,0 +1,482 @@
+package store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Сховище каменів поза купою Java - для інвентарів на сотні мільйонів каменів
+ *
+ * Камені не зберігаються як об'єкти: кожен камінь - запис фіксованої ширини в області gems,
+ * кожен visualParameters - запис в області visual, а рядки і кольори лежать в області data
+ * Області - це direct ByteBuffer (inMemory()) або відображений у пам'ять файл (open(directory)),
+ * тому купа і робота збирача сміття не залежать від розміру інвентарю
+ *
+ * Читання - через GemView: один об'єкт-курсор, який переставляється на потрібний запис
+ * і читає поля прямо з буфера; toGem() створює звичайний Gem, якщо він все ж потрібен
+ *
+ * Сховище можна передати будь-якому потоковому парсеру як consumer: parser.parse(path, store)
+ * Файлове сховище після close() (або flush()) відкривається знову тим самим open(directory)
+ *
+ * Запис - з одного потоку; читати можна з кількох потоків (кожен зі своїм GemView),
+ * але тільки коли в цей час нічого не додається
+ */
+public final class OffHeapGemStore implements Consumer<Gem>, Closeable {
+    private static final Logger logger = LogManager.getLogger(OffHeapGemStore.class);
+
+    private static final int MAGIC = 0x47454D4F; // "GEMO"
+    private static final short VERSION = 1;
+
+    static final long NULL_OFFSET = -1;
+    static final int NULL_COUNT = -1;
+    static final byte NULL_ENUM = -1;
+
+    // Як закодоване число: kind (1) + scale (4) + unscaled або зсув тексту в data (8)
+    static final byte DECIMAL_NULL = 0;
+    static final byte DECIMAL_COMPACT = 1;
+    static final byte DECIMAL_STRING = 2;
+    static final int DECIMAL_SIZE = 1 + 4 + 8;
+    static final long[] POWERS_OF_TEN = {1, 10, 100, 1000};
+
+    // Запис каменя
+    static final int GEM_ID = 0;
+    static final int GEM_NAME = 8;
+    static final int GEM_ORIGIN = 16;
+    static final int GEM_PRECIOUSNESS = 24;
+    static final int GEM_VALUE = 25;
+    static final int GEM_VISUAL_INDEX = GEM_VALUE + DECIMAL_SIZE;
+    static final int GEM_VISUAL_COUNT = GEM_VISUAL_INDEX + 8;
+    static final int GEM_RECORD_SIZE = GEM_VISUAL_COUNT + 4;
+
+    // Запис visualParameters
+    static final int VISUAL_TRANSPARENCY = 0;
+    static final int VISUAL_HAS_FACETS = DECIMAL_SIZE;
+    static final int VISUAL_FACETS = VISUAL_HAS_FACETS + 1;
+    static final int VISUAL_COLORS = VISUAL_FACETS + 4;
+    static final int VISUAL_COLOR_COUNT = VISUAL_COLORS + 8;
+    static final int VISUAL_RECORD_SIZE = VISUAL_COLOR_COUNT + 4;
+
+    // Заголовок: magic, версія, кількості записів, зайнятий розмір data, розміри сегментів
+    // (від них залежить, де лежать рядки) і імена констант enum
+    private static final int HEADER_SIZE = 1024;
+    private static final int HEADER_GEM_COUNT = 8;
+    private static final int HEADER_VISUAL_COUNT = 16;
+    private static final int HEADER_DATA_SIZE = 24;
+    private static final int HEADER_SEGMENT_RECORDS = 32;
+    private static final int HEADER_DATA_SEGMENT_SIZE = 36;
+    private static final int HEADER_ENUMS = 40;
+
+    static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+    static final int DEFAULT_DATA_SEGMENT_SIZE = 4 << 20;
+
+    // Скільки різних назв і походжень запам'ятовуємо, щоб не писати однакові рядки знову
+    private static final int MAX_SHARED_STRINGS = 4096;
+
+    static final Preciousness[] PRECIOUSNESS = Preciousness.values();
+    static final Color[] COLORS = Color.values();
+
+    private final List<FileChannel> channels;
+    private final Region header;
+    final Region gems;
+    final Region visual;
+    final Region data;
+    private final int segmentRecords;
+    private final Map<String, Long> sharedStrings = new HashMap<>();
+    private long gemCount;
+    private long visualCount;
+    private long dataSize;
+    private boolean closed;
+
+    private OffHeapGemStore(List<FileChannel> channels, Region header, int segmentRecords, int dataSegmentSize) {
+        this.channels = channels;
+        this.header = header;
+        this.segmentRecords = segmentRecords;
+        this.gems = new Region(channels.isEmpty() ? null : channels.get(1), segmentRecords * GEM_RECORD_SIZE);
+        this.visual = new Region(channels.isEmpty() ? null : channels.get(2), segmentRecords * VISUAL_RECORD_SIZE);
+        this.data = new Region(channels.isEmpty() ? null : channels.get(3), dataSegmentSize);
+    }
+
+    /**
+     * Сховище в direct буферах - живе, поки живий об'єкт
+     */
+    public static OffHeapGemStore inMemory() {
+        return inMemory(DEFAULT_SEGMENT_RECORDS, DEFAULT_DATA_SEGMENT_SIZE);
+    }
+
+    static OffHeapGemStore inMemory(int segmentRecords, int dataSegmentSize) {
+        Region header = new Region(null, HEADER_SIZE);
+        OffHeapGemStore store = new OffHeapGemStore(new ArrayList<>(), header, segmentRecords, dataSegmentSize);
+        try {
+            header.ensureCapacity(HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        store.writeHeader();
+        return store;
+    }
+
+    /**
+     * Відкриваємо файлове сховище в папці або створюємо нове, якщо папка порожня
+     * @throws IOException якщо файли не є сховищем каменів або записані з іншими константами enum
+     */
+    public static OffHeapGemStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_DATA_SEGMENT_SIZE);
+    }
+
+    static OffHeapGemStore open(Path directory, int segmentRecords, int dataSegmentSize) throws IOException {
+        Files.createDirectories(directory);
+        List<FileChannel> channels = new ArrayList<>();
+        try {
+            for (String name : new String[]{"header.bin", "gems.bin", "visual.bin", "data.bin"}) {
+                channels.add(FileChannel.open(directory.resolve(name),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+            boolean created = channels.get(0).size() == 0;
+            Region header = new Region(channels.get(0), HEADER_SIZE);
+            header.ensureCapacity(HEADER_SIZE);
+            if (!created) {
+                // Сховище вже є - розміри сегментів беремо ті, з якими його записали
+                ByteBuffer buffer = header.segment(0);
+                if (buffer.getInt(0) != MAGIC) {
+                    throw new IOException("Not an off-heap gem store: " + directory);
+                }
+                segmentRecords = buffer.getInt(HEADER_SEGMENT_RECORDS);
+                dataSegmentSize = buffer.getInt(HEADER_DATA_SEGMENT_SIZE);
+            }
+            OffHeapGemStore store = new OffHeapGemStore(channels, header, segmentRecords, dataSegmentSize);
+            if (created) {
+                store.writeHeader();
+            } else {
+                store.readHeader(directory);
+            }
+            logger.info("Opened off-heap gem store {} with {} gems", directory, store.gemCount);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Кількість каменів у сховищі
+     */
+    public long size() {
+        return gemCount;
+    }
+
+    /**
+     * Додаємо камінь
+     * @return номер каменя у сховищі
+     */
+    public long append(Gem gem) throws IOException {
+        checkOpen();
+        List<VisualParameters> params = gem.getVisualParameters();
+        long visualIndex = visualCount;
+        if (params != null) {
+            visual.ensureCapacity((visualCount + params.size()) * VISUAL_RECORD_SIZE);
+            for (VisualParameters p : params) {
+                writeVisual(visualCount++, p);
+            }
+        }
+
+        gems.ensureCapacity((gemCount + 1) * GEM_RECORD_SIZE);
+        long offset = gemCount * GEM_RECORD_SIZE;
+        ByteBuffer segment = gems.segment(offset);
+        int position = gems.position(offset);
+        segment.putLong(position + GEM_ID, writeString(gem.getId()));
+        segment.putLong(position + GEM_NAME, writeSharedString(gem.getName()));
+        segment.putLong(position + GEM_ORIGIN, writeSharedString(gem.getOrigin()));
+        segment.put(position + GEM_PRECIOUSNESS,
+                    gem.getPreciousness() == null ? NULL_ENUM : (byte) gem.getPreciousness().ordinal());
+        if (gem.isValueFixedPoint()) {
+            // Звичайна вартість пишеться з тисячних без створення BigDecimal
+            writeFixed(segment, position + GEM_VALUE, gem.getValueThousandths(), gem.getValueScale(), Gem.VALUE_SCALE);
+        } else {
+            writeDecimal(segment, position + GEM_VALUE, gem.getValue());
+        }
+        segment.putLong(position + GEM_VISUAL_INDEX, visualIndex);
+        segment.putInt(position + GEM_VISUAL_COUNT, params == null ? NULL_COUNT : params.size());
+
+        // Лічильники в заголовку оновлюємо останніми - недописаний камінь після збою просто не видно
+        long index = gemCount++;
+        updateCounts();
+        return index;
+    }
+
+    /**
+     * Додавання для парсерів; помилки вводу-виводу загортаються в UncheckedIOException
+     */
+    @Override
+    public void accept(Gem gem) {
+        try {
+            append(gem);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Новий курсор для читання, ще не поставлений на жоден камінь
+     */
+    public GemView view() {
+        return new GemView(this);
+    }
+
+    /**
+     * Курсор, поставлений на камінь index
+     */
+    public GemView view(long index) {
+        return view().moveTo(index);
+    }
+
+    /**
+     * Звичайний об'єкт Gem для каменя index
+     */
+    public Gem get(long index) {
+        return view(index).toGem();
+    }
+
+    /**
+     * Проходимо по всіх каменях одним курсором - нових об'єктів на кожен камінь не створюється
+     * Курсор не можна запам'ятовувати: на наступному кроці він показує вже інший камінь
+     */
+    public void forEach(Consumer<GemView> action) {
+        GemView view = view();
+        for (long i = 0; i < gemCount; i++) {
+            action.accept(view.moveTo(i));
+        }
+    }
+
+    /**
+     * Скидаємо файлове сховище на диск (для сховища в пам'яті нічого не робить)
+     */
+    public void flush() {
+        data.force();
+        visual.force();
+        gems.force();
+        header.force();
+    }
+
+    /**
+     * Скидаємо дані на диск і закриваємо файли
+     * Відображена пам'ять звільняється збирачем сміття, коли зникнуть усі курсори
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        for (FileChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    long gemOffset(long index) {
+        if (index < 0 || index >= gemCount) {
+            throw new IndexOutOfBoundsException("Gem index " + index + " out of bounds for size " + gemCount);
+        }
+        return index * GEM_RECORD_SIZE;
+    }
+
+    long visualOffset(long index) {
+        return index * VISUAL_RECORD_SIZE;
+    }
+
+    String readString(long offset) {
+        if (offset == NULL_OFFSET) {
+            return null;
+        }
+        ByteBuffer segment = data.segment(offset);
+        int position = data.position(offset);
+        byte[] bytes = new byte[segment.getInt(position)];
+        // Абсолютне читання масиву з'явилось тільки в Java 13, тому через копію буфера
+        ByteBuffer source = segment.duplicate();
+        source.position(position + 4);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeVisual(long index, VisualParameters params) throws IOException {
+        long offset = visualOffset(index);
+        ByteBuffer segment = visual.segment(offset);
+        int position = visual.position(offset);
+        if (params.isTransparencyFixedPoint()) {
+            writeFixed(segment, position + VISUAL_TRANSPARENCY, params.getTransparencyBasisPoints(),
+                       params.getTransparencyScale(), VisualParameters.TRANSPARENCY_SCALE);
+        } else {
+            writeDecimal(segment, position + VISUAL_TRANSPARENCY, params.getTransparency());
+        }
+        segment.put(position + VISUAL_HAS_FACETS, (byte) (params.hasFacets() ? 1 : 0));
+        segment.putInt(position + VISUAL_FACETS, params.hasFacets() ? params.getFacetsAsInt() : 0);
+        List<Color> colors = params.getColors();
+        if (colors == null) {
+            segment.putLong(position + VISUAL_COLORS, NULL_OFFSET);
+            segment.putInt(position + VISUAL_COLOR_COUNT, NULL_COUNT);
+            return;
+        }
+        long colorsOffset = reserveData(colors.size());
+        ByteBuffer colorSegment = data.segment(colorsOffset);
+        int colorPosition = data.position(colorsOffset);
+        for (int c = 0; c < colors.size(); c++) {
+            Color color = colors.get(c);
+            colorSegment.put(colorPosition + c, color == null ? NULL_ENUM : (byte) color.ordinal());
+        }
+        segment.putLong(position + VISUAL_COLORS, colorsOffset);
+        segment.putInt(position + VISUAL_COLOR_COUNT, colors.size());
+    }
+
+    /**
+     * Число з фіксованою комою моделі (fixed одиниць 10^-fixedScale, задане з scale знаками після коми)
+     * пишеться як DECIMAL_COMPACT з тим самим scale - так само, як writeDecimal записав би getValue()
+     */
+    private static void writeFixed(ByteBuffer segment, int position, long fixed, int scale, int fixedScale) {
+        segment.put(position, DECIMAL_COMPACT);
+        segment.putInt(position + 1, scale);
+        segment.putLong(position + 5, fixed / POWERS_OF_TEN[fixedScale - scale]);
+    }
+
+    private void writeDecimal(ByteBuffer segment, int position, BigDecimal value) throws IOException {
+        if (value == null) {
+            segment.put(position, DECIMAL_NULL);
+            segment.putInt(position + 1, 0);
+            segment.putLong(position + 5, 0);
+        } else if (value.unscaledValue().bitLength() < Long.SIZE) {
+            segment.put(position, DECIMAL_COMPACT);
+            segment.putInt(position + 1, value.scale());
+            segment.putLong(position + 5, value.unscaledValue().longValue());
+        } else {
+            // Сегмент запису вже виділений, а рядок іде в іншу область - позиція не зсувається
+            long text = writeString(value.toString());
+            segment.put(position, DECIMAL_STRING);
+            segment.putInt(position + 1, 0);
+            segment.putLong(position + 5, text);
+        }
+    }
+
+    /**
+     * Назви і походження повторюються, тому однакові пишемо один раз (в межах MAX_SHARED_STRINGS різних)
+     */
+    private long writeSharedString(String s) throws IOException {
+        if (s == null) {
+            return NULL_OFFSET;
+        }
+        Long shared = sharedStrings.get(s);
+        if (shared != null) {
+            return shared;
+        }
+        long offset = writeString(s);
+        if (sharedStrings.size() < MAX_SHARED_STRINGS) {
+            sharedStrings.put(s, offset);
+        }
+        return offset;
+    }
+
+    private long writeString(String s) throws IOException {
+        if (s == null) {
+            return NULL_OFFSET;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        long offset = reserveData(4 + bytes.length);
+        ByteBuffer target = data.segment(offset).duplicate();
+        target.position(data.position(offset));
+        target.putInt(bytes.length);
+        target.put(bytes);
+        return offset;
+    }
+
+    /**
+     * Місце під length байт в області data; якщо в поточному сегменті не вміщається - з початку наступного
+     */
+    private long reserveData(int length) throws IOException {
+        int segmentSize = data.segmentSize();
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Value of " + length + " bytes does not fit into a data segment");
+        }
+        long offset = dataSize;
+        if (offset % segmentSize + length > segmentSize) {
+            offset = (offset / segmentSize + 1) * segmentSize;
+        }
+        data.ensureCapacity(offset + length);
+        dataSize = offset + length;
+        return offset;
+    }
+
+    private void updateCounts() {
+        ByteBuffer buffer = header.segment(0);
+        buffer.putLong(HEADER_VISUAL_COUNT, visualCount);
+        buffer.putLong(HEADER_DATA_SIZE, dataSize);
+        buffer.putLong(HEADER_GEM_COUNT, gemCount);
+    }
+
+    private void writeHeader() {
+        ByteBuffer buffer = header.segment(0);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putInt(HEADER_SEGMENT_RECORDS, segmentRecords);
+        buffer.putInt(HEADER_DATA_SEGMENT_SIZE, data.segmentSize());
+        byte[] enums = enumNames().getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(HEADER_ENUMS, enums.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(HEADER_ENUMS + 4);
+        target.put(enums);
+        updateCounts();
+    }
+
+    private void readHeader(Path directory) throws IOException {
+        ByteBuffer buffer = header.segment(0);
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported gem store version " + version + ": " + directory);
+        }
+        byte[] enums = new byte[buffer.getInt(HEADER_ENUMS)];
+        ByteBuffer source = buffer.duplicate();
+        source.position(HEADER_ENUMS + 4);
+        source.get(enums);
+        // Записи тримають порядкові номери констант, тому вони мають збігатися з поточними
+        if (!enumNames().equals(new String(enums, StandardCharsets.UTF_8))) {
+            throw new IOException("Gem store was written with different enum constants: " + directory);
+        }
+        gemCount = buffer.getLong(HEADER_GEM_COUNT);
+        visualCount = buffer.getLong(HEADER_VISUAL_COUNT);
+        dataSize = buffer.getLong(HEADER_DATA_SIZE);
+        gems.ensureCapacity(gemCount * GEM_RECORD_SIZE);
+        visual.ensureCapacity(visualCount * VISUAL_RECORD_SIZE);
+        data.ensureCapacity(dataSize);
+    }
+
+    private static String enumNames() {
+        return Arrays.stream(PRECIOUSNESS).map(Enum::name).collect(Collectors.joining(","))
+               + ";" + Arrays.stream(COLORS).map(Enum::name).collect(Collectors.joining(","));
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Gem store is closed");
+        }
+    }
+}
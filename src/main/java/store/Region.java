@@ -0,0 +1,71 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Область пам'яті поза купою, поділена на сегменти однакового розміру
+ * Один ByteBuffer адресує не більше 2 ГБ, тому велика область - це список сегментів,
+ * а зсув у ній - long: номер сегмента = offset / segmentSize, позиція в сегменті = offset % segmentSize
+ *
+ * Сегменти - або direct ByteBuffer (сховище в пам'яті), або відображені ділянки файлу (MappedByteBuffer)
+ * Записи ніколи не перетинають межу сегмента - про це дбає той, хто пише
+ */
+final class Region {
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * @param channel файл для відображення; null - direct буфери в пам'яті
+     */
+    Region(FileChannel channel, int segmentSize) {
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+    }
+
+    int segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Додаємо сегменти, поки область не вмістить size байт
+     * Для файлу відображення сегмента за кінцем файлу збільшує сам файл
+     */
+    void ensureCapacity(long size) throws IOException {
+        while ((long) segments.size() * segmentSize < size) {
+            segments.add(allocate(segments.size()));
+        }
+    }
+
+    ByteBuffer segment(long offset) {
+        return segments.get((int) (offset / segmentSize));
+    }
+
+    int position(long offset) {
+        return (int) (offset % segmentSize);
+    }
+
+    /**
+     * Скидаємо змінені сторінки відображеного файлу на диск
+     */
+    void force() {
+        if (channel == null) {
+            return;
+        }
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    private ByteBuffer allocate(int index) throws IOException {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(segmentSize);
+        }
+        return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentSize, segmentSize);
+    }
+}
@@ -0,0 +1,342 @@
+package transformer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потокова заміна transform.xsl: групує камені за дорогоцінністю в GemsByPreciousness
+ * XSLT будує в пам'яті дерево всього документа і проходить його двічі (по разу на кожну групу),
+ * а тут файл читається один раз через StAX і в пам'яті тримається тільки один камінь.
+ * Дорогоцінні камені пишуться одразу в результат, напівдорогоцінні - у тимчасовий файл,
+ * який в кінці дописується в групу SemiPreciousGems.
+ *
+ * Результат збігається з виводом XslTransformer з точністю до відступів і зайвих оголошень namespace
+ * (тобто в канонічній формі): як і xsl:copy-of, дочірні елементи каменя копіюються разом з усіма
+ * namespace, видимими в оригінальному документі
+ */
+public class StreamingGemTransformer {
+    private static final Logger logger = LogManager.getLogger(StreamingGemTransformer.class);
+
+    private static final String NAMESPACE = "http://www.diamondfund.ua/gems";
+    private static final String ROOT = "GemsByPreciousness";
+    private static final String PRECIOUS_GROUP = "PreciousGems";
+    private static final String SEMI_PRECIOUS_GROUP = "SemiPreciousGems";
+    private static final String INDENT = "    ";
+
+    private final XMLInputFactory inputFactory;
+    private final XMLOutputFactory outputFactory;
+    private final Path spoolDirectory;
+
+    public StreamingGemTransformer() {
+        this(null);
+    }
+
+    /**
+     * @param spoolDirectory де створювати тимчасовий файл для напівдорогоцінних каменів; null - системна тимчасова папка
+     */
+    public StreamingGemTransformer(Path spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+        this.inputFactory = XMLInputFactory.newInstance();
+        this.outputFactory = XMLOutputFactory.newInstance();
+    }
+
+    public void transform(String xmlFilePath, String outputFilePath) throws Exception {
+        logger.info("Starting streaming transformation. Input: {}, Output: {}", xmlFilePath, outputFilePath);
+
+        Path spool = spoolDirectory == null
+            ? Files.createTempFile("semi-precious-gems", ".xml")
+            : Files.createTempFile(spoolDirectory, "semi-precious-gems", ".xml");
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(Paths.get(xmlFilePath)));
+             OutputStream output = new BufferedOutputStream(Files.newOutputStream(Paths.get(outputFilePath)))) {
+            int[] counts = transform(input, output, spool);
+            logger.info("Streaming transformation completed. Precious: {}, semi-precious: {}", counts[0], counts[1]);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * @return кількість дорогоцінних і напівдорогоцінних каменів
+     */
+    private int[] transform(InputStream input, OutputStream output, Path spool) throws XMLStreamException, IOException {
+        XMLEventReader reader = inputFactory.createXMLEventReader(input);
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(output, "UTF-8");
+        int precious = 0;
+        int semiPrecious = 0;
+
+        try (OutputStream spoolOutput = new BufferedOutputStream(Files.newOutputStream(spool))) {
+            XMLStreamWriter spoolWriter = outputFactory.createXMLStreamWriter(spoolOutput, "UTF-8");
+
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("", ROOT, NAMESPACE);
+            writer.writeDefaultNamespace(NAMESPACE);
+            indent(writer, 1);
+            writer.writeStartElement("", PRECIOUS_GROUP, NAMESPACE);
+
+            // Стек оголошень namespace від кореня до поточного елемента
+            Deque<List<Namespace>> namespaces = new ArrayDeque<>();
+            List<XMLEvent> gem = new ArrayList<>();
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    if (isGem(start)) {
+                        // Збираємо весь камінь (і тільки його) і вирішуємо в яку групу він іде
+                        Map<String, String> inScope = inScopeNamespaces(namespaces, start);
+                        readGem(reader, start, gem);
+                        String preciousness = preciousness(gem);
+                        if ("precious".equals(preciousness)) {
+                            writeGem(writer, gem, inScope);
+                            precious++;
+                        } else if ("semi-precious".equals(preciousness)) {
+                            writeGem(spoolWriter, gem, inScope);
+                            semiPrecious++;
+                        }
+                        gem.clear();
+                        continue;
+                    }
+                    namespaces.push(declaredNamespaces(start));
+                } else if (event.isEndElement()) {
+                    namespaces.pop();
+                }
+            }
+            spoolWriter.flush();
+            spoolWriter.close();
+        }
+
+        if (precious > 0) {
+            indent(writer, 1);
+        }
+        writer.writeEndElement();
+        indent(writer, 1);
+        writer.writeStartElement("", SEMI_PRECIOUS_GROUP, NAMESPACE);
+        if (semiPrecious > 0) {
+            // Закриваємо відкриваючий тег групи і дописуємо тимчасовий файл байт в байт
+            writer.writeCharacters("");
+            writer.flush();
+            Files.copy(spool, output);
+            indent(writer, 1);
+        }
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+        reader.close();
+        return new int[] {precious, semiPrecious};
+    }
+
+    private static boolean isGem(StartElement start) {
+        return "gem".equals(start.getName().getLocalPart()) && NAMESPACE.equals(start.getName().getNamespaceURI());
+    }
+
+    /**
+     * Читаємо події каменя від відкриваючого до його закриваючого тегу включно
+     */
+    private static void readGem(XMLEventReader reader, StartElement start, List<XMLEvent> gem) throws XMLStreamException {
+        gem.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            gem.add(event);
+        }
+    }
+
+    /**
+     * Текст дочірнього елемента preciousness (як в XPath - без обрізання пробілів)
+     */
+    private static String preciousness(List<XMLEvent> gem) {
+        StringBuilder text = null;
+        int depth = 0;
+        for (XMLEvent event : gem) {
+            if (event.isStartElement()) {
+                depth++;
+                QName name = event.asStartElement().getName();
+                if (depth == 2 && "preciousness".equals(name.getLocalPart()) && NAMESPACE.equals(name.getNamespaceURI())) {
+                    text = new StringBuilder();
+                }
+            } else if (event.isEndElement()) {
+                if (depth == 2 && text != null) {
+                    return text.toString();
+                }
+                depth--;
+            } else if (event.isCharacters() && text != null) {
+                text.append(event.asCharacters().getData());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Пишемо камінь так само як шаблон з transform.xsl:
+     * новий елемент gem без namespace, копії атрибутів і копії дочірніх елементів
+     * (текст і коментарі безпосередньо в gem не копіюються, бо select="*")
+     */
+    private static void writeGem(XMLStreamWriter writer, List<XMLEvent> gem, Map<String, String> inScope)
+            throws XMLStreamException {
+        StartElement start = gem.get(0).asStartElement();
+        indent(writer, 2);
+        writer.writeStartElement("", "gem", "");
+        writer.writeDefaultNamespace("");
+        for (Iterator<?> it = start.getAttributes(); it.hasNext(); ) {
+            Attribute attribute = (Attribute) it.next();
+            QName name = attribute.getName();
+            if (!name.getPrefix().isEmpty()) {
+                writer.writeNamespace(name.getPrefix(), name.getNamespaceURI());
+            }
+            writer.writeAttribute(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), attribute.getValue());
+        }
+
+        int depth = 0;
+        for (int i = 1; i < gem.size() - 1; i++) {
+            XMLEvent event = gem.get(i);
+            switch (event.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    StartElement element = event.asStartElement();
+                    if (depth == 0) {
+                        indent(writer, 3);
+                    }
+                    writeStartElement(writer, element, depth == 0 ? withOwn(inScope, element) : null);
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0) {
+                        Characters characters = event.asCharacters();
+                        writer.writeCharacters(characters.getData());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (depth > 0) {
+                        writer.writeComment(((Comment) event).getText());
+                    }
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    if (depth > 0) {
+                        ProcessingInstruction pi = (ProcessingInstruction) event;
+                        writer.writeProcessingInstruction(pi.getTarget(), pi.getData());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        indent(writer, 2);
+        writer.writeEndElement();
+    }
+
+    /**
+     * @param namespaces які namespace оголосити на елементі; null - тільки ті, що оголошені на ньому в оригіналі
+     */
+    private static void writeStartElement(XMLStreamWriter writer, StartElement element, Map<String, String> namespaces)
+            throws XMLStreamException {
+        QName name = element.getName();
+        writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+        Map<String, String> declarations = namespaces != null ? namespaces : declaredMap(element);
+        for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+            if (declaration.getKey().isEmpty()) {
+                writer.writeDefaultNamespace(declaration.getValue());
+            } else {
+                writer.writeNamespace(declaration.getKey(), declaration.getValue());
+            }
+        }
+        for (Iterator<?> it = element.getAttributes(); it.hasNext(); ) {
+            Attribute attribute = (Attribute) it.next();
+            QName attributeName = attribute.getName();
+            writer.writeAttribute(attributeName.getPrefix(), attributeName.getNamespaceURI(),
+                                  attributeName.getLocalPart(), attribute.getValue());
+        }
+    }
+
+    private static List<Namespace> declaredNamespaces(StartElement start) {
+        List<Namespace> declared = new ArrayList<>();
+        for (Iterator<?> it = start.getNamespaces(); it.hasNext(); ) {
+            declared.add((Namespace) it.next());
+        }
+        return declared;
+    }
+
+    private static Map<String, String> declaredMap(StartElement start) {
+        Map<String, String> declared = new LinkedHashMap<>();
+        for (Iterator<?> it = start.getNamespaces(); it.hasNext(); ) {
+            Namespace namespace = (Namespace) it.next();
+            declared.put(namespace.getPrefix(), namespace.getNamespaceURI());
+        }
+        return declared;
+    }
+
+    /**
+     * Всі namespace, видимі на елементі gem (оголошені на ньому і на його предках)
+     */
+    private static Map<String, String> inScopeNamespaces(Deque<List<Namespace>> namespaces, StartElement gem) {
+        Map<String, String> inScope = new LinkedHashMap<>();
+        // Стек зберігає найглибший елемент першим, тому йдемо з кінця - від кореня
+        for (Iterator<List<Namespace>> it = namespaces.descendingIterator(); it.hasNext(); ) {
+            for (Namespace namespace : it.next()) {
+                inScope.put(namespace.getPrefix(), namespace.getNamespaceURI());
+            }
+        }
+        inScope.putAll(declaredMap(gem));
+        return inScope;
+    }
+
+    private static Map<String, String> withOwn(Map<String, String> inScope, StartElement element) {
+        Map<String, String> namespaces = new LinkedHashMap<>(inScope);
+        namespaces.putAll(declaredMap(element));
+        // Порожній default namespace оголошувати не потрібно - gem і так без namespace
+        if ("".equals(namespaces.get(""))) {
+            namespaces.remove("");
+        }
+        return namespaces;
+    }
+
+    private static void indent(XMLStreamWriter writer, int level) throws XMLStreamException {
+        StringBuilder indent = new StringBuilder("\n");
+        for (int i = 0; i < level; i++) {
+            indent.append(INDENT);
+        }
+        writer.writeCharacters(indent.toString());
+    }
+}
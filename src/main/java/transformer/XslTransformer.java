@@ -3,21 +3,29 @@ package transformer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class XslTransformer {
     private static final Logger logger = LogManager.getLogger(XslTransformer.class);
 
+    // Скомпільовані стилі (Templates) спільні для всіх екземплярів трансформера
+    // Ключ - абсолютний шлях до XSL, запис перевіряється за часом зміни і розміром файлу
+    private static final ConcurrentMap<String, CachedTemplates> TEMPLATES = new ConcurrentHashMap<>();
+
     public void transform(String xmlFilePath, String xslFilePath, String outputFilePath) throws Exception {
         logger.info("Starting XSL transformation. Input: {}, XSL: {}, Output: {}", 
                    xmlFilePath, xslFilePath, outputFilePath);
         
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer(new StreamSource(new File(xslFilePath)));
+        // Templates потокобезпечні, а Transformer з них створюється дешево - тому новий на кожен виклик
+        Transformer transformer = compileTemplates(xslFilePath).newTransformer();
         
         transformer.transform(
             new StreamSource(new File(xmlFilePath)),
@@ -26,5 +34,51 @@ public class XslTransformer {
         
         logger.info("XSL transformation completed successfully");
     }
-}
 
+    /**
+     * Компілюємо XSL стиль в Templates
+     * Компіляція - найдорожча частина трансформації малих файлів, тому результат кешується,
+     * поки файл XSL не змінився
+     * @param xslFilePath шлях до XSL файлу
+     * @return скомпільований стиль (потокобезпечний)
+     */
+    public Templates compileTemplates(String xslFilePath) throws TransformerConfigurationException {
+        File xslFile = new File(xslFilePath).getAbsoluteFile();
+        String key = xslFile.getPath();
+        long lastModified = xslFile.lastModified();
+        long size = xslFile.length();
+
+        CachedTemplates cached = TEMPLATES.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.size == size) {
+            return cached.templates;
+        }
+
+        logger.debug("Compiling XSL stylesheet: {}", key);
+        // TransformerFactory не потокобезпечна, тому кожна компіляція бере свою фабрику
+        TransformerFactory factory = TransformerFactory.newInstance();
+        Templates templates = factory.newTemplates(new StreamSource(xslFile));
+        if (lastModified != 0) {
+            TEMPLATES.put(key, new CachedTemplates(templates, lastModified, size));
+        }
+        return templates;
+    }
+
+    /**
+     * Очищаємо кеш скомпільованих стилів
+     */
+    public static void clearCache() {
+        TEMPLATES.clear();
+    }
+
+    private static final class CachedTemplates {
+        private final Templates templates;
+        private final long lastModified;
+        private final long size;
+
+        CachedTemplates(Templates templates, long lastModified, long size) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package validator;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.xml.sax.SAXException;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
@@ -10,17 +11,21 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class XmlValidator {
     private static final Logger logger = LogManager.getLogger(XmlValidator.class);
 
+    // Скомпільовані схеми спільні для всіх екземплярів валідатора
+    // Ключ - абсолютний шлях до XSD, запис перевіряється за часом зміни і розміром файлу
+    private static final ConcurrentMap<String, CachedSchema> SCHEMAS = new ConcurrentHashMap<>();
+
     public boolean validate(String xmlFilePath, String xsdFilePath) {
         try {
             logger.info("Starting validation of XML file: {} against XSD: {}", xmlFilePath, xsdFilePath);
             
-            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = factory.newSchema(new File(xsdFilePath));
-            Validator validator = schema.newValidator();
+            Validator validator = cachedSchema(xsdFilePath).validator();
             
             Source source = new StreamSource(new File(xmlFilePath));
             validator.validate(source);
@@ -32,5 +37,72 @@ public class XmlValidator {
             return false;
         }
     }
-}
 
+    /**
+     * Компілюємо XSD схему в об'єкт Schema
+     * Його можна передати в SaxGemParser - тоді валідація відбувається прямо під час парсингу,
+     * і файл не доводиться читати двічі
+     * Схема компілюється один раз і береться з кешу, поки файл XSD не змінився
+     * @param xsdFilePath шлях до XSD файлу
+     * @return скомпільована схема (потокобезпечна, можна використовувати повторно)
+     */
+    public Schema compileSchema(String xsdFilePath) throws SAXException {
+        return cachedSchema(xsdFilePath).schema;
+    }
+
+    /**
+     * Очищаємо кеш схем (наприклад, щоб звільнити пам'ять)
+     */
+    public static void clearCache() {
+        SCHEMAS.clear();
+    }
+
+    private static CachedSchema cachedSchema(String xsdFilePath) throws SAXException {
+        File xsdFile = new File(xsdFilePath).getAbsoluteFile();
+        String key = xsdFile.getPath();
+        long lastModified = xsdFile.lastModified();
+        long size = xsdFile.length();
+
+        CachedSchema cached = SCHEMAS.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.size == size) {
+            return cached;
+        }
+
+        // Файл новий або змінився - компілюємо заново
+        // Якщо два потоки одночасно це зроблять, обидві схеми однакові і в кеші залишиться остання
+        logger.debug("Compiling XSD schema: {}", key);
+        // SchemaFactory не потокобезпечна, тому кожна компіляція бере свою фабрику
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        CachedSchema compiled = new CachedSchema(factory.newSchema(xsdFile), lastModified, size);
+        if (lastModified != 0) {
+            // lastModified == 0 означає що файл не вдалося прочитати (наприклад схема з classpath) - таке не кешуємо
+            SCHEMAS.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Скомпільована схема разом з Validator'ами для неї
+     * Validator не потокобезпечний, тому кожен потік отримує свій і перевикористовує його
+     */
+    private static final class CachedSchema {
+        private final Schema schema;
+        private final long lastModified;
+        private final long size;
+        private final ThreadLocal<Validator> validators;
+
+        CachedSchema(Schema schema, long lastModified, long size) {
+            this.schema = schema;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.validators = ThreadLocal.withInitial(schema::newValidator);
+        }
+
+        Validator validator() {
+            Validator validator = validators.get();
+            // Скидаємо стан після попередньої (можливо невдалої) валідації
+            validator.reset();
+            return validator;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package comparator;
+
+import generator.InventoryGenerator;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalGemSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path inventory;
+    private Path runDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        inventory = tempDir.resolve("inventory.xml");
+        InventoryGenerator generator = new InventoryGenerator(23);
+        generator.setVisualParametersRange(1, 3);
+        generator.generate(inventory, 3000);
+        runDir = tempDir.resolve("runs");
+    }
+
+    @Test
+    void testSpilledSortMatchesInMemorySort() throws Exception {
+        ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byValue());
+        sorter.setMemoryBudget(200_000);
+        sorter.setTempDirectory(runDir);
+
+        List<Gem> sorted = new ArrayList<>();
+        long count = sorter.sort(new StaxGemParser(), inventory.toString(), sorted::add);
+
+        assertEquals(3000, count);
+        assertEquals(expected(GemComparator.byValue()), sorted);
+        assertRunFilesDeleted();
+    }
+
+    @Test
+    void testParallelRunGeneration() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byPreciousnessAndValue(), pool);
+            sorter.setMemoryBudget(300_000);
+            sorter.setTempDirectory(runDir);
+
+            List<Gem> sorted = new ArrayList<>();
+            sorter.sort(new StaxGemParser(), inventory.toString(), sorted::add);
+
+            assertEquals(expected(GemComparator.byPreciousnessAndValue()), sorted);
+            assertRunFilesDeleted();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMultiPassMergeWhenManyRuns() throws Exception {
+        ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byName());
+        // Кілька каменів на серію - серій набагато більше ніж MAX_FAN_IN
+        sorter.setMemoryBudget(5_000);
+        sorter.setTempDirectory(runDir);
+
+        List<Gem> sorted = new ArrayList<>();
+        sorter.sort(new StaxGemParser(), inventory.toString(), sorted::add);
+
+        assertEquals(expected(GemComparator.byName()), sorted);
+        assertRunFilesDeleted();
+    }
+
+    @Test
+    void testSortsInMemoryWhenBudgetIsLargeEnough() throws Exception {
+        ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byOrigin());
+        sorter.setMemoryBudget(Long.MAX_VALUE);
+        sorter.setTempDirectory(runDir);
+
+        List<Gem> sorted = new ArrayList<>();
+        sorter.sort(new StaxGemParser(), inventory.toString(), sorted::add);
+
+        assertEquals(expected(GemComparator.byOrigin()), sorted);
+        assertFalse(Files.exists(runDir));
+    }
+
+    @Test
+    void testSortToXmlFile() throws Exception {
+        ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byValue());
+        sorter.setMemoryBudget(200_000);
+        sorter.setTempDirectory(runDir);
+        Path output = tempDir.resolve("sorted.xml");
+
+        sorter.sort(new StaxGemParser(), inventory.toString(), output);
+
+        assertEquals(expected(GemComparator.byValue()), new StaxGemParser().parse(output.toString()));
+    }
+
+    @Test
+    void testRunFileRoundTrip() throws Exception {
+        Gem full = new Gem("g1", "Діамант", Preciousness.PRECIOUS, "Україна",
+            Arrays.asList(new VisualParameters(Arrays.asList(Color.RED, null), new BigDecimal("12.50"), 7),
+                          new VisualParameters(null, null, null)),
+            new BigDecimal("123456789012345678901234567890.123"));
+        Gem empty = new Gem();
+        empty.setVisualParameters(null);
+        Path file = tempDir.resolve("run.bin");
+
+        try (GemRunFile.Writer writer = new GemRunFile.Writer(file)) {
+            writer.write(full);
+            writer.write(empty);
+        }
+        try (GemRunFile.Reader reader = new GemRunFile.Reader(file)) {
+            assertEquals(full, reader.read());
+            Gem read = reader.read();
+            assertEquals(empty, read);
+            assertNull(read.getVisualParameters());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void testInvalidBudget() {
+        ExternalGemSorter sorter = new ExternalGemSorter(GemComparator.byValue());
+        assertThrows(IllegalArgumentException.class, () -> sorter.setMemoryBudget(0));
+    }
+
+    private List<Gem> expected(Comparator<Gem> comparator) throws Exception {
+        List<Gem> gems = new StaxGemParser().parse(inventory.toString());
+        gems.sort(comparator);
+        return gems;
+    }
+
+    private void assertRunFilesDeleted() throws Exception {
+        try (Stream<Path> files = Files.list(runDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package comparator;
+
+import generator.InventoryGenerator;
+import model.Gem;
+import model.Preciousness;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastGemComparatorTest {
+    private static final String[] WORDS = {
+        "Diamond", "diamond", "DIAMOND", "Diamonds", "Ruby", "rUBY", "Émeraude", "émeraude", "Straße", "STRASSE",
+        "Алмаз", "алмаз", "АЛМАЗ", "Ґранат", "ґранат", "İstanbul", "istanbul", "ISTANBUL", "ıdır", "µm", "ΜM",
+        "ǅemal", "ǆemal", "Ǆemal", "a", "", "A b", "a B", "Zircon", "zircon~", "Zircon_", "ſtone", "Stone"
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameOrderAsGemComparatorOnGeneratedInventory() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        InventoryGenerator generator = new InventoryGenerator(11);
+        generator.setNames("Diamond", "diamond", "RUBY", "Ruby", "émeraude", "Émeraude", "Topaz");
+        generator.setOrigins("Brazil", "brazil", "Sri Lanka", "SRI LANKA", "Україна", "україна");
+        generator.setValueRange(new BigDecimal("0.5"), new BigDecimal("3.0"), InventoryGenerator.Distribution.UNIFORM);
+        generator.generate(file, 2000);
+        List<Gem> gems = new StaxGemParser().parse(file.toString());
+
+        assertSameOrder(gems, GemComparator.byName(), FastGemComparator.byName());
+        assertSameOrder(gems, GemComparator.byOrigin(), FastGemComparator.byOrigin());
+        assertSameOrder(gems, GemComparator.byValue(), FastGemComparator.byValue());
+        assertSameOrder(gems, GemComparator.byPreciousnessAndValue(), FastGemComparator.byPreciousnessAndValue());
+    }
+
+    @Test
+    void testCompareIgnoreCaseMatchesCaseInsensitiveOrder() {
+        Random random = new Random(5);
+        List<String> strings = new ArrayList<>(Arrays.asList(WORDS));
+        for (int i = 0; i < 500; i++) {
+            strings.add(WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)]);
+        }
+        for (String a : strings) {
+            for (String b : strings) {
+                int expected = Integer.signum(String.CASE_INSENSITIVE_ORDER.compare(a, b));
+                assertEquals(expected, Integer.signum(FastGemComparator.compareIgnoreCase(a, b)), a + " vs " + b);
+                assertEquals(expected, Integer.signum(FastGemComparator.foldCase(a).compareTo(FastGemComparator.foldCase(b))),
+                             "folded " + a + " vs " + b);
+            }
+        }
+    }
+
+    @Test
+    void testFoldCaseReturnsSameInstanceWhenAlreadyFolded() {
+        String folded = "sri lanka";
+
+        assertSame(folded, FastGemComparator.foldCase(folded));
+        assertEquals("sri lanka", FastGemComparator.foldCase("Sri Lanka"));
+        assertNull(FastGemComparator.foldCase(null));
+    }
+
+    @Test
+    void testPreciousnessOrdinalOrderMatchesValueOrder() {
+        Preciousness[] values = Preciousness.values();
+        for (Preciousness a : values) {
+            for (Preciousness b : values) {
+                assertEquals(Integer.signum(a.getValue().compareTo(b.getValue())),
+                             Integer.signum(Integer.compare(a.ordinal(), b.ordinal())));
+            }
+        }
+    }
+
+    @Test
+    void testNullsFirst() {
+        Gem empty = new Gem();
+        Gem full = new Gem("g1", "Ruby", Preciousness.SEMI_PRECIOUS, "Myanmar", null, BigDecimal.ONE);
+        List<Gem> gems = new ArrayList<>(Arrays.asList(full, empty));
+
+        for (Comparator<Gem> comparator : Arrays.asList(FastGemComparator.byName(), FastGemComparator.byOrigin(),
+                FastGemComparator.byValue(), FastGemComparator.byPreciousnessAndValue())) {
+            Collections.sort(gems, comparator);
+            assertSame(empty, gems.get(0));
+            assertEquals(0, comparator.compare(empty, new Gem()));
+        }
+    }
+
+    private static void assertSameOrder(List<Gem> gems, Comparator<Gem> expected, Comparator<Gem> actual) {
+        List<Gem> expectedOrder = new ArrayList<>(gems);
+        List<Gem> actualOrder = new ArrayList<>(gems);
+        expectedOrder.sort(expected);
+        actualOrder.sort(actual);
+        // Сортування стабільне, тому однаковий порядок означає однакові результати порівняння
+        for (int i = 0; i < gems.size(); i++) {
+            assertSame(expectedOrder.get(i), actualOrder.get(i));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package comparator;
+
+import comparator.GemSorter.SortKey;
+import generator.InventoryGenerator;
+import model.Gem;
+import model.Preciousness;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameOrderAsGemComparator() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        InventoryGenerator generator = new InventoryGenerator(3);
+        generator.setNames("Diamond", "diamond", "RUBY", "Ruby", "émeraude", "Émeraude", "Topaz");
+        generator.setOrigins("Brazil", "brazil", "Sri Lanka", "SRI LANKA", "Україна", "україна");
+        generator.setValueRange(new BigDecimal("0.5"), new BigDecimal("30.0"), InventoryGenerator.Distribution.UNIFORM);
+        // Більше 8192 елементів - Arrays.parallelSort справді сортує паралельно
+        generator.generate(file, 20000);
+        List<Gem> gems = new StaxGemParser().parse(file.toString());
+
+        assertSameOrder(gems, GemComparator.byName(), SortKey.NAME);
+        assertSameOrder(gems, GemComparator.byValue(), SortKey.VALUE);
+        assertSameOrder(gems, GemComparator.byOrigin(), SortKey.ORIGIN);
+        assertSameOrder(gems, GemComparator.byPreciousnessAndValue(), SortKey.PRECIOUSNESS_AND_VALUE);
+    }
+
+    @Test
+    void testMixedScalesAndNegativeValues() {
+        List<Gem> gems = Arrays.asList(
+            gem("a", "1.5"), gem("b", "1.50"), gem("c", "-2"), gem("d", "0.001"), gem("e", "100"), gem("f", "1.5"));
+
+        assertSameOrder(gems, GemComparator.byValue(), SortKey.VALUE);
+        assertSameOrder(gems, GemComparator.byPreciousnessAndValue(), SortKey.PRECIOUSNESS_AND_VALUE);
+    }
+
+    @Test
+    void testFallsBackWhenValuesDoNotFitIntoKey() {
+        List<Gem> gems = Arrays.asList(
+            gem("a", "123456789012345678901234567890"), gem("b", "0.0000000000000000000001"), gem("c", "1E+5"),
+            gem("d", "1"), gem("e", "1.0"));
+
+        assertSameOrder(gems, GemComparator.byValue(), SortKey.VALUE);
+        assertSameOrder(gems, GemComparator.byPreciousnessAndValue(), SortKey.PRECIOUSNESS_AND_VALUE);
+    }
+
+    @Test
+    void testNullsFirst() {
+        Gem empty = new Gem();
+        List<Gem> gems = Arrays.asList(gem("a", "2"), empty, gem("b", "1"));
+
+        for (SortKey key : SortKey.values()) {
+            assertSame(empty, GemSorter.sorted(gems, key).get(0), key.name());
+            assertEquals(GemSorter.sorted(gems, key), sortedWith(gems, key.comparator()), key.name());
+        }
+    }
+
+    @Test
+    void testSortInPlaceAndSortedCopy() {
+        List<Gem> original = Arrays.asList(gem("b", "2"), gem("a", "3"), gem("c", "1"));
+        List<Gem> copy = new ArrayList<>(original);
+
+        List<Gem> sorted = GemSorter.sorted(copy, SortKey.VALUE);
+        assertEquals(original, copy);
+        assertEquals(Arrays.asList("c", "b", "a"), names(sorted));
+
+        LinkedList<Gem> linked = new LinkedList<>(original);
+        GemSorter.sort(linked, SortKey.NAME);
+        assertEquals(Arrays.asList("a", "b", "c"), names(linked));
+    }
+
+    @Test
+    void testEmptyAndSingleElement() {
+        assertTrue(GemSorter.sorted(new ArrayList<>(), SortKey.NAME).isEmpty());
+        Gem gem = gem("a", "1");
+        assertSame(gem, GemSorter.sorted(Arrays.asList(gem), SortKey.VALUE).get(0));
+    }
+
+    private static void assertSameOrder(List<Gem> gems, Comparator<Gem> comparator, SortKey key) {
+        List<Gem> expected = sortedWith(gems, comparator);
+        List<Gem> actual = GemSorter.sorted(gems, key);
+        assertEquals(expected.size(), actual.size());
+        // Обидва сортування стабільні, тому порядок має збігатися до кожного об'єкта
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), key + " at " + i);
+        }
+    }
+
+    private static List<Gem> sortedWith(List<Gem> gems, Comparator<Gem> comparator) {
+        List<Gem> sorted = new ArrayList<>(gems);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private static List<String> names(List<Gem> gems) {
+        List<String> names = new ArrayList<>();
+        for (Gem gem : gems) {
+            names.add(gem.getName());
+        }
+        return names;
+    }
+
+    private static Gem gem(String name, String value) {
+        return new Gem(name, name, Preciousness.PRECIOUS, "Origin", null, new BigDecimal(value));
+    }
+}
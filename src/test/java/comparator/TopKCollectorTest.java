@@ -0,0 +1,105 @@
+package comparator;
+
+import generator.InventoryGenerator;
+import model.Gem;
+import model.Preciousness;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKCollectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStreamingTopKMatchesFullSort() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        new InventoryGenerator(17).generate(file, 5000);
+        List<Gem> all = new StaxGemParser().parse(file.toString());
+
+        for (Comparator<Gem> comparator : Arrays.asList(GemComparator.byValue(), GemComparator.byPreciousnessAndValue(),
+                GemComparator.byName())) {
+            TopKCollector top = new TopKCollector(100, comparator);
+            new StaxGemParser().parse(file.toString(), top);
+
+            List<Gem> expected = topBySort(all, comparator, 100);
+            List<Gem> actual = top.getTop();
+            assertEquals(100, actual.size());
+            assertEquals(5000, top.getSeenCount());
+            // Камені з двох різних парсингів - порівнюємо за вмістом (id у всіх різні)
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testTiesKeepEarlierGems() {
+        Gem first = gem("first", "5");
+        Gem second = gem("second", "5");
+        Gem third = gem("third", "5");
+        TopKCollector top = new TopKCollector(2, GemComparator.byValue());
+
+        top.accept(first);
+        top.accept(gem("small", "1"));
+        top.accept(second);
+        top.accept(third);
+
+        assertEquals(Arrays.asList(first, second), top.getTop());
+    }
+
+    @Test
+    void testFewerGemsThanK() {
+        TopKCollector top = new TopKCollector(10, GemComparator.byValue());
+        top.accept(gem("a", "1"));
+        top.accept(gem("b", "3"));
+        top.accept(gem("c", "2"));
+
+        assertEquals(Arrays.asList("b", "c", "a"), names(top.getTop()));
+    }
+
+    @Test
+    void testHugeKDoesNotReserveMemory() {
+        TopKCollector top = new TopKCollector(Integer.MAX_VALUE, GemComparator.byValue());
+        top.accept(gem("a", "1"));
+        top.accept(gem("b", "2"));
+
+        assertEquals(Arrays.asList("b", "a"), names(top.getTop()));
+    }
+
+    @Test
+    void testZeroAndNegativeK() {
+        TopKCollector top = new TopKCollector(0, GemComparator.byValue());
+        top.accept(gem("a", "1"));
+
+        assertTrue(top.getTop().isEmpty());
+        assertEquals(1, top.getSeenCount());
+        assertThrows(IllegalArgumentException.class, () -> new TopKCollector(-1, GemComparator.byValue()));
+    }
+
+    private static List<Gem> topBySort(List<Gem> gems, Comparator<Gem> comparator, int k) {
+        List<Gem> sorted = new ArrayList<>(gems);
+        sorted.sort(comparator.reversed());
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    private static List<String> names(List<Gem> gems) {
+        List<String> names = new ArrayList<>();
+        for (Gem gem : gems) {
+            names.add(gem.getName());
+        }
+        return names;
+    }
+
+    private static Gem gem(String name, String value) {
+        return new Gem(name, name, Preciousness.PRECIOUS, "Origin", null, new BigDecimal(value));
+    }
+}
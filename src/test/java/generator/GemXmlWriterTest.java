@@ -0,0 +1,74 @@
+package generator;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.SaxGemParser;
+import parser.StaxGemParser;
+import validator.XmlValidator;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemXmlWriterTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String XSD_FILE = "src/main/resources/xsd/gems.xsd";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteRoundTrip() throws Exception {
+        List<Gem> gems = new StaxGemParser().parse(XML_FILE);
+        Path file = tempDir.resolve("written.xml");
+
+        GemXmlWriter.write(file, gems);
+
+        assertTrue(new XmlValidator().validate(file.toString(), XSD_FILE));
+        assertEquals(gems.toString(), new SaxGemParser().parse(file.toString()).toString());
+    }
+
+    @Test
+    void testWriteEscapesTextAndUsesPlainDecimals() throws Exception {
+        VisualParameters params = new VisualParameters(new ArrayList<>(Collections.singletonList(Color.PINK)),
+                                                       new BigDecimal("5E+1"), 6);
+        Gem gem = new Gem("g1", "Rock & <Roll>", Preciousness.PRECIOUS, "Côte d'Ivoire",
+                          new ArrayList<>(Arrays.asList(params)), new BigDecimal("1.5E+3"));
+        Path file = tempDir.resolve("escaped.xml");
+
+        GemXmlWriter.write(file, Collections.singletonList(gem));
+
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(content.contains("<value>1500</value>"));
+        assertTrue(content.contains("<transparency>50</transparency>"));
+        assertTrue(new XmlValidator().validate(file.toString(), XSD_FILE));
+        Gem parsed = new SaxGemParser().parse(file.toString()).get(0);
+        assertEquals("Rock & <Roll>", parsed.getName());
+        assertEquals("Côte d'Ivoire", parsed.getOrigin());
+    }
+
+    @Test
+    void testWriteSkipsNullFields() throws Exception {
+        Path file = tempDir.resolve("nulls.xml");
+        try (GemXmlWriter writer = new GemXmlWriter(Files.newOutputStream(file))) {
+            writer.write(new Gem());
+            assertEquals(1, writer.getGemCount());
+        }
+
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(content.contains("<gem>"));
+        assertFalse(content.contains("id="));
+        assertFalse(content.contains("name"));
+    }
+}
@@ -0,0 +1,123 @@
+package generator;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+import validator.XmlValidator;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryGeneratorTest {
+    private static final String XSD_FILE = "src/main/resources/xsd/gems.xsd";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGeneratedFileIsValid() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        new InventoryGenerator(1).generate(file, 500);
+
+        assertTrue(new XmlValidator().validate(file.toString(), XSD_FILE));
+        assertEquals(500, new StaxGemParser().parse(file.toString()).size());
+    }
+
+    @Test
+    void testSameSeedGivesSameFile() throws Exception {
+        Path first = tempDir.resolve("first.xml");
+        Path second = tempDir.resolve("second.xml");
+        Path other = tempDir.resolve("other.xml");
+        new InventoryGenerator(7).generate(first, 200);
+        new InventoryGenerator(7).generate(second, 200);
+        new InventoryGenerator(8).generate(other, 200);
+
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+        assertFalse(java.util.Arrays.equals(Files.readAllBytes(first), Files.readAllBytes(other)));
+    }
+
+    @Test
+    void testDistributionsAreRespected() throws Exception {
+        InventoryGenerator generator = new InventoryGenerator(3);
+        generator.setPreciousShare(0);
+        generator.setVisualParametersRange(2, 3);
+        generator.setColorRange(3, 3);
+        generator.setColors(Color.RED, Color.BLUE);
+        generator.setTransparencyRange(new BigDecimal("10.5"), new BigDecimal("20.0"));
+        generator.setFacetsRange(8, 8);
+        generator.setValueRange(new BigDecimal("0.01"), new BigDecimal("1000"), InventoryGenerator.Distribution.LOG_UNIFORM);
+        generator.setNames("Opal");
+        generator.setOrigins("Peru");
+        Path file = tempDir.resolve("custom.xml");
+        generator.generate(file, 300);
+
+        assertTrue(new XmlValidator().validate(file.toString(), XSD_FILE));
+        List<Gem> gems = new StaxGemParser().parse(file.toString());
+        assertEquals(300, gems.size());
+        int belowOne = 0;
+        for (Gem gem : gems) {
+            assertEquals(Preciousness.SEMI_PRECIOUS, gem.getPreciousness());
+            assertEquals("Opal", gem.getName());
+            assertEquals("Peru", gem.getOrigin());
+            assertTrue(gem.getVisualParameters().size() >= 2 && gem.getVisualParameters().size() <= 3);
+            for (VisualParameters params : gem.getVisualParameters()) {
+                assertEquals(3, params.getColors().size());
+                assertTrue(params.getColors().stream().allMatch(c -> c == Color.RED || c == Color.BLUE));
+                assertTrue(params.getTransparency().compareTo(new BigDecimal("10.5")) >= 0);
+                assertTrue(params.getTransparency().compareTo(new BigDecimal("20.0")) <= 0);
+                assertEquals(8, params.getFacets());
+            }
+            assertTrue(gem.getValue().signum() > 0);
+            assertTrue(gem.getValue().compareTo(new BigDecimal("1000")) <= 0);
+            if (gem.getValue().compareTo(BigDecimal.ONE) < 0) {
+                belowOne++;
+            }
+        }
+        // При лог-рівномірному розподілі від 0.01 до 1000 приблизно 40% значень менші за 1
+        assertTrue(belowOne > 60, "Log-uniform values should be skewed to small numbers: " + belowOne);
+    }
+
+    @Test
+    void testGenerateEmptyInventory() throws Exception {
+        Path file = tempDir.resolve("empty.xml");
+        new InventoryGenerator(1).generate(file, 0);
+
+        assertTrue(new XmlValidator().validate(file.toString(), XSD_FILE));
+        assertTrue(new StaxGemParser().parse(file.toString()).isEmpty());
+    }
+
+    @Test
+    void testInvalidSettingsAreRejected() {
+        InventoryGenerator generator = new InventoryGenerator(1);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.setPreciousShare(1.5));
+        assertThrows(IllegalArgumentException.class, () -> generator.setColorRange(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> generator.setFacetsRange(3, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> generator.setValueRange(BigDecimal.ZERO, BigDecimal.TEN, InventoryGenerator.Distribution.UNIFORM));
+        assertThrows(IllegalArgumentException.class,
+            () -> generator.setTransparencyRange(BigDecimal.ONE, new BigDecimal("100.5")));
+    }
+
+    @Test
+    void testWideRangesDoNotOverflow() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(InventoryGenerator.between(random, 1, Integer.MAX_VALUE) >= 1);
+            InventoryGenerator.between(random, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            int value = InventoryGenerator.between(random, -5, Integer.MAX_VALUE);
+            assertTrue(value >= -5, "value: " + value);
+        }
+        assertEquals(3, InventoryGenerator.between(random, 3, 3));
+        assertDoesNotThrow(() -> new InventoryGenerator(1).setColorRange(1, Integer.MAX_VALUE));
+    }
+}
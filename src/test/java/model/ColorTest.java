@@ -70,4 +70,24 @@ class ColorTest {
             Color.fromString(" red ");
         });
     }
+
+    @Test
+    void testParseTrimsWithoutCreatingString() {
+        for (Color color : Color.values()) {
+            assertSame(color, Color.parse(new StringBuilder(" \n").append(color.getValue()).append('\t')));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Color.parse("purpl"));
+        assertThrows(IllegalArgumentException.class, () -> Color.parse("bluE"));
+        assertThrows(IllegalArgumentException.class, () -> Color.parse("  "));
+    }
+
+    @Test
+    void testMasksAreDistinctBits() {
+        int all = 0;
+        for (Color color : Color.values()) {
+            assertEquals(1, Integer.bitCount(color.mask()));
+            assertEquals(0, all & color.mask());
+            all |= color.mask();
+        }
+    }
 }
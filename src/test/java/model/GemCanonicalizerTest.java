@@ -0,0 +1,142 @@
+package model;
+
+import generator.InventoryGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.ByteGemParser;
+import parser.DomGemParser;
+import parser.ParallelGemParser;
+import parser.SaxGemParser;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemCanonicalizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSharesEqualStrings() {
+        GemCanonicalizer canonicalizer = new GemCanonicalizer();
+        String first = new String("South Africa");
+        String second = new String("South Africa");
+
+        assertSame(first, canonicalizer.canonical(first));
+        assertSame(first, canonicalizer.canonical(second));
+        assertNull(canonicalizer.canonical((String) null));
+        assertEquals(1, canonicalizer.getStringCount());
+    }
+
+    @Test
+    void testSharesFrozenVisualParameters() {
+        GemCanonicalizer canonicalizer = new GemCanonicalizer();
+        VisualParameters first = visual();
+        VisualParameters second = visual();
+
+        assertSame(first, canonicalizer.canonical(first));
+        assertSame(first, canonicalizer.canonical(second));
+        assertTrue(first.isFrozen());
+        assertFalse(second.isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> first.setFacets(10));
+        assertThrows(UnsupportedOperationException.class, () -> first.getColors().add(Color.RED));
+    }
+
+    @Test
+    void testBoundedTable() {
+        GemCanonicalizer canonicalizer = new GemCanonicalizer(2);
+        canonicalizer.canonical("a");
+        canonicalizer.canonical("b");
+        String c = new String("c");
+
+        assertSame(c, canonicalizer.canonical(c));
+        assertNotSame(c, canonicalizer.canonical(new String("c")));
+        assertEquals(2, canonicalizer.getStringCount());
+
+        canonicalizer.canonical(visual());
+        VisualParameters other = new VisualParameters(new ArrayList<>(Arrays.asList(Color.RED)), BigDecimal.ONE, 5);
+        canonicalizer.canonical(other);
+        VisualParameters overflow = new VisualParameters(new ArrayList<>(Arrays.asList(Color.BLUE)), BigDecimal.ONE, 5);
+        assertSame(overflow, canonicalizer.canonical(overflow));
+        assertFalse(overflow.isFrozen());
+        assertEquals(2, canonicalizer.getVisualParametersCount());
+    }
+
+    @Test
+    void testCanonicalizeGem() {
+        GemCanonicalizer canonicalizer = new GemCanonicalizer();
+        Gem first = new Gem("g1", "Ruby", Preciousness.PRECIOUS, new String("Myanmar"),
+                            new ArrayList<>(Arrays.asList(visual())), BigDecimal.ONE);
+        Gem second = new Gem("g2", "Ruby", Preciousness.PRECIOUS, new String("Myanmar"),
+                             new ArrayList<>(Arrays.asList(visual())), BigDecimal.TEN);
+
+        canonicalizer.canonicalize(first);
+        canonicalizer.canonicalize(second);
+
+        assertSame(first.getOrigin(), second.getOrigin());
+        assertSame(first.getVisualParameters().get(0), second.getVisualParameters().get(0));
+        assertEquals(visual(), second.getVisualParameters().get(0));
+    }
+
+    @Test
+    void testParsersShareInstances() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        InventoryGenerator generator = new InventoryGenerator(9);
+        generator.setFacetsRange(4, 5);
+        generator.setColorRange(1, 1);
+        generator.setTransparencyRange(BigDecimal.ZERO, BigDecimal.ONE);
+        generator.generate(file, 3000);
+        List<Gem> expected = new StaxGemParser().parse(file.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            SaxGemParser sax = new SaxGemParser();
+            StaxGemParser stax = new StaxGemParser();
+            DomGemParser dom = new DomGemParser(pool);
+            ByteGemParser bytes = new ByteGemParser();
+            ParallelGemParser parallel = new ParallelGemParser(pool, 16 * 1024);
+            sax.setCanonicalizer(new GemCanonicalizer());
+            stax.setCanonicalizer(new GemCanonicalizer());
+            dom.setCanonicalizer(new GemCanonicalizer());
+            bytes.setCanonicalizer(new GemCanonicalizer());
+            parallel.setCanonicalizer(new GemCanonicalizer());
+
+            assertShared(expected, sax.parse(file.toString()));
+            assertShared(expected, stax.parse(file.toString()));
+            assertShared(expected, dom.parse(file.toString()));
+            assertShared(expected, bytes.parse(file.toString()));
+            assertShared(expected, parallel.parse(file.toString()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertShared(List<Gem> expected, List<Gem> gems) {
+        assertEquals(expected.size(), gems.size());
+        Map<Object, Boolean> origins = new IdentityHashMap<>();
+        Map<Object, Boolean> visual = new IdentityHashMap<>();
+        for (int i = 0; i < gems.size(); i++) {
+            Gem gem = gems.get(i);
+            assertEquals(expected.get(i).getOrigin(), gem.getOrigin());
+            assertEquals(expected.get(i).getVisualParameters(), gem.getVisualParameters());
+            origins.put(gem.getOrigin(), true);
+            visual.put(gem.getVisualParameters().get(0), true);
+        }
+        // 9 походжень за замовчуванням; один з 9 кольорів, прозорість 0 або 1 і 4 або 5 граней - не більше 36 комбінацій
+        assertTrue(origins.size() <= 9, "origins: " + origins.size());
+        assertTrue(visual.size() <= Color.values().length * 2 * 2, "visual parameters: " + visual.size());
+    }
+
+    private static VisualParameters visual() {
+        return new VisualParameters(new ArrayList<>(Arrays.asList(Color.GREEN, Color.BLUE)), new BigDecimal("50.5"), 8);
+    }
+}
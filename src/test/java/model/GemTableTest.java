@@ -0,0 +1,172 @@
+package model;
+
+import generator.InventoryGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testColumns() {
+        GemTable table = GemTable.of(gems());
+
+        assertEquals(3, table.size());
+        assertEquals("g1", table.getId(0));
+        assertEquals("Ruby", table.getName(0));
+        assertEquals("Myanmar", table.getOrigin(0));
+        assertEquals(Preciousness.PRECIOUS, table.getPreciousness(0));
+        assertEquals(1500, table.getValueThousandths(0));
+        assertEquals(Color.RED.mask() | Color.PINK.mask() | Color.WHITE.mask(),
+                     table.getColorMask(0));
+
+        assertEquals(0, table.visualStart(0));
+        assertEquals(2, table.visualEnd(0));
+        assertEquals(5050, table.getTransparencyBasisPoints(0));
+        assertEquals(8, table.getFacets(0));
+        assertEquals(GemTable.NULL_INT, table.getFacets(1));
+
+        assertNull(table.getName(2));
+        assertNull(table.getOrigin(2));
+        assertNull(table.getPreciousness(2));
+        assertFalse(table.hasValue(2));
+        assertEquals(table.visualStart(2), table.visualEnd(2));
+    }
+
+    @Test
+    void testFiltersAndAggregates() {
+        GemTable table = GemTable.of(gems());
+
+        assertArrayEquals(new int[]{0, 1}, table.rowsWithPreciousness(Preciousness.PRECIOUS));
+        assertArrayEquals(new int[]{0}, table.rowsWithOrigin("Myanmar"));
+        assertArrayEquals(new int[0], table.rowsWithOrigin("Mars"));
+        assertArrayEquals(new int[]{0}, table.rowsWithAnyColor(Color.WHITE.mask()));
+        assertArrayEquals(new int[]{1}, table.rowsWithValueBetween(2000, 3000));
+        assertArrayEquals(new int[]{2}, table.filter(row -> !table.hasValue(row)));
+
+        assertEquals(4000, table.sumValueThousandths());
+        assertEquals(new BigDecimal("4.000"), table.totalValue());
+        assertEquals(2500, table.sumValueThousandths(new int[]{1, 2}));
+        assertArrayEquals(new int[]{2, 0}, table.countByPreciousness());
+        assertEquals(Arrays.asList("Myanmar", "Colombia"), table.getOrigins());
+        assertArrayEquals(new int[]{1, 1}, table.countByOrigin());
+        assertArrayEquals(new long[]{1500, 2500}, table.sumValueThousandthsByOrigin());
+    }
+
+    @Test
+    void testToGem() {
+        List<Gem> gems = gems();
+        GemTable table = GemTable.of(gems);
+
+        Gem first = table.toGem(0);
+        assertEquals(gems.get(0).getId(), first.getId());
+        assertEquals(new BigDecimal("1.500"), first.getValue());
+        assertEquals(Arrays.asList(Color.RED, Color.PINK), first.getVisualParameters().get(0).getColors());
+        assertEquals(new BigDecimal("50.50"), first.getVisualParameters().get(0).getTransparency());
+        assertNull(first.getVisualParameters().get(1).getFacets());
+        assertNull(table.toGem(2).getValue());
+        List<Gem> selected = table.toGems(new int[]{1, 2});
+        assertEquals(gems.subList(1, 3), selected);
+    }
+
+    @Test
+    void testRowOfId() {
+        List<Gem> gems = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            gems.add(new Gem(String.format("gem%08d", i), "Ruby", Preciousness.PRECIOUS, "Myanmar", null, null));
+        }
+        gems.add(new Gem("gem00000007", "Opal", Preciousness.PRECIOUS, "Brazil", null, null));
+        gems.add(new Gem(null, "Opal", Preciousness.PRECIOUS, "Brazil", null, null));
+        GemTable table = GemTable.of(gems);
+
+        for (int i = 0; i < 5000; i += 7) {
+            assertEquals(i, table.rowOf(gems.get(i).getId()));
+        }
+        assertEquals(7, table.rowOf("gem00000007"));
+        assertEquals(-1, table.rowOf("gem99999999"));
+        assertEquals(-1, table.rowOf(null));
+        assertEquals(-1, GemTable.of(Collections.emptyList()).rowOf("g1"));
+    }
+
+    @Test
+    void testRoundsExactValues() {
+        Gem gem = new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Myanmar", new ArrayList<>(),
+                          new BigDecimal("1.23456"));
+
+        assertEquals(1235, GemTable.of(Collections.singletonList(gem)).getValueThousandths(0));
+    }
+
+    @Test
+    void testRoundsExactTransparency() {
+        VisualParameters exact = new VisualParameters(new ArrayList<>(Arrays.asList(Color.RED)),
+                                                      new BigDecimal("50.125"), 8);
+        Gem gem = new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Myanmar", new ArrayList<>(Arrays.asList(exact)),
+                          BigDecimal.ONE);
+
+        assertEquals(5012, GemTable.of(Collections.singletonList(gem)).getTransparencyBasisPoints(0));
+
+        // 2^64 + 1 базисних пунктів - longValue() відкинув би старші біти і дав 1
+        exact.setTransparency(new BigDecimal("184467440737095516.17"));
+        assertThrows(IllegalArgumentException.class, () -> GemTable.of(Collections.singletonList(gem)));
+    }
+
+    @Test
+    void testBuilderAsParserConsumer() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        new InventoryGenerator(5).generate(file, 5000);
+        StaxGemParser parser = new StaxGemParser();
+        List<Gem> gems = parser.parse(file.toString());
+
+        GemTable.Builder builder = new GemTable.Builder(16);
+        parser.parse(file.toString(), builder);
+        GemTable table = builder.build();
+
+        assertEquals(gems.size(), table.size());
+        long sum = 0;
+        int precious = 0;
+        for (Gem gem : gems) {
+            sum += gem.getValueThousandths();
+            if (gem.getPreciousness() == Preciousness.PRECIOUS) {
+                precious++;
+            }
+        }
+        assertEquals(sum, table.sumValueThousandths());
+        assertEquals(precious, table.rowsWithPreciousness(Preciousness.PRECIOUS).length);
+        for (int row = 0; row < gems.size(); row += 997) {
+            Gem expected = gems.get(row);
+            Gem actual = table.toGem(row);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getOrigin(), actual.getOrigin());
+            assertEquals(0, expected.getValue().compareTo(actual.getValue()));
+            assertEquals(expected.getVisualParameters().size(), actual.getVisualParameters().size());
+        }
+    }
+
+    private static List<Gem> gems() {
+        List<VisualParameters> ruby = new ArrayList<>(Arrays.asList(
+            new VisualParameters(new ArrayList<>(Arrays.asList(Color.PINK, Color.RED, Color.RED)),
+                                 new BigDecimal("50.5"), 8),
+            new VisualParameters(new ArrayList<>(Arrays.asList(Color.WHITE)), null, null)));
+        List<VisualParameters> emerald = new ArrayList<>(Arrays.asList(
+            new VisualParameters(new ArrayList<>(Arrays.asList(Color.GREEN)), BigDecimal.TEN, 12)));
+        Gem empty = new Gem();
+        empty.setId("g3");
+        empty.setVisualParameters(new ArrayList<>());
+        return new ArrayList<>(Arrays.asList(
+            new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Myanmar", ruby, new BigDecimal("1.5")),
+            new Gem("g2", "Emerald", Preciousness.PRECIOUS, "Colombia", emerald, new BigDecimal("2.5")),
+            empty));
+    }
+}
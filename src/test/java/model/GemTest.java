@@ -139,5 +139,82 @@ class GemTest {
         
         assertEquals(gem1, gem2);
     }
-}
 
+    @Test
+    void testFixedPointValueKeepsScale() {
+        Gem gem = new Gem();
+        gem.setValue(new BigDecimal("1.50"));
+
+        assertTrue(gem.isValueFixedPoint());
+        assertEquals(1500, gem.getValueThousandths());
+        assertEquals(new BigDecimal("1.50"), gem.getValue());
+        assertEquals(2, gem.getValue().scale());
+        assertEquals(2, gem.getValueScale());
+    }
+
+    @Test
+    void testSetValueFromUnscaled() {
+        Gem gem = new Gem();
+        gem.setValue(1250, 3);
+
+        assertEquals(1250, gem.getValueThousandths());
+        assertEquals(new BigDecimal("1.250"), gem.getValue());
+    }
+
+    @Test
+    void testExactFallbackForPreciseValues() {
+        Gem gem = new Gem();
+        gem.setValue(new BigDecimal("1.23456"));
+
+        assertTrue(gem.hasValue());
+        assertFalse(gem.isValueFixedPoint());
+        assertEquals(new BigDecimal("1.23456"), gem.getValue());
+        assertThrows(IllegalStateException.class, gem::getValueThousandths);
+        assertThrows(IllegalStateException.class, gem::getValueScale);
+
+        gem.setValue(new BigDecimal("123456789012345678901234567890"));
+        assertEquals(new BigDecimal("123456789012345678901234567890"), gem.getValue());
+        gem.setValue(new BigDecimal("1E+5"));
+        assertEquals(new BigDecimal("1E+5"), gem.getValue());
+    }
+
+    @Test
+    void testParseValueMatchesBigDecimal() {
+        String[] texts = {"1.5", "  100.0 ", "+0.25", "-3", "0", "7.", ".5", "-0.000", "1.2345", "1e3",
+                          "12345678901234567890.5"};
+        for (String text : texts) {
+            Gem gem = new Gem();
+            gem.parseValue(text);
+            assertEquals(new BigDecimal(text.trim()), gem.getValue(), text);
+        }
+        assertThrows(NumberFormatException.class, () -> new Gem().parseValue("abc"));
+        assertThrows(NumberFormatException.class, () -> new Gem().parseValue(""));
+    }
+
+    @Test
+    void testNullValue() {
+        Gem gem = new Gem();
+        assertFalse(gem.hasValue());
+        assertNull(gem.getValue());
+
+        gem.setValue(BigDecimal.ONE);
+        gem.setValue(null);
+        assertFalse(gem.hasValue());
+        assertNull(gem.getValue());
+    }
+
+    @Test
+    void testCompareValueTo() {
+        Gem small = new Gem();
+        small.setValue(new BigDecimal("1.5"));
+        Gem same = new Gem();
+        same.setValue(new BigDecimal("1.500"));
+        Gem precise = new Gem();
+        precise.setValue(new BigDecimal("1.5001"));
+
+        assertEquals(0, small.compareValueTo(same));
+        assertTrue(small.compareValueTo(precise) < 0);
+        assertTrue(precise.compareValueTo(same) > 0);
+        assertThrows(NullPointerException.class, () -> small.compareValueTo(new Gem()));
+    }
+}
@@ -56,4 +56,12 @@ class PreciousnessTest {
             Preciousness.fromString(" precious ");
         });
     }
+
+    @Test
+    void testParseTrimsWithoutCreatingString() {
+        assertEquals(Preciousness.PRECIOUS, Preciousness.parse(new StringBuilder("\n  precious ")));
+        assertEquals(Preciousness.SEMI_PRECIOUS, Preciousness.parse("semi-precious"));
+        assertThrows(IllegalArgumentException.class, () -> Preciousness.parse("semi_precious"));
+        assertThrows(IllegalArgumentException.class, () -> Preciousness.parse(""));
+    }
 }
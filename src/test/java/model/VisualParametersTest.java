@@ -132,4 +132,117 @@ class VisualParametersTest {
         assertNotNull(params.getColors());
         assertTrue(params.getColors().isEmpty());
     }
+
+    @Test
+    void testTransparencyInBasisPoints() {
+        VisualParameters params = new VisualParameters();
+        params.setTransparency(new BigDecimal("12.5"));
+
+        assertTrue(params.isTransparencyFixedPoint());
+        assertEquals(1250, params.getTransparencyBasisPoints());
+        assertEquals(new BigDecimal("12.5"), params.getTransparency());
+        assertEquals(1, params.getTransparencyScale());
+
+        params.setTransparency(9700, 2);
+        assertEquals(new BigDecimal("97.00"), params.getTransparency());
+        assertEquals(2, params.getTransparencyScale());
+
+        params.setTransparency(null);
+        assertThrows(IllegalStateException.class, params::getTransparencyScale);
+    }
+
+    @Test
+    void testParseTransparencyAndFacets() {
+        VisualParameters params = new VisualParameters();
+        params.parseTransparency(" 97 ");
+        params.parseFacets(" 12\n");
+
+        assertEquals(new BigDecimal("97"), params.getTransparency());
+        assertEquals(12, params.getFacetsAsInt());
+        assertEquals(Integer.valueOf(12), params.getFacets());
+
+        params.parseTransparency("0.125");
+        assertFalse(params.isTransparencyFixedPoint());
+        assertEquals(new BigDecimal("0.125"), params.getTransparency());
+        assertThrows(NumberFormatException.class, () -> params.parseFacets("12.5"));
+    }
+
+    @Test
+    void testNullFacetsAndTransparency() {
+        VisualParameters params = new VisualParameters(null, null, null);
+
+        assertFalse(params.hasFacets());
+        assertFalse(params.hasTransparency());
+        assertNull(params.getFacets());
+        assertNull(params.getTransparency());
+        assertThrows(IllegalStateException.class, params::getFacetsAsInt);
+    }
+
+    @Test
+    void testEqualsRespectsScale() {
+        VisualParameters a = new VisualParameters(Arrays.asList(Color.RED), new BigDecimal("50.0"), 8);
+        VisualParameters b = new VisualParameters(Arrays.asList(Color.RED), new BigDecimal("50.0"), 8);
+        VisualParameters c = new VisualParameters(Arrays.asList(Color.RED), new BigDecimal("50"), 8);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        // Як і BigDecimal.equals, 50.0 і 50 - різні значення
+        assertNotEquals(a, c);
+    }
+
+    @Test
+    void testAddColorAndMask() {
+        VisualParameters params = new VisualParameters();
+        params.addColor(Color.RED);
+        params.addColor(Color.BLUE);
+        params.addColor(Color.RED);
+
+        assertEquals(Arrays.asList(Color.RED, Color.BLUE, Color.RED), params.getColors());
+        assertEquals(3, params.getColorCount());
+        assertEquals(Color.RED.mask() | Color.BLUE.mask(), params.getColorMask());
+        assertTrue(params.hasColor(Color.BLUE));
+        assertFalse(params.hasColor(Color.GREEN));
+        assertThrows(UnsupportedOperationException.class, () -> params.getColors().add(Color.GREEN));
+    }
+
+    @Test
+    void testNullColors() {
+        VisualParameters params = new VisualParameters();
+        params.setColors(null);
+
+        assertNull(params.getColors());
+        assertEquals(0, params.getColorCount());
+        assertNotEquals(new VisualParameters(), params);
+
+        params.setColors(Arrays.asList(Color.WHITE, null));
+        assertEquals(Arrays.asList(Color.WHITE, null), params.getColors());
+        assertEquals(Color.WHITE.mask(), params.getColorMask());
+    }
+
+    @Test
+    void testManyColors() {
+        List<Color> colors = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            colors.add(Color.values()[i % Color.values().length]);
+        }
+        VisualParameters params = new VisualParameters(colors, null, null);
+        VisualParameters same = new VisualParameters();
+        colors.forEach(same::addColor);
+
+        assertEquals(colors, params.getColors());
+        assertEquals(params, same);
+        assertEquals(params.hashCode(), same.hashCode());
+        assertEquals(Color.values().length, Integer.bitCount(params.getColorMask()));
+    }
+
+    @Test
+    void testSetColorsCopiesList() {
+        List<Color> colors = new ArrayList<>(Arrays.asList(Color.PINK));
+        VisualParameters params = new VisualParameters();
+        params.setColors(colors);
+        colors.add(Color.BLACK);
+        params.setColors(params.getColors());
+
+        assertEquals(Arrays.asList(Color.PINK), params.getColors());
+    }
 }
@@ -0,0 +1,155 @@
+package parser;
+
+import model.Gem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteGemParserTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<Gem xmlns=\"http://www.diamondfund.ua/gems\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n";
+    private final ByteGemParser parser = new ByteGemParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParseMatchesStax() throws Exception {
+        assertSameGems(new StaxGemParser().parse(XML_FILE), parser.parse(XML_FILE));
+    }
+
+    @Test
+    void testParseNumbersWithoutStrings() throws Exception {
+        Path file = write("numbers.xml", HEADER
+            + gem("g1", "Diamond", "2.50", "95", "12")
+            + gem("g2", "Ruby", "+3", "0.5", "+8")
+            + gem("g3", "Topaz", ".75", "100.00", "04")
+            + "</Gem>");
+
+        List<Gem> gems = parser.parse(file.toString());
+
+        assertEquals(3, gems.size());
+        assertEquals(new BigDecimal("2.50"), gems.get(0).getValue());
+        assertEquals(new BigDecimal("+3"), gems.get(1).getValue());
+        assertEquals(new BigDecimal(".75"), gems.get(2).getValue());
+        assertEquals(new BigDecimal("100.00"), gems.get(2).getVisualParameters().get(0).getTransparency());
+        assertEquals(4, gems.get(2).getVisualParameters().get(0).getFacets());
+        assertSameGems(new StaxGemParser().parse(file.toString()), gems);
+    }
+
+    @Test
+    void testParseUtf8Text() throws Exception {
+        Path file = write("utf8.xml", HEADER + gem("g1", "Діамант", "1.5", "90", "10") + "</Gem>");
+
+        List<Gem> gems = parser.parse(file.toString());
+
+        assertEquals("Діамант", gems.get(0).getName());
+    }
+
+    @Test
+    void testFallbackOnEntityDoesNotDuplicateGems() throws Exception {
+        Path file = write("entity.xml", HEADER
+            + gem("g1", "Diamond", "1.5", "90", "10")
+            + gem("g2", "Rock &amp; Roll", "2.5", "80", "8")
+            + gem("g3", "Ruby", "3.5", "70", "6")
+            + "</Gem>");
+
+        List<Gem> gems = parser.parse(file.toString());
+
+        assertEquals(3, gems.size());
+        assertEquals("g2", gems.get(1).getId());
+        assertSameGems(new StaxGemParser().parse(file.toString()), gems);
+    }
+
+    @Test
+    void testFallbackOnPrefixedRoot() throws Exception {
+        String content = new String(Files.readAllBytes(Path.of(XML_FILE)), StandardCharsets.UTF_8)
+            .replace("<Gem xmlns=", "<g:Gem xmlns:g=")
+            .replace("</Gem>", "</g:Gem>")
+            .replaceAll("<(/?)(gem|name|preciousness|origin|visualParameters|color|transparency|facets|value)\\b",
+                        "<$1g:$2");
+        Path file = write("prefixed.xml", content);
+
+        List<Gem> gems = parser.parse(file.toString());
+
+        assertEquals(7, gems.size());
+        assertSameGems(new StaxGemParser().parse(file.toString()), gems);
+    }
+
+    @Test
+    void testFallbackOnCdataAndEmptyElements() throws Exception {
+        Path file = write("cdata.xml", HEADER
+            + gem("g1", "<![CDATA[Diamond]]>", "1.5", "90", "10")
+            + gem("g2", "Ruby", "2.5", "80", "8").replace("<origin>Origin</origin>", "<origin/>")
+            + "</Gem>");
+
+        assertSameGems(new StaxGemParser().parse(file.toString()), parser.parse(file.toString()));
+    }
+
+    @Test
+    void testForeignNamespaceHasNoGems() throws Exception {
+        Path file = write("foreign.xml", "<Gem xmlns=\"urn:other\">" + gem("g1", "Diamond", "1.5", "90", "10") + "</Gem>");
+
+        assertTrue(parser.parse(file.toString()).isEmpty());
+    }
+
+    @Test
+    void testUnknownColorFails() throws Exception {
+        Path file = write("color.xml", HEADER
+            + gem("g1", "Diamond", "1.5", "90", "10").replace("<color>red</color>", "<color>cyan</color>")
+            + "</Gem>");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(file.toString()));
+    }
+
+    @Test
+    void testMalformedXmlFails() throws Exception {
+        Path file = write("malformed.xml", HEADER + gem("g1", "Diamond", "1.5", "90", "10") + "<gem id=\"g2\"><name>x</gem>");
+
+        assertThrows(Exception.class, () -> parser.parse(file.toString()));
+    }
+
+    @Test
+    void testParseWithNonExistentFile() {
+        assertThrows(Exception.class, () -> {
+            parser.parse("nonexistent.xml");
+        });
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String gem(String id, String name, String value, String transparency, String facets) {
+        return "  <gem id=\"" + id + "\">\n"
+            + "    <name>" + name + "</name>\n"
+            + "    <preciousness>precious</preciousness>\n"
+            + "    <!-- comment -->\n"
+            + "    <origin>Origin</origin>\n"
+            + "    <visualParameters>\n"
+            + "      <color>red</color>\n"
+            + "      <color>blue</color>\n"
+            + "      <transparency>" + transparency + "</transparency>\n"
+            + "      <facets>" + facets + "</facets>\n"
+            + "    </visualParameters>\n"
+            + "    <value>" + value + "</value>\n"
+            + "  </gem>\n";
+    }
+
+    private static void assertSameGems(List<Gem> expected, List<Gem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+}
@@ -2,8 +2,13 @@ package parser;
 
 import model.Gem;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,5 +60,94 @@ class DomGemParserTest {
             parser.parse("/invalid/path/to/file.xml");
         });
     }
-}
 
+    @Test
+    void testParseMatchesStax() throws Exception {
+        assertSameGems(new StaxGemParser().parse(XML_FILE), parser.parse(XML_FILE));
+    }
+
+    @Test
+    void testParseWithoutDeferredNodeExpansion() throws Exception {
+        assertSameGems(parser.parse(XML_FILE), new DomGemParser(false).parse(XML_FILE));
+    }
+
+    @Test
+    void testParseWithPrefixesCommentsAndSplitText(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("prefixed.xml");
+        String content = "<g:Gem xmlns:g=\"http://www.diamondfund.ua/gems\">"
+            + "<g:gem id=\"p1\"><!-- c --><g:name>Opal <![CDATA[&]]> Co</g:name>"
+            + "<other xmlns=\"urn:other\"><name>ignored</name></other>"
+            + "<g:preciousness>semi-precious</g:preciousness><g:origin> Peru </g:origin>"
+            + "<g:visualParameters><g:color>blue</g:color><g:color>white</g:color>"
+            + "<g:transparency>40</g:transparency><g:facets>6</g:facets></g:visualParameters>"
+            + "<g:value>0.5</g:value></g:gem></g:Gem>";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        List<Gem> gems = parser.parse(file.toString());
+
+        assertEquals(1, gems.size());
+        assertEquals("Opal & Co", gems.get(0).getName());
+        assertEquals("Peru", gems.get(0).getOrigin());
+        assertEquals(2, gems.get(0).getVisualParameters().get(0).getColors().size());
+    }
+
+    @Test
+    void testParseWithMissingRequiredFieldFails(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("missing.xml");
+        String content = "<Gem xmlns=\"http://www.diamondfund.ua/gems\"><gem id=\"m1\"><name>X</name>"
+            + "<preciousness>precious</preciousness><origin>Y</origin></gem></Gem>";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(NumberFormatException.class, () -> parser.parse(file.toString()));
+    }
+
+    @Test
+    void testParseInParallelKeepsDocumentOrder(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("large.xml");
+        Files.write(file, inventory(5000, "red").getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Gem> sequential = parser.parse(file.toString());
+            List<Gem> parallel = new DomGemParser(pool).parse(file.toString());
+
+            assertEquals(5000, parallel.size());
+            assertSameGems(sequential, parallel);
+            assertSameGems(parser.parse(XML_FILE), new DomGemParser(pool).parse(XML_FILE));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParseInParallelPropagatesConversionError(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("bad.xml");
+        Files.write(file, inventory(5000, "red").replace("<color>red</color><transparency>4000",
+            "<color>plaid</color><transparency>4000").getBytes(StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new DomGemParser(pool).parse(file.toString()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String inventory(int count, String color) {
+        StringBuilder sb = new StringBuilder("<Gem xmlns=\"http://www.diamondfund.ua/gems\">");
+        for (int i = 0; i < count; i++) {
+            sb.append("<gem id=\"gem").append(i).append("\"><name>Gem").append(i).append("</name>")
+              .append("<preciousness>").append(i % 2 == 0 ? "precious" : "semi-precious").append("</preciousness>")
+              .append("<origin>Origin ").append(i % 5).append("</origin>")
+              .append("<visualParameters><color>").append(color).append("</color><transparency>").append(i)
+              .append("</transparency><facets>").append(4 + i % 12).append("</facets></visualParameters>")
+              .append("<value>").append(i).append(".25</value></gem>");
+        }
+        return sb.append("</Gem>").toString();
+    }
+
+    private static void assertSameGems(List<Gem> expected, List<Gem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+}
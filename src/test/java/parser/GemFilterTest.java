@@ -0,0 +1,158 @@
+package parser;
+
+import generator.InventoryGenerator;
+import model.Gem;
+import model.GemCanonicalizer;
+import model.Preciousness;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import validator.XmlValidator;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemFilterTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String XSD_FILE = "src/main/resources/xsd/gems.xsd";
+
+    @TempDir
+    static Path tempDir;
+
+    private static String generated;
+    private static List<Gem> all;
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void generate() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        InventoryGenerator generator = new InventoryGenerator(25);
+        generator.setVisualParametersRange(1, 3);
+        generator.generate(file, 2000);
+        generated = file.toString();
+        all = new StaxGemParser().parse(generated);
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testEarlyFilter() {
+        GemFilter filter = GemFilter.preciousness(Preciousness.PRECIOUS).and(GemFilter.origin("Colombia"));
+        Gem gem = new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Colombia", null, BigDecimal.ONE);
+
+        assertEquals(GemFilter.PRECIOUSNESS | GemFilter.ORIGIN, filter.requiredFields());
+        assertFalse(filter.canDecide(GemFilter.ID | GemFilter.PRECIOUSNESS));
+        assertTrue(filter.canDecide(GemFilter.ID | GemFilter.PRECIOUSNESS | GemFilter.ORIGIN));
+        assertTrue(filter.acceptsHeader(gem));
+        assertTrue(filter.test(gem));
+
+        gem.setOrigin("Brazil");
+        assertFalse(filter.acceptsHeader(gem));
+        assertTrue(filter.negate().test(gem));
+    }
+
+    @Test
+    void testLateFilter() {
+        GemFilter filter = GemFilter.name("Ruby").and(GemFilter.where(Gem::hasValue));
+        Gem gem = new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Colombia", null, null);
+
+        assertEquals(GemFilter.NAME, filter.requiredFields());
+        assertTrue(filter.acceptsHeader(gem));
+        assertFalse(filter.acceptsGem(gem));
+        assertFalse(filter.test(gem));
+        assertTrue(filter.negate().test(gem));
+        assertEquals(0, filter.negate().requiredFields());
+    }
+
+    @Test
+    void testOr() {
+        GemFilter early = GemFilter.id("g1").or(GemFilter.origin("Brazil"));
+        GemFilter mixed = GemFilter.id("g1").or(GemFilter.where(Gem::hasValue));
+        Gem gem = new Gem("g2", "Ruby", Preciousness.PRECIOUS, "Brazil", null, null);
+
+        assertEquals(GemFilter.ID | GemFilter.ORIGIN, early.requiredFields());
+        assertTrue(early.test(gem));
+        assertEquals(0, mixed.requiredFields());
+        assertFalse(mixed.test(gem));
+        gem.setId("g1");
+        assertTrue(mixed.test(gem));
+    }
+
+    @Test
+    void testParsersPushDownFilters() throws Exception {
+        List<GemFilter> filters = new ArrayList<>();
+        filters.add(GemFilter.preciousness(Preciousness.PRECIOUS));
+        filters.add(GemFilter.origin("Colombia"));
+        filters.add(GemFilter.id(all.get(1234).getId()));
+        filters.add(GemFilter.name("Opal").and(GemFilter.preciousness(Preciousness.SEMI_PRECIOUS)));
+        filters.add(GemFilter.origin("Brazil").or(GemFilter.origin("India")).negate());
+        filters.add(GemFilter.origin("Myanmar").and(GemFilter.where(gem -> gem.getVisualParameters().size() > 1)));
+        filters.add(GemFilter.where(gem -> gem.getValue().compareTo(BigDecimal.TEN) < 0));
+        filters.add(GemFilter.origin("Nowhere"));
+
+        for (GemFilter filter : filters) {
+            List<Gem> expected = all.stream().filter(filter::test).collect(Collectors.toList());
+            assertSameGems(expected, new SaxGemParser().parse(generated, filter));
+            assertSameGems(expected, new StaxGemParser().parse(generated, filter));
+            assertSameGems(expected, new StaxGemParser(InputMode.MAPPED).parse(generated, filter));
+            assertSameGems(expected, new ByteGemParser().parse(generated, filter));
+            assertSameGems(expected, new ParallelGemParser(pool, 16 * 1024).parse(generated, filter));
+        }
+    }
+
+    @Test
+    void testNullFilterAcceptsAll() throws Exception {
+        assertSameGems(all, new SaxGemParser().parse(generated, (GemFilter) null));
+        assertSameGems(all, new StaxGemParser().parse(generated, (GemFilter) null));
+        assertSameGems(all, new ByteGemParser().parse(generated, (GemFilter) null));
+        assertSameGems(all, new ParallelGemParser(pool, 16 * 1024).parse(generated, (GemFilter) null));
+    }
+
+    @Test
+    void testFilterOnSampleFile() throws Exception {
+        GemFilter filter = GemFilter.preciousness(Preciousness.PRECIOUS);
+        List<Gem> expected = new SaxGemParser().parse(XML_FILE).stream()
+            .filter(filter::test)
+            .collect(Collectors.toList());
+
+        assertFalse(expected.isEmpty());
+        assertSameGems(expected, new SaxGemParser().parse(XML_FILE, filter));
+        assertSameGems(expected, new StaxGemParser().parse(XML_FILE, filter));
+    }
+
+    @Test
+    void testFilterWithSchemaAndCanonicalizer() throws Exception {
+        GemFilter filter = GemFilter.origin("Colombia");
+        List<Gem> expected = all.stream().filter(filter::test).collect(Collectors.toList());
+
+        SaxGemParser validating = new SaxGemParser(new XmlValidator().compileSchema(XSD_FILE));
+        validating.setCanonicalizer(new GemCanonicalizer());
+        List<Gem> gems = validating.parse(generated, filter);
+        assertSameGems(expected, gems);
+        for (Gem gem : gems) {
+            assertSame(gems.get(0).getOrigin(), gem.getOrigin());
+        }
+
+        StaxGemParser stax = new StaxGemParser();
+        stax.setCanonicalizer(new GemCanonicalizer());
+        assertSameGems(expected, stax.parse(generated, filter));
+    }
+
+    private static void assertSameGems(List<Gem> expected, List<Gem> gems) {
+        assertEquals(expected.size(), gems.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertEquals(expected.get(i).toString(), gems.get(i).toString());
+        }
+    }
+}
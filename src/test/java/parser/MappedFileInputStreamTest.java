@@ -0,0 +1,69 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileInputStreamTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+
+    @Test
+    void testReadWholeFile() throws Exception {
+        byte[] expected = Files.readAllBytes(Paths.get(XML_FILE));
+        
+        try (InputStream in = new MappedFileInputStream(XML_FILE)) {
+            assertArrayEquals(expected, readAll(in));
+        }
+    }
+
+    @Test
+    void testReadAcrossWindows() throws Exception {
+        byte[] expected = Files.readAllBytes(Paths.get(XML_FILE));
+        
+        // Маленьке вікно, щоб файл відображався багато разів
+        try (InputStream in = new MappedFileInputStream(XML_FILE, 100)) {
+            assertArrayEquals(expected, readAll(in));
+        }
+    }
+
+    @Test
+    void testSingleByteReadAndSkip() throws Exception {
+        byte[] expected = Files.readAllBytes(Paths.get(XML_FILE));
+        
+        try (InputStream in = new MappedFileInputStream(XML_FILE, 64)) {
+            assertEquals(expected[0] & 0xFF, in.read());
+            assertEquals(150, in.skip(150));
+            assertEquals(expected[151] & 0xFF, in.read());
+            assertEquals(expected.length - 152, in.available());
+        }
+    }
+
+    @Test
+    void testEndOfFile() throws Exception {
+        try (InputStream in = new MappedFileInputStream(XML_FILE)) {
+            readAll(in);
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[10], 0, 10));
+        }
+    }
+
+    @Test
+    void testNonExistentFile() {
+        assertThrows(Exception.class, () -> new MappedFileInputStream("nonexistent.xml"));
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[37];
+        int n;
+        while ((n = in.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
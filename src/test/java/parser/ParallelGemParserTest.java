@@ -0,0 +1,190 @@
+package parser;
+
+import model.Gem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelGemParserTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<Gem xmlns=\"http://www.diamondfund.ua/gems\">\n";
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testParseSmallFileMatchesStax() throws Exception {
+        ParallelGemParser parser = new ParallelGemParser();
+
+        assertSameGems(new StaxGemParser().parse(XML_FILE), parser.parse(XML_FILE));
+    }
+
+    @Test
+    void testParseSplitsIntoSegments() throws Exception {
+        ParallelGemParser parser = new ParallelGemParser(pool, 256);
+
+        assertSameGems(new StaxGemParser().parse(XML_FILE), parser.parse(XML_FILE));
+    }
+
+    @Test
+    void testParseLargeFileKeepsDocumentOrder() throws Exception {
+        Path file = tempDir.resolve("large.xml");
+        Files.write(file, (HEADER + gems(2000, "") + "</Gem>\n").getBytes(StandardCharsets.UTF_8));
+        ParallelGemParser parser = new ParallelGemParser(pool, 4096);
+
+        List<Gem> expected = new StaxGemParser().parse(file.toString());
+        List<Gem> actual = parser.parse(file.toString());
+
+        assertEquals(2000, actual.size());
+        assertSameGems(expected, actual);
+    }
+
+    @Test
+    void testParseWithPrefixedRootAndComments() throws Exception {
+        Path file = tempDir.resolve("prefixed.xml");
+        String content = "<?xml version=\"1.0\"?>\n<!-- inventory -->\n"
+            + "<g:Gem xmlns:g=\"http://www.diamondfund.ua/gems\">\n"
+            + gems(500, "g:").replace("</g:gem>", "</g:gem>\n<!-- next -->")
+            + "</g:Gem>\n<!-- end -->\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        ParallelGemParser parser = new ParallelGemParser(pool, 1024);
+
+        List<Gem> actual = parser.parse(file.toString());
+
+        assertEquals(500, actual.size());
+        assertSameGems(new StaxGemParser().parse(file.toString()), actual);
+    }
+
+    @Test
+    void testGemTagsInsideCommentsAreNotBoundaries() throws Exception {
+        Path file = tempDir.resolve("commented.xml");
+        StringBuilder content = new StringBuilder(HEADER);
+        String[] gems = gems(400, "").split("(?=    <gem )");
+        for (int i = 0; i < gems.length; i++) {
+            content.append("<!-- old record: <gem id=\"old").append(i).append("\"> -->\n")
+                   .append("<?note <gem id=\"pi").append(i).append("\"> ?>\n")
+                   .append(gems[i].replace("<name>Gem" + i + "</name>",
+                                           "<name><![CDATA[Gem" + i + " <gem id=\"cdata\">]]></name>"));
+        }
+        content.append("</Gem>\n");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Gem> expected = new StaxGemParser().parse(file.toString());
+        assertEquals(400, expected.size());
+        for (long minSegmentSize : new long[]{2000, 333, 64}) {
+            List<Gem> actual = new ParallelGemParser(pool, minSegmentSize).parse(file.toString());
+            assertSameGems(expected, actual);
+        }
+    }
+
+    @Test
+    void testParseWithDoctypeFallsBackToStax() throws Exception {
+        Path file = tempDir.resolve("doctype.xml");
+        String content = "<?xml version=\"1.0\"?>\n<!DOCTYPE Gem>\n"
+            + "<Gem xmlns=\"http://www.diamondfund.ua/gems\">\n" + gems(100, "") + "</Gem>\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        ParallelGemParser parser = new ParallelGemParser(pool, 128);
+
+        assertSameGems(new StaxGemParser().parse(file.toString()), parser.parse(file.toString()));
+    }
+
+    @Test
+    void testParseWithConsumer() throws Exception {
+        Path file = tempDir.resolve("consumer.xml");
+        Files.write(file, (HEADER + gems(300, "") + "</Gem>\n").getBytes(StandardCharsets.UTF_8));
+        ParallelGemParser parser = new ParallelGemParser(pool, 512);
+
+        List<String> ids = new ArrayList<>();
+        parser.parse(file.toString(), gem -> ids.add(gem.getId()));
+
+        assertEquals(300, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("gem" + i, ids.get(i));
+        }
+    }
+
+    @Test
+    void testParseMalformedSegmentFails() throws Exception {
+        Path file = tempDir.resolve("malformed.xml");
+        String content = HEADER + gems(200, "").replace("<name>Gem150</name>", "<name>Gem150</nam>") + "</Gem>\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        ParallelGemParser parser = new ParallelGemParser(pool, 512);
+
+        assertThrows(Exception.class, () -> parser.parse(file.toString()));
+    }
+
+    @Test
+    void testParseMalformedSegmentThrowsParseException() throws Exception {
+        Path file = tempDir.resolve("malformed-large.xml");
+        String content = HEADER + gems(2000, "").replace("<name>Gem1500</name>", "<name>Gem1500</nam>") + "</Gem>\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        long minSegmentSize = 2048;
+        assertTrue(Files.size(file) > 2 * minSegmentSize);
+        ParallelGemParser parser = new ParallelGemParser(pool, minSegmentSize);
+
+        // Той самий перевірений виняток, що кидає StaxGemParser, без обгорток пулу
+        assertThrows(XMLStreamException.class, () -> new StaxGemParser().parse(file.toString()));
+        assertThrows(XMLStreamException.class, () -> parser.parse(file.toString()));
+    }
+
+    @Test
+    void testParseWithNonExistentFile() {
+        assertThrows(Exception.class, () -> {
+            new ParallelGemParser().parse("nonexistent.xml");
+        });
+    }
+
+    private static String gems(int count, String prefix) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String precious = i % 3 == 0 ? "semi-precious" : "precious";
+            sb.append("    <").append(prefix).append("gem id=\"gem").append(i).append("\">\n")
+              .append("        <").append(prefix).append("name>Gem").append(i).append("</").append(prefix).append("name>\n")
+              .append("        <").append(prefix).append("preciousness>").append(precious)
+              .append("</").append(prefix).append("preciousness>\n")
+              .append("        <").append(prefix).append("origin>Origin ").append(i % 7)
+              .append("</").append(prefix).append("origin>\n")
+              .append("        <").append(prefix).append("visualParameters>\n")
+              .append("            <").append(prefix).append("color>red</").append(prefix).append("color>\n")
+              .append("            <").append(prefix).append("transparency>").append(i % 100)
+              .append("</").append(prefix).append("transparency>\n")
+              .append("            <").append(prefix).append("facets>").append(4 + i % 12)
+              .append("</").append(prefix).append("facets>\n")
+              .append("        </").append(prefix).append("visualParameters>\n")
+              .append("        <").append(prefix).append("value>").append(i + 1).append(".5</")
+              .append(prefix).append("value>\n")
+              .append("    </").append(prefix).append("gem>\n");
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameGems(List<Gem> expected, List<Gem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+}
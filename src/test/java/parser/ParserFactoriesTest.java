@@ -0,0 +1,118 @@
+package parser;
+
+import model.Gem;
+import org.junit.jupiter.api.Test;
+import validator.XmlValidator;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.SAXParser;
+import javax.xml.validation.Schema;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserFactoriesTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String XSD_FILE = "src/main/resources/xsd/gems.xsd";
+
+    @Test
+    void testSaxParserIsReusedWithinThread() throws Exception {
+        SAXParser first = ParserFactories.acquireSaxParser();
+        ParserFactories.release(first);
+        SAXParser second = ParserFactories.acquireSaxParser();
+        ParserFactories.release(second);
+        
+        assertSame(first, second);
+        assertTrue(second.isNamespaceAware());
+    }
+
+    @Test
+    void testValidatingPoolIsSharedPerSchema() throws Exception {
+        Schema schema = new XmlValidator().compileSchema(XSD_FILE);
+        ParserFactories.SaxParserPool pool = ParserFactories.saxParsers(schema);
+
+        assertSame(pool, ParserFactories.saxParsers(schema));
+        assertNotSame(ParserFactories.saxParsers(), pool);
+        assertSame(ParserFactories.saxParsers(), ParserFactories.saxParsers(null));
+
+        SAXParser first = pool.acquire();
+        pool.release(first);
+        SAXParser second = ParserFactories.saxParsers(schema).acquire();
+        ParserFactories.saxParsers(schema).release(second);
+        assertSame(first, second);
+        assertSame(schema, second.getSchema());
+    }
+
+    @Test
+    void testNestedAcquireGetsSeparateInstance() throws Exception {
+        SAXParser outer = ParserFactories.acquireSaxParser();
+        SAXParser inner = ParserFactories.acquireSaxParser();
+        
+        assertNotSame(outer, inner);
+        
+        ParserFactories.release(inner);
+        ParserFactories.release(outer);
+    }
+
+    @Test
+    void testDocumentBuilderIsReusedWithinThread() throws Exception {
+        DocumentBuilder first = ParserFactories.acquireDocumentBuilder();
+        ParserFactories.release(first);
+        DocumentBuilder second = ParserFactories.acquireDocumentBuilder();
+        ParserFactories.release(second);
+        
+        assertSame(first, second);
+        assertTrue(second.isNamespaceAware());
+    }
+
+    @Test
+    void testNestedParseFromConsumer() throws Exception {
+        SaxGemParser parser = new SaxGemParser();
+        List<Integer> nestedCounts = new ArrayList<>();
+        
+        parser.parse(XML_FILE, gem -> {
+            try {
+                nestedCounts.add(parser.parse(XML_FILE).size());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        assertEquals(7, nestedCounts.size());
+        nestedCounts.forEach(count -> assertEquals(7, count));
+    }
+
+    @Test
+    void testConcurrentParsing() throws Exception {
+        List<GemParser> parsers = List.of(new SaxGemParser(), new DomGemParser(), new StaxGemParser());
+        String expected = parsers.get(0).parse(XML_FILE).toString();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                GemParser parser = parsers.get(i % parsers.size());
+                results.add(executor.submit(() -> parser.parse(XML_FILE).toString()));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testParserIsReusableAfterFailure() throws Exception {
+        SaxGemParser parser = new SaxGemParser();
+        
+        assertThrows(Exception.class, () -> parser.parse("nonexistent.xml"));
+        List<Gem> gems = parser.parse(XML_FILE);
+        
+        assertEquals(7, gems.size());
+    }
+}
@@ -3,13 +3,22 @@ package parser;
 import model.Gem;
 import model.Preciousness;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXParseException;
+import validator.XmlValidator;
 
+import javax.xml.validation.Schema;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SaxGemParserTest {
     private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String XSD_FILE = "src/main/resources/xsd/gems.xsd";
     private final SaxGemParser parser = new SaxGemParser();
 
     @Test
@@ -58,5 +67,61 @@ class SaxGemParserTest {
             parser.parse("/invalid/path/to/file.xml");
         });
     }
-}
 
+    @Test
+    void testParseWithConsumer() throws Exception {
+        List<Gem> streamed = new ArrayList<>();
+        parser.parse(XML_FILE, streamed::add);
+        
+        List<Gem> gems = parser.parse(XML_FILE);
+        assertEquals(gems.size(), streamed.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertEquals(gems.get(i).toString(), streamed.get(i).toString());
+        }
+    }
+
+    @Test
+    void testParseWithMappedInput() throws Exception {
+        List<Gem> gems = parser.parse(XML_FILE);
+        List<Gem> mapped = new SaxGemParser(InputMode.MAPPED).parse(XML_FILE);
+        
+        assertEquals(gems.size(), mapped.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertEquals(gems.get(i).toString(), mapped.get(i).toString());
+        }
+    }
+
+    @Test
+    void testParseWithMappedInputNonExistentFile() {
+        assertThrows(Exception.class, () -> {
+            new SaxGemParser(InputMode.MAPPED).parse("nonexistent.xml");
+        });
+    }
+
+    @Test
+    void testParseWithSchemaValidXml() throws Exception {
+        Schema schema = new XmlValidator().compileSchema(XSD_FILE);
+        List<Gem> gems = parser.parse(XML_FILE);
+        List<Gem> validated = new SaxGemParser(schema).parse(XML_FILE);
+        
+        assertEquals(gems.size(), validated.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertEquals(gems.get(i).toString(), validated.get(i).toString());
+        }
+    }
+
+    @Test
+    void testParseWithSchemaInvalidXml(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("invalid.xml");
+        String content = new String(Files.readAllBytes(Path.of(XML_FILE)), StandardCharsets.UTF_8)
+            .replaceFirst("<facets>12</facets>", "<facets>20</facets>");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        SaxGemParser validating = new SaxGemParser(new XmlValidator().compileSchema(XSD_FILE));
+        
+        assertThrows(SAXParseException.class, () -> validating.parse(file.toString()));
+        // Без схеми той самий файл парситься - 20 граней це валідне число, але не за схемою
+        assertEquals(20, parser.parse(file.toString()).get(0).getVisualParameters().get(0).getFacets());
+        // Парсер з пулу після помилки валідації має працювати далі
+        assertFalse(validating.parse(XML_FILE).isEmpty());
+    }
+}
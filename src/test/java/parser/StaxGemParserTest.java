@@ -3,9 +3,17 @@ package parser;
 import model.Gem;
 import model.Preciousness;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.xml.stream.XMLStreamException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,5 +73,77 @@ class StaxGemParserTest {
             parser.parse("/invalid/path/to/file.xml");
         });
     }
-}
 
+    @Test
+    void testParseWithConsumer() throws Exception {
+        List<String> ids = new ArrayList<>();
+        parser.parse(XML_FILE, gem -> ids.add(gem.getId()));
+        
+        List<String> expected = parser.parse(XML_FILE).stream()
+            .map(Gem::getId)
+            .collect(Collectors.toList());
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void testStreamMatchesList() throws Exception {
+        List<Gem> gems = parser.parse(XML_FILE);
+        
+        try (Stream<Gem> stream = parser.stream(XML_FILE)) {
+            List<Gem> streamed = stream.collect(Collectors.toList());
+            assertEquals(gems.size(), streamed.size());
+            for (int i = 0; i < gems.size(); i++) {
+                assertEquals(gems.get(i).toString(), streamed.get(i).toString());
+            }
+        }
+    }
+
+    @Test
+    void testStreamIsLazy() throws Exception {
+        try (Stream<Gem> stream = parser.stream(XML_FILE)) {
+            Gem first = stream.findFirst().orElse(null);
+            
+            assertNotNull(first);
+            assertEquals("gem001", first.getId());
+            assertEquals(1, first.getVisualParameters().size());
+        }
+    }
+
+    @Test
+    void testStreamWithNonExistentFile() {
+        assertThrows(Exception.class, () -> {
+            parser.stream("nonexistent.xml");
+        });
+    }
+
+    @Test
+    void testStreamWithMalformedXml(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("broken.xml");
+        Files.write(file, ("<Gem xmlns=\"http://www.diamondfund.ua/gems\"><gem id=\"g1\"><name>Ruby</name></gem>"
+                           + "<gem id=\"g2\"><name>Opal</nam></gem></Gem>").getBytes(StandardCharsets.UTF_8));
+
+        try (Stream<Gem> stream = parser.stream(file.toString())) {
+            GemParseException e = assertThrows(GemParseException.class, () -> stream.collect(Collectors.toList()));
+            assertNotNull(e.getCause());
+            assertTrue(e.getCause() instanceof XMLStreamException);
+        }
+    }
+
+    @Test
+    void testParseWithMappedInput() throws Exception {
+        List<Gem> gems = parser.parse(XML_FILE);
+        List<Gem> mapped = new StaxGemParser(InputMode.MAPPED).parse(XML_FILE);
+        
+        assertEquals(gems.size(), mapped.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertEquals(gems.get(i).toString(), mapped.get(i).toString());
+        }
+    }
+
+    @Test
+    void testParseWithMappedInputNonExistentFile() {
+        assertThrows(Exception.class, () -> {
+            new StaxGemParser(InputMode.MAPPED).parse("nonexistent.xml");
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package query;
+
+import generator.InventoryGenerator;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemIndexTest {
+
+    @TempDir
+    static Path tempDir;
+
+    private static List<Gem> gems;
+    private static GemIndex index;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        new InventoryGenerator(11).generate(file, 20000);
+        gems = new StaxGemParser().parse(file.toString());
+        index = GemIndex.of(gems);
+    }
+
+    @Test
+    void testExampleQuery() {
+        GemQuery query = GemQuery.preciousness(Preciousness.PRECIOUS)
+            .and(GemQuery.color(Color.BLUE))
+            .and(GemQuery.transparencyAbove(new BigDecimal("80")))
+            .and(GemQuery.facetsBetween(8, 12));
+
+        assertMatches(query, gem -> gem.getPreciousness() == Preciousness.PRECIOUS
+                                    && anyVisual(gem, p -> p.hasColor(Color.BLUE))
+                                    && anyVisual(gem, p -> p.getTransparency().compareTo(new BigDecimal("80")) > 0)
+                                    && anyVisual(gem, p -> p.getFacets() >= 8 && p.getFacets() <= 12));
+    }
+
+    @Test
+    void testSingleConditions() {
+        assertMatches(GemQuery.preciousness(Preciousness.SEMI_PRECIOUS),
+                      gem -> gem.getPreciousness() == Preciousness.SEMI_PRECIOUS);
+        assertMatches(GemQuery.color(Color.PINK), gem -> anyVisual(gem, p -> p.hasColor(Color.PINK)));
+        String origin = gems.get(0).getOrigin();
+        assertMatches(GemQuery.origin(origin), gem -> origin.equals(gem.getOrigin()));
+        assertEquals(0, index.count(GemQuery.origin("Atlantis")));
+    }
+
+    @Test
+    void testRanges() {
+        BigDecimal[][] ranges = {
+            {new BigDecimal("0"), new BigDecimal("1")},
+            {new BigDecimal("10.5"), new BigDecimal("250.125")},
+            {new BigDecimal("999"), new BigDecimal("5000")},
+            {new BigDecimal("7"), new BigDecimal("3")},
+        };
+        for (BigDecimal[] range : ranges) {
+            assertMatches(GemQuery.valueBetween(range[0], range[1]),
+                          gem -> gem.getValue().compareTo(range[0]) >= 0 && gem.getValue().compareTo(range[1]) <= 0);
+            assertMatches(GemQuery.transparencyBetween(range[0], range[1]),
+                          gem -> anyVisual(gem, p -> p.getTransparency().compareTo(range[0]) >= 0
+                                                     && p.getTransparency().compareTo(range[1]) <= 0));
+        }
+        assertMatches(GemQuery.valueAbove(new BigDecimal("500")),
+                      gem -> gem.getValue().compareTo(new BigDecimal("500")) > 0);
+        for (int facets = 0; facets <= 60; facets += 7) {
+            int min = facets;
+            assertMatches(GemQuery.facetsBetween(min, min + 3),
+                          gem -> anyVisual(gem, p -> p.getFacets() >= min && p.getFacets() <= min + 3));
+        }
+    }
+
+    @Test
+    void testCombinators() {
+        GemQuery redOrGreen = GemQuery.color(Color.RED).or(GemQuery.color(Color.GREEN));
+        assertMatches(redOrGreen, gem -> anyVisual(gem, p -> p.hasColor(Color.RED) || p.hasColor(Color.GREEN)));
+        assertEquals(index.count(redOrGreen), index.count(GemQuery.anyColor(Color.RED, Color.GREEN)));
+        assertMatches(GemQuery.preciousness(Preciousness.PRECIOUS).not(),
+                      gem -> gem.getPreciousness() != Preciousness.PRECIOUS);
+
+        // Вкладені діапазони: права частина and перевіряє крайні кошики тільки для вже відібраних каменів
+        GemQuery nested = GemQuery.color(Color.YELLOW)
+            .and(GemQuery.facetsBetween(10, 30).or(GemQuery.transparencyBetween(new BigDecimal("5"), new BigDecimal("40")).not()))
+            .and(GemQuery.valueBetween(new BigDecimal("3.3"), new BigDecimal("700")));
+        assertMatches(nested, gem -> anyVisual(gem, p -> p.hasColor(Color.YELLOW))
+            && (anyVisual(gem, p -> p.getFacets() >= 10 && p.getFacets() <= 30)
+                || !anyVisual(gem, p -> p.getTransparency().compareTo(new BigDecimal("5")) >= 0
+                                        && p.getTransparency().compareTo(new BigDecimal("40")) <= 0))
+            && gem.getValue().compareTo(new BigDecimal("3.3")) >= 0 && gem.getValue().compareTo(new BigDecimal("700")) <= 0);
+    }
+
+    @Test
+    void testResults() {
+        GemQuery query = GemQuery.color(Color.BLACK).and(GemQuery.valueBetween(BigDecimal.ZERO, new BigDecimal("100")));
+        List<Gem> found = index.find(query);
+        int[] rows = index.rows(query);
+
+        assertEquals(rows.length, found.size());
+        assertEquals(found.stream().map(Gem::getId).collect(Collectors.toList()), index.findIds(query));
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(gems.get(rows[i]).getId(), found.get(i).getId());
+        }
+        // select повертає копію - зміни не впливають на індекс
+        index.select(query).clear();
+        assertEquals(rows.length, index.count(query));
+    }
+
+    @Test
+    void testMissingValues() {
+        Gem empty = new Gem();
+        empty.setId("empty");
+        VisualParameters blank = new VisualParameters();
+        empty.setVisualParameters(new ArrayList<>(Arrays.asList(blank)));
+        GemIndex small = GemIndex.of(Arrays.asList(empty, gems.get(0)));
+
+        assertEquals(Arrays.asList(gems.get(0).getId()),
+                     small.findIds(GemQuery.valueBetween(new BigDecimal("-1000000"), new BigDecimal("1000000"))));
+        assertEquals(1, small.count(GemQuery.facetsBetween(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+        assertEquals(1, small.count(GemQuery.preciousness(gems.get(0).getPreciousness()).not()));
+    }
+
+    private static void assertMatches(GemQuery query, Predicate<Gem> expected) {
+        List<String> expectedIds = gems.stream().filter(expected).map(Gem::getId).collect(Collectors.toList());
+        assertEquals(expectedIds, index.findIds(query));
+    }
+
+    private static boolean anyVisual(Gem gem, Predicate<VisualParameters> predicate) {
+        return gem.getVisualParameters().stream().anyMatch(predicate);
+    }
+}
@@ -0,0 +1,72 @@
+package query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIndexTest {
+
+    @Test
+    void testMatchesFullScan() {
+        Random random = new Random(3);
+        long[][] data = new long[5000][];
+        for (int row = 0; row < data.length; row++) {
+            data[row] = new long[random.nextInt(4)];
+            for (int i = 0; i < data[row].length; i++) {
+                // Багато повторів і трохи відсутніх значень
+                data[row][i] = random.nextInt(10) == 0 ? RangeIndex.MISSING : random.nextInt(300) - 50;
+            }
+        }
+        RangeIndex index = RangeIndex.build(data.length, values(data));
+        assertTrue(index.bucketCount() <= RangeIndex.BUCKETS);
+
+        for (int q = 0; q < 500; q++) {
+            long min = random.nextInt(400) - 100;
+            long max = min + random.nextInt(120);
+            assertEquals(scan(data, min, max), index.select(min, max), "range " + min + ".." + max);
+        }
+        assertEquals(scan(data, Long.MIN_VALUE + 1, Long.MAX_VALUE), index.select(Long.MIN_VALUE + 1, Long.MAX_VALUE));
+        assertTrue(index.select(10, 5).isEmpty());
+    }
+
+    @Test
+    void testFewDistinctValues() {
+        long[][] data = {{5}, {5}, {7}, {}, {5, 7}};
+        RangeIndex index = RangeIndex.build(data.length, values(data));
+
+        assertEquals(2, index.bucketCount());
+        assertEquals(scan(data, 5, 5), index.select(5, 5));
+        assertEquals(scan(data, 6, 100), index.select(6, 100));
+        assertTrue(index.select(0, 4).isEmpty());
+        assertTrue(RangeIndex.build(0, values(new long[0][])).select(0, 10).isEmpty());
+    }
+
+    private static RangeIndex.Values values(long[][] data) {
+        return new RangeIndex.Values() {
+            @Override
+            public int count(int row) {
+                return data[row].length;
+            }
+
+            @Override
+            public long get(int row, int i) {
+                return data[row][i];
+            }
+        };
+    }
+
+    private static BitSet scan(long[][] data, long min, long max) {
+        BitSet rows = new BitSet();
+        for (int row = 0; row < data.length; row++) {
+            for (long value : data[row]) {
+                if (value != RangeIndex.MISSING && value >= min && value <= max) {
+                    rows.set(row);
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,108 @@
+package snapshot;
+
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GemSnapshotTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final SourceStamp STAMP = new SourceStamp(100, 200, 300);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripParsedGems() throws Exception {
+        List<Gem> gems = new StaxGemParser().parse(XML_FILE);
+        Path file = tempDir.resolve("gems.snapshot");
+
+        GemSnapshot.write(file, STAMP, gems);
+        List<Gem> loaded = GemSnapshot.read(file, STAMP);
+
+        assertSameGems(gems, loaded);
+    }
+
+    @Test
+    void testRoundTripNullsAndLargeValues() throws Exception {
+        Gem empty = new Gem();
+        Gem withNulls = new Gem("g2", null, null, null, null, null);
+        withNulls.setVisualParameters(null);
+        VisualParameters params = new VisualParameters(Arrays.asList(Color.RED, Color.BLACK), null, null);
+        VisualParameters noColors = new VisualParameters();
+        noColors.setColors(null);
+        Gem large = new Gem("g3", "Große Perle", Preciousness.SEMI_PRECIOUS, "Côte d'Ivoire",
+            new ArrayList<>(Arrays.asList(params, noColors)),
+            new BigDecimal("123456789012345678901234567890.123456789"));
+        Gem negativeScale = new Gem("g4", "Big", Preciousness.PRECIOUS, "Nowhere",
+            new ArrayList<>(Collections.singletonList(new VisualParameters(null, new BigDecimal("99.50"), 12))),
+            new BigDecimal("1E+3"));
+        List<Gem> gems = Arrays.asList(empty, withNulls, large, negativeScale);
+        Path file = tempDir.resolve("nulls.snapshot");
+
+        GemSnapshot.write(file, STAMP, gems);
+        List<Gem> loaded = GemSnapshot.read(file, null);
+
+        assertSameGems(gems, loaded);
+        assertNull(loaded.get(1).getVisualParameters());
+        assertNull(loaded.get(2).getVisualParameters().get(1).getColors());
+        assertEquals(new BigDecimal("99.50"), loaded.get(3).getVisualParameters().get(0).getTransparency());
+        assertEquals(-3, loaded.get(3).getValue().scale());
+    }
+
+    @Test
+    void testReadWithDifferentStampReturnsNull() throws Exception {
+        Path file = tempDir.resolve("stale.snapshot");
+        GemSnapshot.write(file, STAMP, new StaxGemParser().parse(XML_FILE));
+
+        assertNull(GemSnapshot.read(file, new SourceStamp(100, 200, 301)));
+    }
+
+    @Test
+    void testReadCorruptedSnapshotFails() throws Exception {
+        Path file = tempDir.resolve("corrupted.snapshot");
+        GemSnapshot.write(file, STAMP, new StaxGemParser().parse(XML_FILE));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> GemSnapshot.read(file, STAMP));
+    }
+
+    @Test
+    void testReadTruncatedSnapshotFails() throws Exception {
+        Path file = tempDir.resolve("truncated.snapshot");
+        GemSnapshot.write(file, STAMP, new StaxGemParser().parse(XML_FILE));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 20));
+
+        assertThrows(IOException.class, () -> GemSnapshot.read(file, STAMP));
+    }
+
+    @Test
+    void testReadNotASnapshotFails() {
+        assertThrows(IOException.class, () -> GemSnapshot.read(Path.of(XML_FILE), null));
+    }
+
+    private static void assertSameGems(List<Gem> expected, List<Gem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+}
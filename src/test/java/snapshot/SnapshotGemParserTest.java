@@ -0,0 +1,91 @@
+package snapshot;
+
+import model.Gem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.GemParser;
+import parser.StaxGemParser;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotGemParserTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSecondParseLoadsSnapshot() throws Exception {
+        CountingParser counting = new CountingParser();
+        SnapshotGemParser parser = new SnapshotGemParser(counting, tempDir.resolve("snapshots"));
+
+        List<Gem> first = parser.parse(XML_FILE);
+        List<Gem> second = parser.parse(XML_FILE);
+
+        assertEquals(1, counting.calls.get());
+        assertEquals(first.toString(), second.toString());
+        assertTrue(Files.exists(parser.snapshotFile(Paths.get(XML_FILE))));
+    }
+
+    @Test
+    void testChangedSourceIsReparsed() throws Exception {
+        Path xml = tempDir.resolve("gems.xml");
+        Files.copy(Paths.get(XML_FILE), xml);
+        CountingParser counting = new CountingParser();
+        SnapshotGemParser parser = new SnapshotGemParser(counting, tempDir.resolve("snapshots"));
+        parser.parse(xml.toString());
+
+        // Той самий розмір і час зміни, але інший вміст - спрацьовує хеш
+        FileTime modified = Files.getLastModifiedTime(xml);
+        String content = new String(Files.readAllBytes(xml), StandardCharsets.UTF_8).replace("Diamond", "Diamomd");
+        Files.write(xml, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xml, modified);
+
+        List<Gem> gems = parser.parse(xml.toString());
+
+        assertEquals(2, counting.calls.get());
+        assertTrue(gems.stream().anyMatch(gem -> "Diamomd".equals(gem.getName())));
+    }
+
+    @Test
+    void testCorruptedSnapshotIsReplaced() throws Exception {
+        CountingParser counting = new CountingParser();
+        SnapshotGemParser parser = new SnapshotGemParser(counting, tempDir.resolve("snapshots"));
+        parser.parse(XML_FILE);
+        Path snapshot = parser.snapshotFile(Paths.get(XML_FILE));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+
+        List<Gem> gems = parser.parse(XML_FILE);
+        parser.parse(XML_FILE);
+
+        assertEquals(2, counting.calls.get());
+        assertEquals(new StaxGemParser().parse(XML_FILE).toString(), gems.toString());
+    }
+
+    @Test
+    void testParseWithNonExistentFile() {
+        SnapshotGemParser parser = new SnapshotGemParser(new StaxGemParser(), tempDir);
+
+        assertThrows(Exception.class, () -> parser.parse("nonexistent.xml"));
+    }
+
+    private static class CountingParser implements GemParser {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<Gem> parse(String xmlFilePath) throws Exception {
+            calls.incrementAndGet();
+            return new StaxGemParser().parse(xmlFilePath);
+        }
+    }
+}
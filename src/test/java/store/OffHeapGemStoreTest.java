@@ -0,0 +1,187 @@
+package store;
+
+import generator.InventoryGenerator;
+import model.Color;
+import model.Gem;
+import model.Preciousness;
+import model.VisualParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import parser.StaxGemParser;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapGemStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testInMemoryRoundTrip() throws Exception {
+        OffHeapGemStore store = OffHeapGemStore.inMemory();
+        List<Gem> gems = gems();
+        for (Gem gem : gems) {
+            store.append(gem);
+        }
+
+        assertEquals(gems.size(), store.size());
+        for (int i = 0; i < gems.size(); i++) {
+            assertSameGem(gems.get(i), store.get(i));
+        }
+    }
+
+    @Test
+    void testViewReadsFields() throws Exception {
+        OffHeapGemStore store = OffHeapGemStore.inMemory();
+        gems().forEach(store);
+
+        GemView view = store.view(0);
+        assertEquals("g1", view.getId());
+        assertEquals("Ruby", view.getName());
+        assertEquals("Myanmar", view.getOrigin());
+        assertEquals(Preciousness.PRECIOUS, view.getPreciousness());
+        assertEquals(new BigDecimal("1.50"), view.getValue());
+        assertEquals(1500, view.getValueThousandths());
+        assertEquals(2, view.getVisualParametersCount());
+        assertEquals(new BigDecimal("50.5"), view.getTransparency(0));
+        assertEquals(8, view.getFacets(0));
+        assertEquals(Color.PINK, view.getColor(0, 0));
+        assertNull(view.getFacets(1));
+
+        assertSame(view, view.moveTo(2));
+        assertFalse(view.hasValue());
+        assertNull(view.getName());
+        assertEquals(0, view.getVisualParametersCount());
+        assertThrows(IllegalStateException.class, view::getValueThousandths);
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getTransparency(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(3));
+        assertThrows(IllegalStateException.class, () -> store.view().getId());
+    }
+
+    @Test
+    void testValueOutsideThousandths() throws Exception {
+        OffHeapGemStore store = OffHeapGemStore.inMemory();
+        Gem min = new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Myanmar", null, BigDecimal.valueOf(Long.MIN_VALUE));
+        Gem large = new Gem("g2", "Ruby", Preciousness.PRECIOUS, "Myanmar", null, BigDecimal.valueOf(Long.MAX_VALUE, 1));
+        store.append(min);
+        store.append(large);
+
+        GemView view = store.view(0);
+        assertEquals(BigDecimal.valueOf(Long.MIN_VALUE), view.getValue());
+        assertThrows(IllegalStateException.class, view::getValueThousandths);
+        view.moveTo(1);
+        assertThrows(IllegalStateException.class, view::getValueThousandths);
+        assertSameGem(large, store.get(1));
+    }
+
+    @Test
+    void testRecordsSpanManySegments() throws Exception {
+        // Маленькі сегменти, щоб записи і рядки постійно переходили в наступний сегмент
+        OffHeapGemStore store = OffHeapGemStore.inMemory(3, 64);
+        List<Gem> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Gem gem = new Gem("gem-" + i, "Name " + (i % 7), Preciousness.SEMI_PRECIOUS, "Origin " + (i % 5),
+                              new ArrayList<>(Arrays.asList(visual(Color.BLUE, i % 10), visual(Color.RED, 3))),
+                              BigDecimal.valueOf(i, 2));
+            expected.add(gem);
+            store.append(gem);
+        }
+
+        List<String> ids = new ArrayList<>();
+        store.forEach(view -> ids.add(view.getId()));
+        assertEquals(200, ids.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("gem-" + i, ids.get(i));
+            assertSameGem(expected.get(i), store.get(i));
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> store.append(new Gem(new String(new char[100]), null, null, null, null, null)));
+    }
+
+    @Test
+    void testReopenMappedStore() throws Exception {
+        Path directory = tempDir.resolve("store");
+        List<Gem> gems = gems();
+        try (OffHeapGemStore store = OffHeapGemStore.open(directory, 2, 128)) {
+            store.append(gems.get(0));
+            store.append(gems.get(1));
+        }
+        try (OffHeapGemStore store = OffHeapGemStore.open(directory)) {
+            assertEquals(2, store.size());
+            store.append(gems.get(2));
+        }
+        try (OffHeapGemStore store = OffHeapGemStore.open(directory)) {
+            assertEquals(3, store.size());
+            for (int i = 0; i < gems.size(); i++) {
+                assertSameGem(gems.get(i), store.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testRejectsForeignFiles() throws Exception {
+        Path directory = tempDir.resolve("foreign");
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("header.bin"), new byte[]{1, 2, 3, 4});
+
+        assertThrows(IOException.class, () -> OffHeapGemStore.open(directory));
+    }
+
+    @Test
+    void testAppendFromParser() throws Exception {
+        Path file = tempDir.resolve("inventory.xml");
+        new InventoryGenerator(3).generate(file, 3000);
+        StaxGemParser parser = new StaxGemParser();
+        List<Gem> expected = parser.parse(file.toString());
+
+        try (OffHeapGemStore store = OffHeapGemStore.open(tempDir.resolve("parsed"))) {
+            parser.parse(file.toString(), store);
+
+            assertEquals(expected.size(), store.size());
+            long sum = 0;
+            GemView view = store.view();
+            for (long i = 0; i < store.size(); i++) {
+                sum += view.moveTo(i).getValueThousandths();
+            }
+            assertEquals(expected.stream().mapToLong(Gem::getValueThousandths).sum(), sum);
+            for (int i = 0; i < expected.size(); i += 101) {
+                assertSameGem(expected.get(i), store.get(i));
+            }
+        }
+    }
+
+    private static void assertSameGem(Gem expected, Gem actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getOrigin(), actual.getOrigin());
+        assertEquals(expected.getPreciousness(), actual.getPreciousness());
+        assertEquals(expected.getValue(), actual.getValue());
+        assertEquals(expected.getVisualParameters(), actual.getVisualParameters());
+    }
+
+    private static VisualParameters visual(Color color, int facets) {
+        return new VisualParameters(new ArrayList<>(Arrays.asList(color)), BigDecimal.valueOf(facets * 5L), facets);
+    }
+
+    private static List<Gem> gems() {
+        List<VisualParameters> ruby = new ArrayList<>(Arrays.asList(
+            new VisualParameters(new ArrayList<>(Arrays.asList(Color.PINK, Color.RED)), new BigDecimal("50.5"), 8),
+            new VisualParameters(null, null, null)));
+        Gem empty = new Gem();
+        empty.setId("g3");
+        empty.setVisualParameters(null);
+        return new ArrayList<>(Arrays.asList(
+            new Gem("g1", "Ruby", Preciousness.PRECIOUS, "Myanmar", ruby, new BigDecimal("1.50")),
+            new Gem("g2", "Розовий кварц", Preciousness.SEMI_PRECIOUS, "Україна", new ArrayList<>(),
+                    new BigDecimal("123456789012345678901234567890.5")),
+            empty));
+    }
+}
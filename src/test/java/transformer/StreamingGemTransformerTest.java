@@ -0,0 +1,142 @@
+package transformer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingGemTransformerTest {
+    private static final String XML_FILE = "src/main/resources/xml/gems.xml";
+    private static final String XSL_FILE = "src/main/resources/xsl/transform.xsl";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testTransformMatchesXslt() throws Exception {
+        assertSameAsXslt(XML_FILE);
+    }
+
+    @Test
+    void testTransformWithPrefixesCommentsAndNestedContent() throws Exception {
+        Path file = tempDir.resolve("prefixed.xml");
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<g:Gem xmlns:g=\"http://www.diamondfund.ua/gems\" xmlns:x=\"urn:extra\">\n"
+            + "  <!-- skipped -->\n"
+            + "  <g:gem id=\"a1\" x:note=\"n\"><g:name>Opal &amp; Co</g:name>"
+            + "<g:preciousness>semi-precious</g:preciousness><g:origin><![CDATA[<Peru>]]></g:origin>"
+            + "<g:visualParameters><!-- c --><g:color>blue</g:color><g:transparency>40</g:transparency>"
+            + "<g:facets>6</g:facets></g:visualParameters><g:value>0.5</g:value></g:gem>\n"
+            + "  <g:gem id=\"a2\"><g:name>Ruby</g:name><g:preciousness>precious</g:preciousness>"
+            + "<g:value>1</g:value></g:gem>\n"
+            + "  <g:gem id=\"a3\"><g:name>Unknown</g:name><g:preciousness> precious </g:preciousness></g:gem>\n"
+            + "</g:Gem>\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        assertSameAsXslt(file.toString());
+    }
+
+    @Test
+    void testTransformWithEmptyGroups() throws Exception {
+        Path file = tempDir.resolve("empty.xml");
+        Files.write(file, "<Gem xmlns=\"http://www.diamondfund.ua/gems\"/>".getBytes(StandardCharsets.UTF_8));
+
+        assertSameAsXslt(file.toString());
+    }
+
+    @Test
+    void testTransformDeletesSpoolFile() throws Exception {
+        Path spool = Files.createDirectory(tempDir.resolve("spool"));
+        new StreamingGemTransformer(spool).transform(XML_FILE, tempDir.resolve("out.xml").toString());
+
+        try (Stream<Path> files = Files.list(spool)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testTransformWithNonExistentXmlFile() {
+        assertThrows(Exception.class, () -> {
+            new StreamingGemTransformer().transform("nonexistent.xml", tempDir.resolve("out.xml").toString());
+        });
+    }
+
+    @Test
+    void testTransformMalformedXmlFails() throws Exception {
+        Path file = tempDir.resolve("malformed.xml");
+        Files.write(file, "<Gem xmlns=\"http://www.diamondfund.ua/gems\"><gem>".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(Exception.class, () -> {
+            new StreamingGemTransformer().transform(file.toString(), tempDir.resolve("out.xml").toString());
+        });
+    }
+
+    private void assertSameAsXslt(String xmlFile) throws Exception {
+        Path expected = tempDir.resolve("xslt.xml");
+        Path actual = tempDir.resolve("stax.xml");
+        new XslTransformer().transform(xmlFile, XSL_FILE, expected.toString());
+        new StreamingGemTransformer().transform(xmlFile, actual.toString());
+
+        assertEquals(canonical(expected.toFile()), canonical(actual.toFile()));
+    }
+
+    /**
+     * Канонічна форма для порівняння: елементи з namespace URI, атрибути за алфавітом,
+     * без оголошень namespace і без текстових вузлів з одних пробілів (це відступи серіалізатора)
+     */
+    private static String canonical(File file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setCoalescing(true);
+        Document document = factory.newDocumentBuilder().parse(file);
+        StringBuilder sb = new StringBuilder();
+        append(document.getDocumentElement(), sb);
+        return sb.toString();
+    }
+
+    private static void append(Node node, StringBuilder sb) {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                Element element = (Element) node;
+                sb.append("<{").append(element.getNamespaceURI()).append('}').append(element.getLocalName());
+                Map<String, String> attributes = new TreeMap<>();
+                NamedNodeMap map = element.getAttributes();
+                for (int i = 0; i < map.getLength(); i++) {
+                    Node attribute = map.item(i);
+                    if (!"http://www.w3.org/2000/xmlns/".equals(attribute.getNamespaceURI())) {
+                        attributes.put("{" + attribute.getNamespaceURI() + "}" + attribute.getLocalName(),
+                                       attribute.getNodeValue());
+                    }
+                }
+                sb.append(attributes).append('>');
+                for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    append(child, sb);
+                }
+                sb.append("</>");
+                break;
+            case Node.TEXT_NODE:
+                if (!node.getNodeValue().trim().isEmpty()) {
+                    sb.append(node.getNodeValue());
+                }
+                break;
+            case Node.COMMENT_NODE:
+                sb.append("<!--").append(node.getNodeValue()).append("-->");
+                break;
+            default:
+                break;
+        }
+    }
+}
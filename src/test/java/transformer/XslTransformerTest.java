@@ -1,8 +1,20 @@
 package transformer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.xml.transform.Templates;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,5 +55,48 @@ class XslTransformerTest {
             transformer.transform("/invalid/path.xml", XSL_FILE, OUTPUT_FILE);
         });
     }
-}
 
+    @Test
+    void testCompileTemplatesIsCached() throws Exception {
+        assertSame(transformer.compileTemplates(XSL_FILE), new XslTransformer().compileTemplates(XSL_FILE));
+    }
+
+    @Test
+    void testCompileTemplatesRecompilesChangedFile(@TempDir Path tempDir) throws Exception {
+        Path xsl = tempDir.resolve("transform.xsl");
+        Files.copy(Paths.get(XSL_FILE), xsl);
+        Templates first = transformer.compileTemplates(xsl.toString());
+        assertSame(first, transformer.compileTemplates(xsl.toString()));
+
+        String content = new String(Files.readAllBytes(xsl), StandardCharsets.UTF_8)
+            .replace("<PreciousGems>", "<PreciousGemsChanged>").replace("</PreciousGems>", "</PreciousGemsChanged>");
+        Files.write(xsl, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xsl, FileTime.fromMillis(Files.getLastModifiedTime(xsl).toMillis() + 2000));
+
+        assertNotSame(first, transformer.compileTemplates(xsl.toString()));
+        Path output = tempDir.resolve("out.xml");
+        transformer.transform(XML_FILE, xsl.toString(), output.toString());
+        assertTrue(new String(Files.readAllBytes(output), StandardCharsets.UTF_8).contains("PreciousGemsChanged"));
+    }
+
+    @Test
+    void testTransformConcurrently(@TempDir Path tempDir) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Path output = tempDir.resolve("out" + i + ".xml");
+                results.add(executor.submit(() -> {
+                    transformer.transform(XML_FILE, XSL_FILE, output.toString());
+                    return output;
+                }));
+            }
+            byte[] expected = Files.readAllBytes(results.get(0).get());
+            for (Future<Path> result : results) {
+                assertArrayEquals(expected, Files.readAllBytes(result.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
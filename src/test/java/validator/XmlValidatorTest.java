@@ -1,6 +1,20 @@
 package validator;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+import javax.xml.validation.Schema;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,5 +46,55 @@ class XmlValidatorTest {
         boolean isValid = validator.validate("/invalid/path/to/file.xml", XSD_FILE);
         assertFalse(isValid, "Validation should fail with invalid XML path");
     }
-}
 
+    @Test
+    void testCompileSchema() throws Exception {
+        assertNotNull(validator.compileSchema(XSD_FILE));
+    }
+
+    @Test
+    void testCompileSchemaWithInvalidXsdPath() {
+        assertThrows(SAXException.class, () -> validator.compileSchema("nonexistent.xsd"));
+    }
+
+    @Test
+    void testCompileSchemaIsCached() throws Exception {
+        assertSame(validator.compileSchema(XSD_FILE), new XmlValidator().compileSchema(XSD_FILE));
+    }
+
+    @Test
+    void testCompileSchemaRecompilesChangedFile(@TempDir Path tempDir) throws Exception {
+        Path xsd = tempDir.resolve("gems.xsd");
+        Files.copy(Paths.get(XSD_FILE), xsd);
+        String path = xsd.toString();
+
+        Schema first = validator.compileSchema(path);
+        assertSame(first, validator.compileSchema(path));
+
+        // Змінюємо файл: обмеження граней 4..15 -> 4..10, тепер 12 граней невалідні
+        String content = new String(Files.readAllBytes(xsd), StandardCharsets.UTF_8)
+            .replace("<xs:maxInclusive value=\"15\"/>", "<xs:maxInclusive value=\"10\"/>");
+        Files.write(xsd, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xsd, FileTime.fromMillis(Files.getLastModifiedTime(xsd).toMillis() + 2000));
+
+        assertNotSame(first, validator.compileSchema(path));
+        assertFalse(validator.validate(VALID_XML, path), "Changed schema should be used for validation");
+    }
+
+    @Test
+    void testValidateConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                boolean valid = i % 2 == 0;
+                results.add(executor.submit(() -> validator.validate(valid ? VALID_XML : "nonexistent.xml", XSD_FILE) == valid));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}